@@ -0,0 +1,126 @@
+package com.crossover.trial.weather.benchmarks;
+
+import com.crossover.trial.weather.models.Airport;
+import com.crossover.trial.weather.models.Atmosphereinfo;
+import com.crossover.trial.weather.models.DataPoint;
+import com.crossover.trial.weather.models.NearbyAtmosphere;
+import com.crossover.trial.weather.services.AirportDao;
+import com.crossover.trial.weather.utils.GeoUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookups and radius queries of the in-memory airport DAO, the nearby weather in search order against the top 10 by
+ * distance, the same by coordinates and boxes, and the k nearest airports found best-first. The nearby weather of a
+ * few hubs is answered from the result cache, the one of every airport in turn mostly misses it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AirportDaoBenchmark {
+
+    @Param({"1000", "10000", "50000"})
+    private int airports;
+
+    @Param({"100", "1000"})
+    private double radius;
+
+    private ClassPathXmlApplicationContext context;
+    private AirportDao airportDao;
+    private String[] codes;
+    private double[] latitudes;
+    private double[] longitudes;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        context = new ClassPathXmlApplicationContext("beansContext.xml");
+        airportDao = context.getBean(AirportDao.class);
+        List<Airport> data = Airports.uniform(airports, 42);
+        airportDao.saveAirports(data);
+        codes = data.stream().map(Airport::getIata).toArray(String[]::new);
+        latitudes = data.stream().mapToDouble(Airport::getLatitude).toArray();
+        longitudes = data.stream().mapToDouble(Airport::getLongitude).toArray();
+        for (String code : codes) {
+            airportDao.updateAtmosphericInformation(code, "wind", new DataPoint(10, 20, 30, 40, 50));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Airport findAirportData() {
+        return airportDao.findAirportData(codes[next++ % codes.length]);
+    }
+
+    @Benchmark
+    public Set<Airport> findNearbyAirports() {
+        String iata = codes[next++ % codes.length];
+        return airportDao.findNearbyAirports(iata, radius);
+    }
+
+    @Benchmark
+    public List<Atmosphereinfo> findAtmosphericInformationNearbyAirport() {
+        String iata = codes[next++ % codes.length];
+        return airportDao.findAtmosphericInformationNearbyAirport(iata, radius);
+    }
+
+    @Benchmark
+    public List<Atmosphereinfo> findAtmosphericInformationNearbyHub() {
+        String iata = codes[next++ & 7];
+        return airportDao.findAtmosphericInformationNearbyAirport(iata, radius);
+    }
+
+    @Benchmark
+    public List<NearbyAtmosphere> findNearest10() {
+        String iata = codes[next++ % codes.length];
+        return airportDao.findNearestAtmosphericInformation(iata, radius, 10);
+    }
+
+    @Benchmark
+    public List<NearbyAtmosphere> findAtmosphericInformationNear10() {
+        int i = next++ % codes.length;
+        return airportDao.findAtmosphericInformationNear(latitudes[i], longitudes[i], radius, 10);
+    }
+
+    @Benchmark
+    public List<NearbyAtmosphere> findAtmosphericInformationInBox10() {
+        int i = next++ % codes.length;
+        double degrees = Math.toDegrees(radius / GeoUtils.EARTH_RADIUS);
+        return airportDao.findAtmosphericInformationInBox(latitudes[i] - degrees, longitudes[i] - degrees,
+                latitudes[i] + degrees, longitudes[i] + degrees, 10);
+    }
+
+    @Benchmark
+    public List<NearbyAtmosphere> findKNearest5() {
+        return airportDao.findKNearest(codes[next++ % codes.length], 5, null);
+    }
+
+    @Benchmark
+    public List<NearbyAtmosphere> findKNearest5Fresh() {
+        long since = System.currentTimeMillis() - 60000;
+        return airportDao.findKNearest(codes[next++ % codes.length], 5, ai -> ai.getLastUpdateTime() >= since);
+    }
+
+}
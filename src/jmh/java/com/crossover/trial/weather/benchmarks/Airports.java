@@ -0,0 +1,35 @@
+package com.crossover.trial.weather.benchmarks;
+
+import com.crossover.trial.weather.models.Airport;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Synthetic airports for the benchmarks.
+ */
+final class Airports {
+
+    private Airports() {
+    }
+
+    /**
+     * Airports spread uniformly over the sphere, so every run of a benchmark sees the same layout
+     *
+     * @param count number of airports
+     * @param seed  of the random layout
+     * @return airports with codes A00000, A00001 ... to keep them apart from the real ones
+     */
+    static List<Airport> uniform(int count, long seed) {
+        Random random = new Random(seed);
+        List<Airport> airports = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            double latitude = Math.toDegrees(Math.asin(2 * random.nextDouble() - 1));
+            double longitude = 360 * random.nextDouble() - 180;
+            airports.add(new Airport(String.format("A%05d", i), latitude, longitude));
+        }
+        return airports;
+    }
+
+}
@@ -0,0 +1,95 @@
+package com.crossover.trial.weather.benchmarks;
+
+import com.crossover.trial.weather.models.DataPoint;
+import com.crossover.trial.weather.services.AirportDao;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Updates of the atmospheric information when many collectors report for a handful of airports at the same time, on
+ * the heap and off the heap.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AtmosphereUpdateBenchmark {
+
+    /**
+     * few airports, so the threads keep hitting the same records
+     */
+    private static final int AIRPORTS = 8;
+
+    private static final String[] POINT_TYPES = {"wind", "temperature", "humidty", "pressure", "cloudcover", "precipitation"};
+
+    /**
+     * a valid data point of every point type
+     */
+    private static final DataPoint[] DATA_POINTS = {new DataPoint(10, 20, 30, 40, 50), new DataPoint(10, 20, 30, 40, 50),
+            new DataPoint(10, 20, 30, 40, 50), new DataPoint(690, 700, 710, 720, 50),
+            new DataPoint(10, 20, 30, 40, 50), new DataPoint(10, 20, 30, 40, 50)};
+
+    @Param({"beansContext.xml", "offHeapContext.xml"})
+    private String configLocation;
+
+    private ClassPathXmlApplicationContext context;
+    private AirportDao airportDao;
+    private String[] codes;
+
+    @Setup
+    public void setUp() {
+        context = new ClassPathXmlApplicationContext(configLocation);
+        airportDao = context.containsBean("airportDao")
+                ? context.getBean("airportDao", AirportDao.class) : context.getBean(AirportDao.class);
+        airportDao.saveAirports(Airports.uniform(AIRPORTS, 42));
+        codes = airportDao.getAllAirportCodes().toArray(new String[AIRPORTS]);
+    }
+
+    @TearDown
+    public void tearDown() {
+        airportDao.getAllAirportCodes().forEach(airportDao::deleteAirport);
+        context.close();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void update1() {
+        update();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void update4() {
+        update();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public void update16() {
+        update();
+    }
+
+    private void update() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int type = random.nextInt(POINT_TYPES.length);
+        airportDao.updateAtmosphericInformation(codes[random.nextInt(AIRPORTS)], POINT_TYPES[type], DATA_POINTS[type]);
+    }
+
+}
@@ -0,0 +1,68 @@
+package com.crossover.trial.weather.benchmarks;
+
+import com.crossover.trial.weather.models.Airport;
+import com.crossover.trial.weather.utils.AirportCatalogFile;
+import com.crossover.trial.weather.utils.AirportSnapshot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cold start of a node with the airports of the world: reading the binary catalog, spatial index included, compared
+ * with building the snapshot from the airports.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CatalogLoadBenchmark {
+
+    private static final int AIRPORTS = 10000;
+
+    private List<Airport> airports;
+    private File file;
+
+    @Setup
+    public void setUp() throws IOException {
+        // codes of the catalog have at most 4 characters
+        airports = new ArrayList<>();
+        int i = 0;
+        for (Airport a : Airports.uniform(AIRPORTS, 42)) {
+            airports.add(new Airport(Integer.toString(46656 + i++, 36), a.getLatitude(), a.getLongitude()));
+        }
+        file = File.createTempFile("airports", ".bin");
+        AirportCatalogFile.write(AirportSnapshot.of(airports), file);
+    }
+
+    @TearDown
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Benchmark
+    public AirportSnapshot read() throws IOException {
+        return AirportCatalogFile.read(file);
+    }
+
+    @Benchmark
+    public AirportSnapshot build() {
+        return AirportSnapshot.of(airports);
+    }
+
+}
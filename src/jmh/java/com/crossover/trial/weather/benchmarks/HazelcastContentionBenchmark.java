@@ -0,0 +1,149 @@
+package com.crossover.trial.weather.benchmarks;
+
+import com.crossover.trial.weather.models.Atmosphereinfo;
+import com.crossover.trial.weather.models.DataPoint;
+import com.crossover.trial.weather.models.DataPointType;
+import com.crossover.trial.weather.services.hazelcast.AtmosphereUpdateProcessor;
+import com.crossover.trial.weather.services.hazelcast.WeatherSerialization;
+import com.hazelcast.config.Config;
+import com.hazelcast.config.InMemoryFormat;
+import com.hazelcast.config.JoinConfig;
+import com.hazelcast.config.MapConfig;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Collectors on two embedded members writing the same airport. The entry processor of the DAO is compared with the
+ * get, copy and replace loop it replaced, which retried after a sleep whenever another collector won the race.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HazelcastContentionBenchmark {
+
+    private static final String MAP = "ATMOSPHERIC_INFORMATION";
+
+    private static final String IATA = "BOS";
+
+    private static final DataPointType[] TYPES = DataPointType.values();
+
+    /**
+     * a valid data point of every point type
+     */
+    private static final DataPoint[] DATA_POINTS = {new DataPoint(10, 20, 30, 40, 50), new DataPoint(10, 20, 30, 40, 50),
+            new DataPoint(10, 20, 30, 40, 50), new DataPoint(690, 700, 710, 720, 50),
+            new DataPoint(10, 20, 30, 40, 50), new DataPoint(10, 20, 30, 40, 50)};
+
+    @Param({"processor", "replace"})
+    private String path;
+
+    @Param({"OBJECT", "BINARY"})
+    private InMemoryFormat format;
+
+    private final List<HazelcastInstance> instances = new ArrayList<>();
+    private final List<IMap<String, Atmosphereinfo>> maps = new ArrayList<>();
+
+    @Setup
+    public void setUp() {
+        System.setProperty("hazelcast.logging.type", "none");
+        Config config = config(UUID.randomUUID().toString());
+        for (int i = 0; i < 2; i++) {
+            HazelcastInstance instance = Hazelcast.newHazelcastInstance(config);
+            instances.add(instance);
+            maps.add(instance.getMap(MAP));
+        }
+        maps.get(0).put(IATA, new Atmosphereinfo());
+    }
+
+    @TearDown
+    public void tearDown() {
+        instances.forEach(HazelcastInstance::shutdown);
+        instances.clear();
+        maps.clear();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void update1() {
+        update();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void update8() {
+        update();
+    }
+
+    @Benchmark
+    @Threads(32)
+    public void update32() {
+        update();
+    }
+
+    private void update() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        IMap<String, Atmosphereinfo> map = maps.get(random.nextInt(maps.size()));
+        int type = random.nextInt(TYPES.length);
+        if ("processor".equals(path)) {
+            map.executeOnKey(IATA, new AtmosphereUpdateProcessor(
+                    Collections.singletonMap(TYPES[type], DATA_POINTS[type]), System.currentTimeMillis()));
+        } else {
+            replace(map, TYPES[type], DATA_POINTS[type]);
+        }
+    }
+
+    private static void replace(IMap<String, Atmosphereinfo> map, DataPointType type, DataPoint dp) {
+        while (true) {
+            Atmosphereinfo oldValue = map.get(IATA);
+            Atmosphereinfo newValue = new Atmosphereinfo(oldValue.getTemperature(), oldValue.getWind(),
+                    oldValue.getHumidity(), oldValue.getPrecipitation(), oldValue.getPressure(), oldValue.getCloudCover());
+            newValue.update(type, dp, System.currentTimeMillis());
+            if (map.replace(IATA, oldValue, newValue)) return;
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+    }
+
+    /**
+     * members of a cluster of their own on the loopback interface, so concurrent runs don't join each other
+     */
+    private Config config(String group) {
+        Config config = new Config();
+        config.getGroupConfig().setName(group);
+        JoinConfig join = config.getNetworkConfig().getJoin();
+        join.getMulticastConfig().setEnabled(false);
+        join.getTcpIpConfig().setEnabled(true).addMember("127.0.0.1");
+        config.getNetworkConfig().getInterfaces().setEnabled(true).addInterface("127.0.0.1");
+        WeatherSerialization.configure(config.getSerializationConfig());
+        config.addMapConfig(new MapConfig(MAP)
+                .setBackupCount(1)
+                .setReadBackupData(true)
+                .setInMemoryFormat(format));
+        return config;
+    }
+
+}
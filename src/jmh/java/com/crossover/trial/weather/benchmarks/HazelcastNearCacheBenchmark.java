@@ -0,0 +1,114 @@
+package com.crossover.trial.weather.benchmarks;
+
+import com.crossover.trial.weather.models.Airport;
+import com.crossover.trial.weather.models.Atmosphereinfo;
+import com.crossover.trial.weather.models.DataPoint;
+import com.crossover.trial.weather.services.hazelcast.WeatherSerialization;
+import com.hazelcast.config.Config;
+import com.hazelcast.config.InMemoryFormat;
+import com.hazelcast.config.JoinConfig;
+import com.hazelcast.config.MapConfig;
+import com.hazelcast.config.NearCacheConfig;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Atmospheric information lookups through one member of a cluster of embedded members, with and without the near
+ * cache of the production configuration in weatherCastContext.xml. Most keys are owned by the other members, so
+ * without the near cache a lookup is a network round trip and a deserialization.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HazelcastNearCacheBenchmark {
+
+    private static final String MAP = "ATMOSPHERIC_INFORMATION";
+
+    @Param({"2", "3"})
+    private int members;
+
+    @Param({"false", "true"})
+    private boolean nearCache;
+
+    private final List<HazelcastInstance> instances = new ArrayList<>();
+    private IMap<String, Atmosphereinfo> atmosphericInformation;
+    private String[] codes;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        System.setProperty("hazelcast.logging.type", "none");
+        Config config = config(UUID.randomUUID().toString());
+        for (int i = 0; i < members; i++) {
+            instances.add(Hazelcast.newHazelcastInstance(config));
+        }
+        atmosphericInformation = instances.get(0).getMap(MAP);
+
+        DataPoint dp = new DataPoint(10, 20, 30, 40, 50);
+        codes = Airports.uniform(1000, 42).stream().map(Airport::getIata).toArray(String[]::new);
+        for (String code : codes) {
+            atmosphericInformation.put(code, new Atmosphereinfo(dp, dp, dp, dp, dp, dp));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        instances.forEach(HazelcastInstance::shutdown);
+        instances.clear();
+    }
+
+    @Benchmark
+    public Atmosphereinfo findAtmosphericInformation() {
+        return atmosphericInformation.get(codes[next++ % codes.length]);
+    }
+
+    /**
+     * members of a cluster of their own on the loopback interface, so concurrent runs don't join each other
+     */
+    private Config config(String group) {
+        Config config = new Config();
+        config.getGroupConfig().setName(group);
+        JoinConfig join = config.getNetworkConfig().getJoin();
+        join.getMulticastConfig().setEnabled(false);
+        join.getTcpIpConfig().setEnabled(true).addMember("127.0.0.1");
+        config.getNetworkConfig().getInterfaces().setEnabled(true).addInterface("127.0.0.1");
+        WeatherSerialization.configure(config.getSerializationConfig());
+
+        MapConfig map = new MapConfig(MAP)
+                .setBackupCount(1)
+                .setReadBackupData(true)
+                .setInMemoryFormat(InMemoryFormat.BINARY);
+        if (nearCache) {
+            map.setNearCacheConfig(new NearCacheConfig()
+                    .setInMemoryFormat(InMemoryFormat.OBJECT)
+                    .setInvalidateOnChange(true)
+                    .setCacheLocalEntries(true)
+                    .setMaxSize(100000)
+                    .setEvictionPolicy("LRU"));
+        }
+        config.addMapConfig(map);
+        return config;
+    }
+
+}
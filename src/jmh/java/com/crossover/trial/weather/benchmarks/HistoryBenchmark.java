@@ -0,0 +1,63 @@
+package com.crossover.trial.weather.benchmarks;
+
+import com.crossover.trial.weather.models.DataPoint;
+import com.crossover.trial.weather.models.TimedDataPoint;
+import com.crossover.trial.weather.utils.ReadingRing;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * History of one airport and point type: a day of readings collected every minute, the default capacity of the
+ * history DAO, queried for the last hour and for the whole day.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HistoryBenchmark {
+
+    private static final long MINUTE = TimeUnit.MINUTES.toMillis(1);
+
+    private static final int CAPACITY = 1440;
+
+    private final ReadingRing ring = new ReadingRing(CAPACITY);
+    private final DataPoint dp = new DataPoint(10, 20, 30, 40, 50);
+    private long time;
+
+    @Setup
+    public void setUp() {
+        // wrap the ring once, so the queries cross the end of the columns
+        for (int i = 0; i < CAPACITY * 3 / 2; i++) {
+            ring.add(time += MINUTE, dp);
+        }
+    }
+
+    @Benchmark
+    public void add() {
+        ring.add(time += MINUTE, dp);
+    }
+
+    @Benchmark
+    public List<TimedDataPoint> findHour() {
+        return ring.find(time - 60 * MINUTE, time);
+    }
+
+    @Benchmark
+    public List<TimedDataPoint> findDay() {
+        return ring.find(0, Long.MAX_VALUE);
+    }
+
+}
@@ -0,0 +1,88 @@
+package com.crossover.trial.weather.benchmarks;
+
+import com.crossover.trial.weather.models.DataPoint;
+import com.crossover.trial.weather.services.SimpleAirportDaoImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the journal on the ingest path: updates of the simple DAO with and without weather.wal.dir, the journal
+ * syncing every 10 ms in the background.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JournalBenchmark {
+
+    private static final int AIRPORTS = 1000;
+
+    @Param({"false", "true"})
+    private boolean journal;
+
+    private File dir;
+    private ClassPathXmlApplicationContext context;
+    private SimpleAirportDaoImpl airportDao;
+    private String[] codes;
+    private final DataPoint dp = new DataPoint(10, 20, 30, 40, 50);
+
+    @Setup
+    public void setUp() throws IOException {
+        if (journal) {
+            dir = Files.createTempDirectory("wal").toFile();
+            System.setProperty("weather.wal.dir", dir.getPath());
+        }
+        context = new ClassPathXmlApplicationContext("beansContext.xml");
+        airportDao = context.getBean(SimpleAirportDaoImpl.class);
+        airportDao.saveAirports(Airports.uniform(AIRPORTS, 42));
+        codes = airportDao.getAllAirportCodes().toArray(new String[AIRPORTS]);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+        System.clearProperty("weather.wal.dir");
+        if (dir != null) {
+            File[] files = dir.listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    file.delete();
+                }
+            }
+            dir.delete();
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void update1() {
+        airportDao.updateAtmosphericInformation(codes[ThreadLocalRandom.current().nextInt(AIRPORTS)], "wind", dp);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void update4() {
+        airportDao.updateAtmosphericInformation(codes[ThreadLocalRandom.current().nextInt(AIRPORTS)], "wind", dp);
+    }
+
+}
@@ -0,0 +1,111 @@
+package com.crossover.trial.weather.benchmarks;
+
+import com.crossover.trial.weather.models.Atmosphereinfo;
+import com.crossover.trial.weather.models.DataPoint;
+import com.crossover.trial.weather.utils.JsonCodec;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A mapper created per request against the shared {@link JsonCodec} on the collector and ping paths, and the
+ * (de)serialization of the data point and the atmospheric information.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonCodecBenchmark {
+
+    private final JsonCodec codec = new JsonCodec();
+
+    private DataPoint dataPoint;
+    private String dataPointJson;
+    private String atmosphereJson;
+    private Map<String, Object> ping;
+    private List<Atmosphereinfo> atmospheres;
+
+    @Setup
+    public void setUp() throws Exception {
+        DataPoint dp = new DataPoint(10, 20, 30, 40, 50);
+        dataPoint = dp;
+        dataPointJson = new ObjectMapper().writeValueAsString(dp);
+        atmosphereJson = new ObjectMapper().writeValueAsString(new Atmosphereinfo(dp, dp, dp, dp, dp, dp));
+
+        Map<String, Double> frequency = new HashMap<>();
+        for (int i = 0; i < 100; i++) {
+            frequency.put("A" + i, i / 100.0);
+        }
+        ping = new HashMap<>();
+        ping.put("datasize", 100);
+        ping.put("iata_freq", frequency);
+        ping.put("radius_freq", new int[1001]);
+
+        atmospheres = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            atmospheres.add(new Atmosphereinfo(dp, dp, dp, dp, dp, dp));
+        }
+    }
+
+    @Benchmark
+    public DataPoint readDataPointPerRequest() throws Exception {
+        return new ObjectMapper().readValue(dataPointJson, DataPoint.class);
+    }
+
+    @Benchmark
+    public DataPoint readDataPointShared() throws Exception {
+        return codec.readDataPoint(dataPointJson);
+    }
+
+    @Benchmark
+    public String writeDataPointShared() throws Exception {
+        return codec.getContext(DataPoint.class).writeValueAsString(dataPoint);
+    }
+
+    @Benchmark
+    public Atmosphereinfo readAtmosphereShared() throws Exception {
+        return codec.getContext(Atmosphereinfo.class).readValue(atmosphereJson, Atmosphereinfo.class);
+    }
+
+    @Benchmark
+    public String writePingPerRequest() throws Exception {
+        return new ObjectMapper().writeValueAsString(ping);
+    }
+
+    @Benchmark
+    public String writePingShared() throws Exception {
+        return codec.writePing(ping);
+    }
+
+    @Benchmark
+    public int writeAtmospherePerRequest() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(4096);
+        new ObjectMapper().writeValue(out, atmospheres);
+        return out.size();
+    }
+
+    @Benchmark
+    public int writeAtmosphereShared() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(4096);
+        codec.writeAtmosphere(out, atmospheres);
+        return out.size();
+    }
+
+}
@@ -0,0 +1,86 @@
+package com.crossover.trial.weather.benchmarks;
+
+import com.crossover.trial.weather.models.Airport;
+import com.crossover.trial.weather.models.DataPoint;
+import com.crossover.trial.weather.models.RequestFrequencyData;
+import com.crossover.trial.weather.services.AirportDao;
+import com.crossover.trial.weather.services.PerformanceDao;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request statistics: recording a query, building the ping payload and serving its snapshot.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PerformanceDaoBenchmark {
+
+    private static final int AIRPORTS = 1000;
+
+    private ClassPathXmlApplicationContext context;
+    private AirportDao airportDao;
+    private PerformanceDao performanceDao;
+    private String[] codes;
+
+    @Setup
+    public void setUp() {
+        context = new ClassPathXmlApplicationContext("beansContext.xml");
+        airportDao = context.getBean(AirportDao.class);
+        performanceDao = context.getBean(PerformanceDao.class);
+
+        List<Airport> airports = Airports.uniform(AIRPORTS, 42);
+        airportDao.saveAirports(airports);
+        codes = airports.stream().map(Airport::getIata).toArray(String[]::new);
+
+        DataPoint dp = new DataPoint(10, 20, 30, 40, 50);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (String iata : codes) {
+            airportDao.updateAtmosphericInformation(iata, "wind", dp);
+            performanceDao.updateRequestFrequency(iata, (double) random.nextInt(1000));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        performanceDao.clear();
+        airportDao.getAllAirportCodes().forEach(airportDao::deleteAirport);
+        context.close();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void updateRequestFrequency() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        performanceDao.updateRequestFrequency(codes[random.nextInt(AIRPORTS)], random.nextDouble() * 1000);
+    }
+
+    @Benchmark
+    public RequestFrequencyData getPerformanceData() {
+        return performanceDao.getPerformanceData();
+    }
+
+    @Benchmark
+    public RequestFrequencyData getPerformanceSnapshot() {
+        return performanceDao.getPerformanceSnapshot();
+    }
+
+}
@@ -0,0 +1,82 @@
+package com.crossover.trial.weather.benchmarks;
+
+import com.crossover.trial.weather.models.Airport;
+import com.crossover.trial.weather.models.Atmosphereinfo;
+import com.crossover.trial.weather.models.DataPoint;
+import com.crossover.trial.weather.services.hazelcast.WeatherSerialization;
+import com.hazelcast.config.SerializationConfig;
+import com.hazelcast.internal.serialization.SerializationService;
+import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+import com.hazelcast.nio.serialization.Data;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hazelcast serialization of the models with java serialization and with the compact serializers. The bytes per
+ * entry are printed at setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"java", "compact"})
+    private String serialization;
+
+    private SerializationService serializationService;
+    private Airport airport;
+    private Atmosphereinfo atmosphere;
+    private Data airportData;
+    private Data atmosphereData;
+
+    @Setup
+    public void setUp() {
+        SerializationConfig config = new SerializationConfig();
+        if ("compact".equals(serialization)) WeatherSerialization.configure(config);
+        serializationService = new DefaultSerializationServiceBuilder().setConfig(config).build();
+
+        DataPoint dp = new DataPoint(10, 20, 30, 40, 50);
+        airport = new Airport("BOS", 42.364347, -71.005181);
+        atmosphere = new Atmosphereinfo(dp, dp, dp, dp, dp, dp);
+        airportData = serializationService.toData(airport);
+        atmosphereData = serializationService.toData(atmosphere);
+        System.out.println(serialization + ": Airport " + airportData.totalSize() + " bytes, Atmosphereinfo "
+                + atmosphereData.totalSize() + " bytes, DataPoint " + serializationService.toData(dp).totalSize()
+                + " bytes");
+    }
+
+    @Benchmark
+    public Data writeAirport() {
+        return serializationService.toData(airport);
+    }
+
+    @Benchmark
+    public Object readAirport() {
+        return serializationService.toObject(airportData);
+    }
+
+    @Benchmark
+    public Data writeAtmosphere() {
+        return serializationService.toData(atmosphere);
+    }
+
+    @Benchmark
+    public Object readAtmosphere() {
+        return serializationService.toObject(atmosphereData);
+    }
+
+}
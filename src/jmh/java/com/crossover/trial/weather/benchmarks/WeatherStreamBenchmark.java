@@ -0,0 +1,104 @@
+package com.crossover.trial.weather.benchmarks;
+
+import com.crossover.trial.weather.models.Airport;
+import com.crossover.trial.weather.models.DataPoint;
+import com.crossover.trial.weather.services.AirportDao;
+import com.crossover.trial.weather.utils.JsonCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The nearby weather written as one json list against newline delimited json streamed as the spatial search finds
+ * the airports, into a stream that only counts the bytes. Run with -prof gc to compare the allocation per query.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WeatherStreamBenchmark {
+
+    @Param({"1000", "5000"})
+    private double radius;
+
+    private ClassPathXmlApplicationContext context;
+    private AirportDao airportDao;
+    private JsonCodec codec;
+    private String[] codes;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        context = new ClassPathXmlApplicationContext("beansContext.xml");
+        airportDao = context.getBean(AirportDao.class);
+        codec = context.getBean(JsonCodec.class);
+        List<Airport> data = Airports.uniform(10000, 42);
+        airportDao.saveAirports(data);
+        codes = data.stream().map(Airport::getIata).toArray(String[]::new);
+        for (String code : codes) {
+            airportDao.updateAtmosphericInformation(code, "wind", new DataPoint(10, 20, 30, 40, 50));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public long writeList() throws IOException {
+        Counter out = new Counter();
+        codec.writeAtmosphere(out, airportDao.findAtmosphericInformationNearbyAirport(codes[next++ % codes.length], radius));
+        return out.count;
+    }
+
+    @Benchmark
+    public long writeLines() throws IOException {
+        Counter out = new Counter();
+        try (JsonCodec.AtmosphereLines lines = codec.writeAtmosphereLines(out)) {
+            airportDao.forEachAtmosphericInformationNearbyAirport(codes[next++ % codes.length], radius, ai -> {
+                try {
+                    lines.write(ai);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+        return out.count;
+    }
+
+    private static class Counter extends OutputStream {
+
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+
+    }
+
+}
@@ -5,6 +5,7 @@ import org.glassfish.jersey.server.spring.scope.RequestContextFilter;
 
 import com.crossover.trial.weather.endpoints.RestWeatherCollectorEndpoint;
 import com.crossover.trial.weather.endpoints.RestWeatherQueryEndpoint;
+import com.crossover.trial.weather.utils.JsonCodec;
 
 public class WeatherApplication extends ResourceConfig {
 
@@ -12,6 +13,7 @@ public class WeatherApplication extends ResourceConfig {
         register(RequestContextFilter.class);
         register(RestWeatherCollectorEndpoint.class);
         register(RestWeatherQueryEndpoint.class);
+        register(JsonCodec.class);
     }
 
 }
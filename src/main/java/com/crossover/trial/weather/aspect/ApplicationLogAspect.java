@@ -1,15 +1,30 @@
 package com.crossover.trial.weather.aspect;
 
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
-import org.springframework.util.StopWatch;
+
+import com.crossover.trial.weather.utils.LatencyMetrics;
 
 /**
- * Method execution time logging aspect
+ * Method execution time aspect
+ * <p>
+ * Every call is recorded in the latency histogram of its method. Slow calls are logged with their arguments, a
+ * sample of them if so configured, by a background thread so the call doesn't wait for the formatting and the log
+ * handlers. When the background thread can't keep up the log records are dropped.
  */
 @Component
 @Aspect
@@ -17,42 +32,58 @@ public class ApplicationLogAspect {
 
     private final Logger LOGGER = Logger.getLogger(getClass().getName());
 
-    @Around("execution(* com.crossover.trial.weather.endpoints.*.*(..))")
-    public Object logTimeMethod(ProceedingJoinPoint joinPoint) throws Throwable {
-    	try{
-        StopWatch stopWatch = new StopWatch();
-        stopWatch.start();
-        Object result = joinPoint.proceed();
-        stopWatch.stop();
-
-        StringBuilder logMessage = new StringBuilder();
-        logMessage.append(joinPoint.getTarget().getClass().getName());
-        logMessage.append(".");
-        logMessage.append(joinPoint.getSignature().getName());
-        logMessage.append("(");
+    @Resource
+    private LatencyMetrics latencyMetrics;
 
-        Object[] args = joinPoint.getArgs();
-        for (Object arg : args) {
-            logMessage.append("'").append(arg).append("', ");
-        }
-        if (args.length > 0) {
-            logMessage.delete(logMessage.length() - 2, logMessage.length());
-        }
+    /**
+     * calls that take longer are logged, 0 to log none
+     */
+    @Value("${weather.log.slowMillis:1000}")
+    private long slowMillis;
+
+    /**
+     * the share of the slow calls to log, in [0, 1]
+     */
+    @Value("${weather.log.slowSampleRate:1}")
+    private double slowSampleRate;
 
-        logMessage.append(")");
-        logMessage.append(" execution time: ");
-        logMessage.append(stopWatch.getTotalTimeMillis());
-        logMessage.append(" ms");
+    private final ThreadPoolExecutor logger = new ThreadPoolExecutor(1, 1, 10, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(1024), r -> {
+        Thread thread = new Thread(r, "slow-call-logger");
+        thread.setDaemon(true);
+        return thread;
+    }, new ThreadPoolExecutor.DiscardPolicy());
 
-        LOGGER.info(logMessage.toString());
+    public ApplicationLogAspect() {
+        logger.allowCoreThreadTimeOut(true);
+    }
 
-        return result;
+    @Around("execution(* com.crossover.trial.weather.endpoints.*.*(..))")
+    public Object logTimeMethod(ProceedingJoinPoint joinPoint) throws Throwable {
+        long start = System.nanoTime();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            long nanos = System.nanoTime() - start;
+            latencyMetrics.record(((MethodSignature) joinPoint.getSignature()).getMethod(), nanos);
+            if (slowMillis > 0 && nanos >= TimeUnit.MILLISECONDS.toNanos(slowMillis)
+                    && (slowSampleRate >= 1 || ThreadLocalRandom.current().nextDouble() < slowSampleRate)) {
+                logSlowCall(joinPoint, nanos);
+            }
         }
-    	catch (Exception ex)
-    	{
-    		System.out.println("Exception in aspect " + ex.getMessage());
-    		return joinPoint.proceed();
-    	}
+    }
+
+    private void logSlowCall(ProceedingJoinPoint joinPoint, long nanos) {
+        String type = joinPoint.getTarget().getClass().getName();
+        String method = joinPoint.getSignature().getName();
+        Object[] args = joinPoint.getArgs();
+        logger.execute(() -> LOGGER.warning(type + "." + method + Arrays.toString(args) + " execution time: "
+                + TimeUnit.NANOSECONDS.toMillis(nanos) + " ms"));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        logger.shutdown();
     }
 
 }
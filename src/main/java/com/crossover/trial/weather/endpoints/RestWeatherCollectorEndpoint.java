@@ -2,15 +2,31 @@ package com.crossover.trial.weather.endpoints;
 
 import com.crossover.trial.weather.models.Airport;
 import com.crossover.trial.weather.models.DataPoint;
+import com.crossover.trial.weather.models.DataPointType;
+import com.crossover.trial.weather.models.ImportStatus;
+import com.crossover.trial.weather.models.ReadingStatus;
+import com.crossover.trial.weather.models.WeatherReading;
 import com.crossover.trial.weather.services.AirportDao;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.crossover.trial.weather.utils.JsonCodec;
+import com.fasterxml.jackson.databind.MappingIterator;
 
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVRecord;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import javax.ws.rs.core.Response;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -23,10 +39,18 @@ import java.util.logging.Logger;
 public class RestWeatherCollectorEndpoint implements WeatherCollectorEndpoint {
 
     private final static Logger LOGGER = Logger.getLogger(RestWeatherCollectorEndpoint.class.getName());
-    
+
+    /**
+     * number of imported airports kept in memory before they are saved
+     */
+    private final static int IMPORT_BATCH_SIZE = 1000;
+
     @Autowired
     private AirportDao airportDao;
 
+    @Autowired
+    private JsonCodec jsonCodec;
+
     @Override
     public Response ping() {
         return Response.status(Response.Status.OK).entity("ready").build();
@@ -39,7 +63,7 @@ public class RestWeatherCollectorEndpoint implements WeatherCollectorEndpoint {
 
         DataPoint dp;
         try {
-            dp = new ObjectMapper().readValue(datapointJson, DataPoint.class);
+            dp = jsonCodec.readDataPoint(datapointJson);
         } catch (IOException e) {
             LOGGER.log(Level.SEVERE, "Cannot read datapoint", e);
             return Response.status(Response.Status.BAD_REQUEST).build();
@@ -60,6 +84,64 @@ public class RestWeatherCollectorEndpoint implements WeatherCollectorEndpoint {
         return Response.status(Response.Status.OK).build();
     }
 
+    @Override
+    public Response updateWeatherBatch(InputStream readings) {
+        List<ReadingStatus> result = new ArrayList<>();
+        Map<String, Map<DataPointType, DataPoint>> dataPoints = new LinkedHashMap<>();
+        Map<String, List<ReadingStatus>> accepted = new LinkedHashMap<>();
+
+        try (MappingIterator<WeatherReading> it = jsonCodec.getWeatherReadingReader().readValues(readings)) {
+            while (it.hasNext()) {
+                WeatherReading reading = it.next();
+                ReadingStatus status = validate(reading);
+                result.add(status);
+                if (status.getStatus() == Response.Status.OK.getStatusCode()) {
+                    dataPoints.computeIfAbsent(reading.getIata(), k -> new EnumMap<>(DataPointType.class))
+                            .put(DataPointType.fromName(reading.getPointType()), reading.getDataPoint());
+                    accepted.computeIfAbsent(reading.getIata(), k -> new ArrayList<>()).add(status);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.SEVERE, "Cannot read weather readings", e);
+            return Response.status(Response.Status.BAD_REQUEST).build();
+        }
+
+        for (Map.Entry<String, Map<DataPointType, DataPoint>> e : dataPoints.entrySet()) {
+            try {
+                airportDao.updateAtmosphericInformation(e.getKey(), e.getValue());
+            } catch (IllegalArgumentException ex) {
+                LOGGER.severe("Cannot update airport " + e.getKey() + ": " + ex.getMessage());
+                for (ReadingStatus status : accepted.get(e.getKey())) {
+                    status.setStatus(Response.Status.BAD_REQUEST.getStatusCode());
+                    status.setMessage(ex.getMessage());
+                }
+            }
+        }
+
+        return Response.status(Response.Status.OK).entity(result).build();
+    }
+
+    private ReadingStatus validate(WeatherReading reading) {
+        if (reading == null) {
+            return new ReadingStatus(null, null, Response.Status.BAD_REQUEST.getStatusCode(), "Reading is null");
+        }
+        ReadingStatus status = new ReadingStatus(reading.getIata(), reading.getPointType(),
+                Response.Status.BAD_REQUEST.getStatusCode(), null);
+        DataPointType type = DataPointType.fromName(reading.getPointType());
+        if (reading.getIata() == null) {
+            status.setMessage("IATA code is null");
+        } else if (type == null) {
+            status.setMessage("Unknown point type");
+        } else if (reading.getDataPoint() == null) {
+            status.setMessage("Data point is null");
+        } else if (!type.isValid(reading.getDataPoint())) {
+            status.setMessage("Wrong parameter " + type + " = " + reading.getDataPoint().getMean());
+        } else {
+            status.setStatus(Response.Status.OK.getStatusCode());
+        }
+        return status;
+    }
+
     @Override
     public Response getAirports() {
         Set<String> result = new HashSet<>();
@@ -79,9 +161,94 @@ public class RestWeatherCollectorEndpoint implements WeatherCollectorEndpoint {
                                String latString,
                                String longString) {
 
+        Airport ad = parseAirport(iata, latString, longString);
+        if (ad == null) {
+            return Response.status(Response.Status.BAD_REQUEST).build();
+        }
+
+        airportDao.saveAirport(ad);
+
+        return Response.status(Response.Status.OK).build();
+    }
+
+    @Override
+    public Response addAirportsCsv(InputStream airports) {
+        List<Airport> batch = new ArrayList<>(IMPORT_BATCH_SIZE);
+        ImportStatus status = new ImportStatus();
+        try {
+            for (CSVRecord record : CSVFormat.DEFAULT.parse(new InputStreamReader(airports, StandardCharsets.UTF_8))) {
+                Airport ad = record.size() < 3 ? null : parseAirport(record.get(0), record.get(1), record.get(2));
+                addToImport(ad, batch, status);
+            }
+        } catch (UncheckedIOException e) {
+            // the airports couldn't be journaled, it's not the request that is wrong
+            throw e;
+        } catch (IOException | RuntimeException e) {
+            return importFailed(status, e);
+        }
+        saveImport(batch, status);
+        return Response.status(Response.Status.OK).entity(status).build();
+    }
+
+    @Override
+    public Response addAirportsJson(InputStream airports) {
+        List<Airport> batch = new ArrayList<>(IMPORT_BATCH_SIZE);
+        ImportStatus status = new ImportStatus();
+        try (MappingIterator<Airport> it = jsonCodec.getAirportReader().readValues(airports)) {
+            while (it.hasNext()) {
+                Airport ad = it.next();
+                addToImport(ad == null || !isValid(ad.getIata(), ad.getLatitude(), ad.getLongitude()) ? null : ad,
+                        batch, status);
+            }
+        } catch (UncheckedIOException e) {
+            // the airports couldn't be journaled, it's not the request that is wrong
+            throw e;
+        } catch (IOException | RuntimeException e) {
+            return importFailed(status, e);
+        }
+        saveImport(batch, status);
+        return Response.status(Response.Status.OK).entity(status).build();
+    }
+
+    /**
+     * Collect an imported airport and save the collected ones when the batch is full
+     */
+    private void addToImport(Airport ad, List<Airport> batch, ImportStatus status) {
+        if (ad == null) {
+            status.setRejected(status.getRejected() + 1);
+            return;
+        }
+        batch.add(ad);
+        if (batch.size() >= IMPORT_BATCH_SIZE) saveImport(batch, status);
+    }
+
+    /**
+     * The batches saved before the request turned out malformed stay saved, the status tells how many they were and
+     * the airports read since the last batch are dropped
+     */
+    private Response importFailed(ImportStatus status, Exception e) {
+        LOGGER.log(Level.SEVERE, "Cannot read airports", e);
+        status.setError("Cannot read airports after " + (status.getSaved() + status.getRejected()) + " records: "
+                + e.getMessage());
+        return Response.status(Response.Status.BAD_REQUEST).entity(status).build();
+    }
+
+    private void saveImport(List<Airport> batch, ImportStatus status) {
+        if (batch.isEmpty()) return;
+        airportDao.saveAirports(batch);
+        status.setSaved(status.getSaved() + batch.size());
+        batch.clear();
+    }
+
+    /**
+     * Validate and convert the airport parameters
+     *
+     * @return the airport or null if the parameters are wrong
+     */
+    private Airport parseAirport(String iata, String latString, String longString) {
         if (iata == null || iata.length() != 3 || latString == null || longString == null) {
             LOGGER.log(Level.SEVERE, "Bad parameters: iata = " + iata + ", latString = " + latString + ", longString = " + longString);
-            return Response.status(Response.Status.BAD_REQUEST).build();
+            return null;
         }
 
         Double latitude;
@@ -91,22 +258,20 @@ public class RestWeatherCollectorEndpoint implements WeatherCollectorEndpoint {
             longitude = Double.valueOf(longString);
         } catch (NumberFormatException ex) {
             LOGGER.severe("Wrong airport coordinates latString = " + latString + ", longString = " + longString);
-            return Response.status(Response.Status.BAD_REQUEST).build();
+            return null;
         }
 
-        if (latitude < -90 || latitude > 90 || longitude < -180 || longitude > 180) {
+        if (!isValid(iata, latitude, longitude)) {
             LOGGER.severe("Wrong airport coordinates latString = " + latString + ", longString = " + longString);
-            return Response.status(Response.Status.BAD_REQUEST).build();
+            return null;
         }
 
-        Airport ad = new Airport();
-        ad.setIata(iata);
-        ad.setLatitude(latitude);
-        ad.setLongitude(longitude);
-
-        airportDao.saveAirport(ad);
+        return new Airport(iata, latitude, longitude);
+    }
 
-        return Response.status(Response.Status.OK).build();
+    private boolean isValid(String iata, double latitude, double longitude) {
+        return iata != null && iata.length() == 3
+                && latitude >= -90 && latitude <= 90 && longitude >= -180 && longitude <= 180;
     }
 
     @Override
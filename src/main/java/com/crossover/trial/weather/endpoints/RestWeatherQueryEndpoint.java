@@ -1,19 +1,29 @@
 package com.crossover.trial.weather.endpoints;
 
 import com.crossover.trial.weather.models.Atmosphereinfo;
+import com.crossover.trial.weather.models.DataPointType;
 import com.crossover.trial.weather.models.RequestFrequencyData;
+import com.crossover.trial.weather.models.Resolution;
 import com.crossover.trial.weather.services.AirportDao;
+import com.crossover.trial.weather.services.HistoryDao;
 import com.crossover.trial.weather.services.PerformanceDao;
+import com.crossover.trial.weather.services.RollupDao;
+import com.crossover.trial.weather.utils.JsonCodec;
+import com.crossover.trial.weather.utils.LatencyMetrics;
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
-import javax.annotation.Resource;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Predicate;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -26,14 +36,31 @@ public class RestWeatherQueryEndpoint implements WeatherQueryEndpoint {
 
     private final static Logger LOGGER = Logger.getLogger(RestWeatherQueryEndpoint.class.getName());
 
-    @Resource
+    private static final String SORT_DISTANCE = "distance";
+
+    @Autowired
     private AirportDao airportDao;
-    @Resource
+    @Autowired
     private PerformanceDao performanceDao;
+    @Autowired
+    private JsonCodec jsonCodec;
+    @Autowired
+    private LatencyMetrics latencyMetrics;
+    @Autowired
+    private HistoryDao historyDao;
+    @Autowired
+    private RollupDao rollupDao;
+
+    /**
+     * the json of the latest snapshot of the performance data
+     */
+    private volatile Ping ping = new Ping(null, "");
 
     @Override
     public String ping() {
-        RequestFrequencyData data = performanceDao.getPerformanceData();
+        RequestFrequencyData data = performanceDao.getPerformanceSnapshot();
+        Ping cached = ping;
+        if (cached.data == data) return cached.json;
 
         Map<String, Object> result = new HashMap<>();
         result.put("datasize", data.getDataSize());
@@ -41,7 +68,9 @@ public class RestWeatherQueryEndpoint implements WeatherQueryEndpoint {
         result.put("radius_freq", data.getRadiusFrequency());
 
         try {
-            return new ObjectMapper().writeValueAsString(result);
+            String json = jsonCodec.writePing(result);
+            ping = new Ping(data, json);
+            return json;
         } catch (JsonProcessingException e) {
             LOGGER.log(Level.SEVERE, "Cannot serialize performance data", e);
             return "";
@@ -69,4 +98,191 @@ public class RestWeatherQueryEndpoint implements WeatherQueryEndpoint {
         return Response.status(Response.Status.OK).entity(result).build();
     }
 
+    @Override
+    public Response weatherLines(String iata, String radiusString) {
+        double radius = radiusString == null || radiusString.trim().isEmpty() ? 0 : Math.max(0, Double.valueOf(radiusString));
+        performanceDao.updateRequestFrequency(iata, radius);
+
+        if (iata == null) return Response.status(Response.Status.BAD_REQUEST).entity("").build();
+
+        StreamingOutput body = out -> {
+            try (JsonCodec.AtmosphereLines lines = jsonCodec.writeAtmosphereLines(out)) {
+                if (radius == 0) {
+                    Atmosphereinfo ai = airportDao.findAtmosphericInformation(iata);
+                    if (ai != null) lines.write(ai);
+                } else {
+                    airportDao.forEachAtmosphericInformationNearbyAirport(iata, radius, ai -> {
+                        try {
+                            lines.write(ai);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+                }
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+        return Response.status(Response.Status.OK).entity(body).build();
+    }
+
+    @Override
+    public Response nearby(String iata, String radiusString, String limitString, String sort) {
+        double radius;
+        int limit;
+        try {
+            radius = radiusString == null || radiusString.trim().isEmpty() ? 0 : Math.max(0, Double.valueOf(radiusString));
+            limit = limitString == null || limitString.trim().isEmpty() ? 0 : Integer.parseInt(limitString.trim());
+        } catch (NumberFormatException ex) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(Collections.emptyList()).build();
+        }
+        performanceDao.updateRequestFrequency(iata, radius);
+
+        if (iata == null || limit < 0 || sort != null && !SORT_DISTANCE.equalsIgnoreCase(sort.trim())) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(Collections.emptyList()).build();
+        }
+
+        return Response.status(Response.Status.OK)
+                .entity(airportDao.findNearestAtmosphericInformation(iata, radius, limit)).build();
+    }
+
+    @Override
+    public Response near(String latString, String longString, String radiusString, String limitString) {
+        double latitude = parseCoordinate(latString);
+        double longitude = parseCoordinate(longString);
+        double radius;
+        int limit;
+        try {
+            radius = radiusString == null || radiusString.trim().isEmpty() ? 0 : Math.max(0, Double.valueOf(radiusString));
+            limit = limitString == null || limitString.trim().isEmpty() ? 0 : Integer.parseInt(limitString.trim());
+        } catch (NumberFormatException ex) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(Collections.emptyList()).build();
+        }
+        if (!(latitude >= -90 && latitude <= 90) || Double.isNaN(longitude) || limit < 0) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(Collections.emptyList()).build();
+        }
+
+        return Response.status(Response.Status.OK)
+                .entity(airportDao.findAtmosphericInformationNear(latitude, longitude, radius, limit)).build();
+    }
+
+    @Override
+    public Response bbox(String minLatString, String minLongString, String maxLatString, String maxLongString,
+                         String limitString) {
+        double minLatitude = parseCoordinate(minLatString);
+        double minLongitude = parseCoordinate(minLongString);
+        double maxLatitude = parseCoordinate(maxLatString);
+        double maxLongitude = parseCoordinate(maxLongString);
+        int limit;
+        try {
+            limit = limitString == null || limitString.trim().isEmpty() ? 0 : Integer.parseInt(limitString.trim());
+        } catch (NumberFormatException ex) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(Collections.emptyList()).build();
+        }
+        if (!(minLatitude >= -90 && minLatitude <= maxLatitude && maxLatitude <= 90)
+                || Double.isNaN(minLongitude) || Double.isNaN(maxLongitude) || limit < 0) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(Collections.emptyList()).build();
+        }
+
+        return Response.status(Response.Status.OK).entity(airportDao.findAtmosphericInformationInBox(
+                minLatitude, minLongitude, maxLatitude, maxLongitude, limit)).build();
+    }
+
+    @Override
+    public Response nearest(String iata, String kString, String pointType, String maxAge) {
+        DataPointType type = pointType == null ? null : DataPointType.fromName(pointType);
+        int k;
+        Long age = null;
+        try {
+            k = kString == null ? 0 : Integer.parseInt(kString.trim());
+            if (maxAge != null && !maxAge.trim().isEmpty()) age = Long.parseLong(maxAge.trim());
+        } catch (NumberFormatException ex) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(Collections.emptyList()).build();
+        }
+        if (iata == null || k <= 0 || pointType != null && type == null || age != null && age < 0) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(Collections.emptyList()).build();
+        }
+
+        Predicate<Atmosphereinfo> filter = null;
+        if (type != null) {
+            filter = ai -> ai.getDataPoint(type) != null;
+        }
+        if (age != null) {
+            long since = System.currentTimeMillis() - age;
+            Predicate<Atmosphereinfo> fresh = ai -> ai.getLastUpdateTime() >= since;
+            filter = filter == null ? fresh : filter.and(fresh);
+        }
+
+        return Response.status(Response.Status.OK).entity(airportDao.findKNearest(iata, k, filter)).build();
+    }
+
+    @Override
+    public Response metrics() {
+        return Response.status(Response.Status.OK).entity(latencyMetrics.getLatencyData()).build();
+    }
+
+    @Override
+    public Response cache() {
+        return Response.status(Response.Status.OK).entity(airportDao.getNearbyCacheStats()).build();
+    }
+
+    @Override
+    public Response history(String iata, String pointType, String fromString, String toString) {
+        DataPointType type = DataPointType.fromName(pointType);
+        if (iata == null || type == null) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(Collections.emptyList()).build();
+        }
+
+        long from;
+        long to;
+        try {
+            from = fromString == null || fromString.trim().isEmpty() ? 0 : Long.parseLong(fromString.trim());
+            to = toString == null || toString.trim().isEmpty() ? Long.MAX_VALUE : Long.parseLong(toString.trim());
+        } catch (NumberFormatException ex) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(Collections.emptyList()).build();
+        }
+
+        return Response.status(Response.Status.OK).entity(historyDao.findHistory(iata, type, from, to)).build();
+    }
+
+    @Override
+    public Response rollup(String iata, String pointType, String resolution) {
+        DataPointType type = DataPointType.fromName(pointType);
+        Resolution width = Resolution.fromName(resolution);
+        if (iata == null || type == null || width == null) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(Collections.emptyList()).build();
+        }
+
+        return Response.status(Response.Status.OK).entity(rollupDao.findRollup(iata, type, width)).build();
+    }
+
+    /**
+     * @return the coordinate in degrees, NaN if it's missing, malformed or infinite
+     */
+    private static double parseCoordinate(String value) {
+        if (value == null) return Double.NaN;
+        try {
+            double result = Double.parseDouble(value.trim());
+            return Double.isInfinite(result) ? Double.NaN : result;
+        } catch (NumberFormatException ex) {
+            return Double.NaN;
+        }
+    }
+
+    /**
+     * A snapshot of the performance data with its json, replaced together
+     */
+    private static final class Ping {
+
+        private final RequestFrequencyData data;
+
+        private final String json;
+
+        private Ping(RequestFrequencyData data, String json) {
+            this.data = data;
+            this.json = json;
+        }
+
+    }
+
 }
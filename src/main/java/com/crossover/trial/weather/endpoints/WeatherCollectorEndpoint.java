@@ -4,9 +4,13 @@ import static com.crossover.trial.weather.utils.Paths.*;
 import javax.ws.rs.*;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import java.io.InputStream;
 
 import com.crossover.trial.weather.models.Airport;
 import com.crossover.trial.weather.models.DataPointType;
+import com.crossover.trial.weather.models.ImportStatus;
+import com.crossover.trial.weather.models.ReadingStatus;
+import com.crossover.trial.weather.models.WeatherReading;
 
 /**
  * The interface shared to airport weather collection systems.
@@ -40,6 +44,19 @@ public interface WeatherCollectorEndpoint {
                            @PathParam(POINT_TYPE) String pointType,
                            String datapointJson);
 
+    /**
+     * Update the atmospheric information of many airports in one request. The readings are grouped by airport and
+     * every airport is updated once. A later reading of the same airport and point type wins.
+     *
+     * @param readings a json list or a newline delimited stream of {@link WeatherReading}
+     * @return HTTP Response code and a json list of {@link ReadingStatus}, one for each reading in the request order
+     */
+    @POST
+    @Path(WEATHER + BATCH)
+    @Consumes({MediaType.APPLICATION_JSON, APPLICATION_NDJSON})
+    @Produces(MediaType.APPLICATION_JSON)
+    Response updateWeatherBatch(InputStream readings);
+
     /**
      * Return a list of known airports as a json formatted list
      *
@@ -76,6 +93,35 @@ public interface WeatherCollectorEndpoint {
                         @PathParam(LAT) String latString,
                         @PathParam(LONG) String longString);
 
+    /**
+     * Add many airports to the known airport list. Every CSV record has the iata, latitude and longitude columns,
+     * records that are not valid airports are skipped. The airports are saved in batches while the request is read,
+     * a malformed request stops the import with the batches saved so far.
+     *
+     * @param airports a stream of CSV records
+     * @return HTTP Response code and a json representation of {@link ImportStatus}, with the error and the number of
+     * the airports that were saved anyway if the request is malformed
+     */
+    @POST
+    @Path(AIRPORTS)
+    @Consumes(TEXT_CSV)
+    @Produces(MediaType.APPLICATION_JSON)
+    Response addAirportsCsv(InputStream airports);
+
+    /**
+     * Add many airports to the known airport list. Entries that are not valid airports are skipped. The airports are
+     * saved in batches while the request is read, a malformed request stops the import with the batches saved so far.
+     *
+     * @param airports a json list of {@link Airport}
+     * @return HTTP Response code and a json representation of {@link ImportStatus}, with the error and the number of
+     * the airports that were saved anyway if the request is malformed
+     */
+    @POST
+    @Path(AIRPORTS)
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    Response addAirportsJson(InputStream airports);
+
     /**
      * Remove an airport from the known airport list
      *
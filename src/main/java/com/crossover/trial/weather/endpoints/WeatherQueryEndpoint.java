@@ -5,10 +5,15 @@ import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 
 import com.crossover.trial.weather.models.Atmosphereinfo;
+import com.crossover.trial.weather.models.CacheStats;
+import com.crossover.trial.weather.models.LatencyData;
+import com.crossover.trial.weather.models.NearbyAtmosphere;
+import com.crossover.trial.weather.models.TimedDataPoint;
 
 /**
  * The query only API for the Weather Server App. This API is made available to the public internet.
@@ -55,4 +60,141 @@ public interface WeatherQueryEndpoint {
     @Produces(MediaType.APPLICATION_JSON)
     Response weather(@PathParam(IATA) String iata, @PathParam(RADIUS) String radiusString);
 
+    /**
+     * Stream the atmospheric information from the given airport and other airports in the given radius as
+     * newline delimited json, chosen by clients accepting {@value com.crossover.trial.weather.utils.Paths#APPLICATION_NDJSON}.
+     * Every airport is written as the spatial search finds it, so large radiuses don't collect the whole result.
+     *
+     * @param iata         the three letter airport code
+     * @param radiusString the radius, in km, from which to collect weather data
+     * @return an HTTP Response and a chunked body of one {@link Atmosphereinfo} per line
+     */
+    @GET
+    @Path(WEATHER+"/{"+IATA+"}/{"+RADIUS+"}")
+    @Produces(APPLICATION_NDJSON + ";qs=0.5")
+    Response weatherLines(@PathParam(IATA) String iata, @PathParam(RADIUS) String radiusString);
+
+    /**
+     * Retrieve the most up to date atmospheric information of the airports nearest to the given airport, within the
+     * given radius, with the airport each one belongs to and its distance.
+     *
+     * @param iata         the three letter airport code
+     * @param radiusString the radius, in km, from which to collect weather data
+     * @param limitString  the most airports to return, all of them if it's missing
+     * @param sort         the order of the airports, only distance is supported and it's the default
+     * @return an HTTP Response and a list of {@link NearbyAtmosphere} from the nearest to the farthest
+     */
+    @GET
+    @Path(NEARBY+"/{"+IATA+"}/{"+RADIUS+"}")
+    @Produces(MediaType.APPLICATION_JSON)
+    Response nearby(@PathParam(IATA) String iata, @PathParam(RADIUS) String radiusString,
+                    @QueryParam(LIMIT) String limitString, @QueryParam(SORT) String sort);
+
+    /**
+     * Retrieve the most up to date atmospheric information of the airports nearest to the given point, within the
+     * given radius, with the airport each one belongs to and its distance to the point.
+     *
+     * @param latString    the latitude of the point in degrees, from -90 to 90
+     * @param longString   the longitude of the point in degrees
+     * @param radiusString the radius, in km, from which to collect weather data
+     * @param limitString  the most airports to return, all of them if it's missing
+     * @return an HTTP Response and a list of {@link NearbyAtmosphere} from the nearest to the farthest
+     */
+    @GET
+    @Path(WEATHER+NEAR+"/{"+LATITUDE+"}/{"+LONGITUDE+"}/{"+RADIUS+"}")
+    @Produces(MediaType.APPLICATION_JSON)
+    Response near(@PathParam(LATITUDE) String latString, @PathParam(LONGITUDE) String longString,
+                  @PathParam(RADIUS) String radiusString, @QueryParam(LIMIT) String limitString);
+
+    /**
+     * Retrieve the most up to date atmospheric information of the airports within a latitude/longitude box, with the
+     * airport each one belongs to and its distance to the centre of the box. The box crosses the antimeridian if
+     * its minimal longitude is above the maximal one.
+     *
+     * @param minLatString  the southern edge in degrees
+     * @param minLongString the western edge in degrees
+     * @param maxLatString  the northern edge in degrees, not below the southern one
+     * @param maxLongString the eastern edge in degrees
+     * @param limitString   the most airports to return, all of them if it's missing
+     * @return an HTTP Response and a list of {@link NearbyAtmosphere} from the nearest to the centre to the farthest
+     */
+    @GET
+    @Path(WEATHER+BBOX+"/{"+MIN_LATITUDE+"}/{"+MIN_LONGITUDE+"}/{"+MAX_LATITUDE+"}/{"+MAX_LONGITUDE+"}")
+    @Produces(MediaType.APPLICATION_JSON)
+    Response bbox(@PathParam(MIN_LATITUDE) String minLatString, @PathParam(MIN_LONGITUDE) String minLongString,
+                  @PathParam(MAX_LATITUDE) String maxLatString, @PathParam(MAX_LONGITUDE) String maxLongString,
+                  @QueryParam(LIMIT) String limitString);
+
+    /**
+     * Retrieve the k other airports nearest to the given airport with atmospheric information, however far they are,
+     * with their distances and most up to date atmospheric information.
+     *
+     * @param iata      the three letter airport code
+     * @param kString   the number of airports
+     * @param pointType only airports with a data point of this type, {@link com.crossover.trial.weather.models.DataPointType}
+     *                  for a complete list, optional
+     * @param maxAge    only airports updated in the last maxAge milliseconds, not negative, optional
+     * @return an HTTP Response and a list of {@link NearbyAtmosphere} from the nearest to the farthest
+     */
+    @GET
+    @Path(NEAREST+"/{"+IATA+"}/{"+K+"}")
+    @Produces(MediaType.APPLICATION_JSON)
+    Response nearest(@PathParam(IATA) String iata, @PathParam(K) String kString,
+                     @QueryParam(POINT_TYPE) String pointType, @QueryParam(MAX_AGE) String maxAge);
+
+    /**
+     * Retrieve the latency percentiles of the endpoint methods since the start of the server.
+     *
+     * @return an HTTP Response and a json dict of {@link LatencyData} by class and method name, the latencies are in
+     * microseconds
+     */
+    @GET
+    @Path(METRICS)
+    @Produces(MediaType.APPLICATION_JSON)
+    Response metrics();
+
+    /**
+     * Retrieve the counters of the cache of the weather queries with a radius.
+     *
+     * @return an HTTP Response and a json {@link CacheStats}
+     */
+    @GET
+    @Path(CACHE)
+    @Produces(MediaType.APPLICATION_JSON)
+    Response cache();
+
+    /**
+     * Retrieve the recent history of one point type of an airport, as it's been collected by this server.
+     *
+     * @param iata       the three letter airport code
+     * @param pointType  the point type, {@link com.crossover.trial.weather.models.DataPointType} for a complete list
+     * @param fromString the earliest time in milliseconds since UTC epoch, inclusive, the start of the history if
+     *                   it's empty
+     * @param toString   the latest time in milliseconds since UTC epoch, inclusive, the end of the history if it's
+     *                   empty
+     * @return an HTTP Response and a list of {@link TimedDataPoint} from the oldest to the newest
+     */
+    @GET
+    @Path(HISTORY+"/{"+IATA+"}/{"+POINT_TYPE+"}")
+    @Produces(MediaType.APPLICATION_JSON)
+    Response history(@PathParam(IATA) String iata, @PathParam(POINT_TYPE) String pointType,
+                     @QueryParam(FROM) String fromString, @QueryParam(TO) String toString);
+
+    /**
+     * Retrieve the aggregates of one point type of an airport over the recent time buckets of a resolution, as it's
+     * been collected by this server. An aggregate has the lowest first quartile, the highest third quartile, the
+     * average mean and median and the number of readings of its bucket.
+     *
+     * @param iata       the three letter airport code
+     * @param pointType  the point type, {@link com.crossover.trial.weather.models.DataPointType} for a complete list
+     * @param resolution the bucket width, 1m, 1h or 1d
+     * @return an HTTP Response and a list of {@link TimedDataPoint} with the start times of the buckets, from the
+     * oldest to the newest
+     */
+    @GET
+    @Path(ROLLUP+"/{"+IATA+"}/{"+POINT_TYPE+"}/{"+RESOLUTION+"}")
+    @Produces(MediaType.APPLICATION_JSON)
+    Response rollup(@PathParam(IATA) String iata, @PathParam(POINT_TYPE) String pointType,
+                    @PathParam(RESOLUTION) String resolution);
+
 }
@@ -1,5 +1,9 @@
 package com.crossover.trial.weather.models;
 
+import com.crossover.trial.weather.utils.GeoUtils;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 
 /**
@@ -24,13 +28,22 @@ public class Airport implements Serializable {
      */
     private double longitude;
 
+    /**
+     * position as a unit vector, derived from latitude and longitude to keep trigonometry out of distance checks
+     */
+    private transient double x;
+    private transient double y;
+    private transient double z;
+
     public Airport() {
+        updateUnitVector();
     }
 
     public Airport(String iata, double latitude, double longitude) {
         this.iata = iata;
         this.latitude = latitude;
         this.longitude = longitude;
+        updateUnitVector();
     }
 
     public String getIata() {
@@ -47,6 +60,7 @@ public class Airport implements Serializable {
 
     public void setLatitude(double latitude) {
         this.latitude = latitude;
+        updateUnitVector();
     }
 
     public double getLongitude() {
@@ -55,6 +69,46 @@ public class Airport implements Serializable {
 
     public void setLongitude(double longitude) {
         this.longitude = longitude;
+        updateUnitVector();
+    }
+
+    /**
+     * Squared length of the chord between two airports on the unit sphere. It grows monotonically with the distance,
+     * so comparing it with {@link com.crossover.trial.weather.utils.GeoUtils#squaredChord(double)} is a distance check
+     * without any trigonometry.
+     *
+     * @param other airport
+     * @return squared chord in [0, 4]
+     */
+    public double squaredChordTo(Airport other) {
+        double dx = x - other.x;
+        double dy = y - other.y;
+        double dz = z - other.z;
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    /**
+     * Great-circle distance to another airport.
+     *
+     * @param other airport
+     * @return the distance in KM
+     */
+    public double distanceTo(Airport other) {
+        return GeoUtils.distanceOfSquaredChord(squaredChordTo(other));
+    }
+
+    private void updateUnitVector() {
+        double lat = Math.toRadians(latitude);
+        double lon = Math.toRadians(longitude);
+        double cosLat = Math.cos(lat);
+        x = cosLat * Math.cos(lon);
+        y = cosLat * Math.sin(lon);
+        z = Math.sin(lat);
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        updateUnitVector();
     }
 
     @Override
@@ -1,127 +1,148 @@
 package com.crossover.trial.weather.models;
 
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
 import java.io.Serializable;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * encapsulates sensor information for a particular location
+ * <p>
+ * Every {@link DataPointType} has its own atomic slot, so concurrent updates of different point types never
+ * conflict and the record can be updated in place.
  */
+@JsonPropertyOrder({"temperature", "wind", "humidity", "precipitation", "pressure", "cloudCover", "lastUpdateTime"})
 public class Atmosphereinfo implements Serializable {
 
     private static final long serialVersionUID = -5317972341273507458L;
 
     /**
-     * temperature in degrees celsius
+     * the latest data point of every type indexed by {@link DataPointType#ordinal()}:
+     * temperature in degrees celsius, wind speed in km/h, humidity in percent, pressure in mmHg,
+     * cloud cover percent from 0 - 100 (integer) and precipitation in cm
      */
-    private DataPoint temperature;
+    private final AtomicReferenceArray<DataPoint> dataPoints = new AtomicReferenceArray<>(DataPointType.values().length);
 
     /**
-     * wind speed in km/h
-     */
-    private DataPoint wind;
-
-    /**
-     * humidity in percent
+     * the last time this data was updated, in milliseconds since UTC epoch
      */
-    private DataPoint humidity;
+    private final AtomicLong lastUpdateTime = new AtomicLong();
 
-    /**
-     * precipitation in cm
-     */
-    private DataPoint precipitation;
+    public Atmosphereinfo() {
+    }
 
-    /**
-     * pressure in mmHg
-     */
-    private DataPoint pressure;
+    public Atmosphereinfo(DataPoint temperature, DataPoint wind, DataPoint humidity, DataPoint percipitation, DataPoint pressure, DataPoint cloudCover) {
+        setTemperature(temperature);
+        setWind(wind);
+        setHumidity(humidity);
+        setPrecipitation(percipitation);
+        setPressure(pressure);
+        setCloudCover(cloudCover);
+        setLastUpdateTime(System.currentTimeMillis());
+    }
 
     /**
-     * cloud cover percent from 0 - 100 (integer)
+     * Store a data point and move the last update time forward
+     *
+     * @param type the point type
+     * @param dp   the data point
+     * @param time of the update in milliseconds since UTC epoch
+     * @return the last update time before this update
      */
-    private DataPoint cloudCover;
+    public long update(DataPointType type, DataPoint dp, long time) {
+        dataPoints.set(type.ordinal(), dp);
+        return lastUpdateTime.getAndAccumulate(time, Math::max);
+    }
 
     /**
-     * the last time this data was updated, in milliseconds since UTC epoch
+     * Store data points and move the last update time forward
+     *
+     * @param dataPoints the data points by their point type
+     * @param time       of the update in milliseconds since UTC epoch
+     * @return the last update time before this update
      */
-    private long lastUpdateTime;
+    public long update(Map<DataPointType, DataPoint> dataPoints, long time) {
+        for (Map.Entry<DataPointType, DataPoint> e : dataPoints.entrySet()) {
+            this.dataPoints.set(e.getKey().ordinal(), e.getValue());
+        }
+        return lastUpdateTime.getAndAccumulate(time, Math::max);
+    }
 
-    public Atmosphereinfo() {
+    public DataPoint getDataPoint(DataPointType type) {
+        return dataPoints.get(type.ordinal());
     }
 
-    public Atmosphereinfo(DataPoint temperature, DataPoint wind, DataPoint humidity, DataPoint percipitation, DataPoint pressure, DataPoint cloudCover) {
-        this.temperature = temperature;
-        this.wind = wind;
-        this.humidity = humidity;
-        this.precipitation = percipitation;
-        this.pressure = pressure;
-        this.cloudCover = cloudCover;
-        this.lastUpdateTime = System.currentTimeMillis();
+    public void setDataPoint(DataPointType type, DataPoint dp) {
+        dataPoints.set(type.ordinal(), dp);
     }
 
     public DataPoint getTemperature() {
-        return temperature;
+        return getDataPoint(DataPointType.TEMPERATURE);
     }
 
     public void setTemperature(DataPoint temperature) {
-        this.temperature = temperature;
+        setDataPoint(DataPointType.TEMPERATURE, temperature);
     }
 
     public DataPoint getWind() {
-        return wind;
+        return getDataPoint(DataPointType.WIND);
     }
 
     public void setWind(DataPoint wind) {
-        this.wind = wind;
+        setDataPoint(DataPointType.WIND, wind);
     }
 
     public DataPoint getHumidity() {
-        return humidity;
+        return getDataPoint(DataPointType.HUMIDTY);
     }
 
     public void setHumidity(DataPoint humidity) {
-        this.humidity = humidity;
+        setDataPoint(DataPointType.HUMIDTY, humidity);
     }
 
     public DataPoint getPrecipitation() {
-        return precipitation;
+        return getDataPoint(DataPointType.PRECIPITATION);
     }
 
     public void setPrecipitation(DataPoint precipitation) {
-        this.precipitation = precipitation;
+        setDataPoint(DataPointType.PRECIPITATION, precipitation);
     }
 
     public DataPoint getPressure() {
-        return pressure;
+        return getDataPoint(DataPointType.PRESSURE);
     }
 
     public void setPressure(DataPoint pressure) {
-        this.pressure = pressure;
+        setDataPoint(DataPointType.PRESSURE, pressure);
     }
 
     public DataPoint getCloudCover() {
-        return cloudCover;
+        return getDataPoint(DataPointType.CLOUDCOVER);
     }
 
     public void setCloudCover(DataPoint cloudCover) {
-        this.cloudCover = cloudCover;
+        setDataPoint(DataPointType.CLOUDCOVER, cloudCover);
     }
 
     public long getLastUpdateTime() {
-        return this.lastUpdateTime;
+        return lastUpdateTime.get();
     }
 
     public void setLastUpdateTime(long lastUpdateTime) {
-        this.lastUpdateTime = lastUpdateTime;
+        this.lastUpdateTime.set(lastUpdateTime);
     }
 
     @Override
     public int hashCode() {
-        int result = temperature != null ? temperature.hashCode() : 0;
-        result = 31 * result + (wind != null ? wind.hashCode() : 0);
-        result = 31 * result + (humidity != null ? humidity.hashCode() : 0);
-        result = 31 * result + (precipitation != null ? precipitation.hashCode() : 0);
-        result = 31 * result + (pressure != null ? pressure.hashCode() : 0);
-        result = 31 * result + (cloudCover != null ? cloudCover.hashCode() : 0);
-        result = 31 * result + (int) (lastUpdateTime ^ (lastUpdateTime >>> 32));
+        int result = 0;
+        for (int i = 0; i < dataPoints.length(); i++) {
+            DataPoint dp = dataPoints.get(i);
+            result = 31 * result + (dp != null ? dp.hashCode() : 0);
+        }
+        long time = getLastUpdateTime();
+        result = 31 * result + (int) (time ^ (time >>> 32));
         return result;
     }
 
@@ -132,27 +153,24 @@ public class Atmosphereinfo implements Serializable {
 
         Atmosphereinfo that = (Atmosphereinfo) o;
 
-        if (lastUpdateTime != that.lastUpdateTime) return false;
-        if (temperature != null ? !temperature.equals(that.temperature) : that.temperature != null) return false;
-        if (wind != null ? !wind.equals(that.wind) : that.wind != null) return false;
-        if (humidity != null ? !humidity.equals(that.humidity) : that.humidity != null) return false;
-        if (precipitation != null ? !precipitation.equals(that.precipitation) : that.precipitation != null)
-            return false;
-        if (pressure != null ? !pressure.equals(that.pressure) : that.pressure != null) return false;
-        return cloudCover != null ? cloudCover.equals(that.cloudCover) : that.cloudCover == null;
-
+        if (getLastUpdateTime() != that.getLastUpdateTime()) return false;
+        for (int i = 0; i < dataPoints.length(); i++) {
+            DataPoint dp = dataPoints.get(i);
+            if (dp != null ? !dp.equals(that.dataPoints.get(i)) : that.dataPoints.get(i) != null) return false;
+        }
+        return true;
     }
 
     @Override
     public String toString() {
         return "AtmosphericInformation{" +
-                "temperature=" + temperature +
-                ", wind=" + wind +
-                ", humidity=" + humidity +
-                ", precipitation=" + precipitation +
-                ", pressure=" + pressure +
-                ", cloudCover=" + cloudCover +
-                ", lastUpdateTime=" + lastUpdateTime +
+                "temperature=" + getTemperature() +
+                ", wind=" + getWind() +
+                ", humidity=" + getHumidity() +
+                ", precipitation=" + getPrecipitation() +
+                ", pressure=" + getPressure() +
+                ", cloudCover=" + getCloudCover() +
+                ", lastUpdateTime=" + getLastUpdateTime() +
                 '}';
     }
 
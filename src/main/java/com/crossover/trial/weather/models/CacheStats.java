@@ -0,0 +1,110 @@
+package com.crossover.trial.weather.models;
+
+/**
+ * Counters of a query-result cache since the start of the server.
+ */
+public class CacheStats {
+
+    /**
+     * the most entries kept, 0 if the cache is disabled
+     */
+    private int capacity;
+
+    /**
+     * entries kept now
+     */
+    private int size;
+
+    /**
+     * queries answered from the cache
+     */
+    private long hits;
+
+    /**
+     * queries answered from the storage
+     */
+    private long misses;
+
+    /**
+     * entries dropped to keep the cache within its capacity
+     */
+    private long evictions;
+
+    /**
+     * entries dropped because a change of the data made them stale
+     */
+    private long invalidations;
+
+    public CacheStats() {
+    }
+
+    public CacheStats(int capacity, int size, long hits, long misses, long evictions, long invalidations) {
+        this.capacity = capacity;
+        this.size = size;
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.invalidations = invalidations;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public void setCapacity(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public void setSize(int size) {
+        this.size = size;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public void setHits(long hits) {
+        this.hits = hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public void setMisses(long misses) {
+        this.misses = misses;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    public void setEvictions(long evictions) {
+        this.evictions = evictions;
+    }
+
+    public long getInvalidations() {
+        return invalidations;
+    }
+
+    public void setInvalidations(long invalidations) {
+        this.invalidations = invalidations;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStats{" +
+                "capacity=" + capacity +
+                ", size=" + size +
+                ", hits=" + hits +
+                ", misses=" + misses +
+                ", evictions=" + evictions +
+                ", invalidations=" + invalidations +
+                '}';
+    }
+
+}
@@ -4,10 +4,50 @@ package com.crossover.trial.weather.models;
  * The various types of data points we can collect.
  */
 public enum DataPointType {
-    WIND,
-    TEMPERATURE,
-    HUMIDTY,
-    PRESSURE,
-    CLOUDCOVER,
-    PRECIPITATION
+    WIND(0, Double.POSITIVE_INFINITY),
+    TEMPERATURE(-50, 100),
+    HUMIDTY(0, 100),
+    PRESSURE(650, 800),
+    CLOUDCOVER(0, 100),
+    PRECIPITATION(0, 100);
+
+    /**
+     * lowest accepted mean, inclusive
+     */
+    private final double min;
+
+    /**
+     * highest accepted mean, exclusive
+     */
+    private final double max;
+
+    DataPointType(double min, double max) {
+        this.min = min;
+        this.max = max;
+    }
+
+    /**
+     * Check that the mean of the data point is in the range of this type
+     *
+     * @param dp the data point
+     * @return true if the data point can be stored
+     */
+    public boolean isValid(DataPoint dp) {
+        return dp.getMean() >= min && dp.getMean() < max;
+    }
+
+    /**
+     * Case insensitive lookup of a point type
+     *
+     * @param name of the point type
+     * @return the point type or null if not found
+     */
+    public static DataPointType fromName(String name) {
+        for (DataPointType type : values()) {
+            if (type.name().equalsIgnoreCase(name)) {
+                return type;
+            }
+        }
+        return null;
+    }
 }
@@ -0,0 +1,64 @@
+package com.crossover.trial.weather.models;
+
+/**
+ * Outcome of a bulk airport import.
+ */
+public class ImportStatus {
+
+    /**
+     * number of saved airports
+     */
+    private int saved;
+
+    /**
+     * number of records that were not valid airports
+     */
+    private int rejected;
+
+    /**
+     * why the import stopped before the end of the request, null if all of it was read
+     */
+    private String error;
+
+    public ImportStatus() {
+    }
+
+    public ImportStatus(int saved, int rejected) {
+        this.saved = saved;
+        this.rejected = rejected;
+    }
+
+    public int getSaved() {
+        return saved;
+    }
+
+    public void setSaved(int saved) {
+        this.saved = saved;
+    }
+
+    public int getRejected() {
+        return rejected;
+    }
+
+    public void setRejected(int rejected) {
+        this.rejected = rejected;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    @Override
+    public String toString() {
+        return "ImportStatus{" +
+                "saved=" + saved +
+                ", rejected=" + rejected +
+                ", error='" + error + '\'' +
+                '}';
+    }
+
+}
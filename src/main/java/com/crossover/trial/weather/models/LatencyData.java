@@ -0,0 +1,83 @@
+package com.crossover.trial.weather.models;
+
+/**
+ * Latency percentiles of one endpoint method, in microseconds.
+ */
+public class LatencyData {
+
+    /**
+     * number of calls
+     */
+    private long count;
+
+    private long p50;
+
+    private long p99;
+
+    private long p999;
+
+    private long max;
+
+    public LatencyData() {
+    }
+
+    public LatencyData(long count, long p50, long p99, long p999, long max) {
+        this.count = count;
+        this.p50 = p50;
+        this.p99 = p99;
+        this.p999 = p999;
+        this.max = max;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    public long getP50() {
+        return p50;
+    }
+
+    public void setP50(long p50) {
+        this.p50 = p50;
+    }
+
+    public long getP99() {
+        return p99;
+    }
+
+    public void setP99(long p99) {
+        this.p99 = p99;
+    }
+
+    public long getP999() {
+        return p999;
+    }
+
+    public void setP999(long p999) {
+        this.p999 = p999;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    public void setMax(long max) {
+        this.max = max;
+    }
+
+    @Override
+    public String toString() {
+        return "LatencyData{" +
+                "count=" + count +
+                ", p50=" + p50 +
+                ", p99=" + p99 +
+                ", p999=" + p999 +
+                ", max=" + max +
+                '}';
+    }
+
+}
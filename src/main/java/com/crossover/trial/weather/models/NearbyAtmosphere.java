@@ -0,0 +1,66 @@
+package com.crossover.trial.weather.models;
+
+/**
+ * The atmospheric information of an airport found by a radius query, with the airport it belongs to and its distance
+ * from the centre of the query.
+ */
+public class NearbyAtmosphere {
+
+    /**
+     * the three letter IATA code
+     */
+    private String iata;
+
+    /**
+     * great-circle distance from the centre of the query in KM
+     */
+    private double distanceKm;
+
+    /**
+     * the atmospheric information of the airport
+     */
+    private Atmosphereinfo atmosphere;
+
+    public NearbyAtmosphere() {
+    }
+
+    public NearbyAtmosphere(String iata, double distanceKm, Atmosphereinfo atmosphere) {
+        this.iata = iata;
+        this.distanceKm = distanceKm;
+        this.atmosphere = atmosphere;
+    }
+
+    public String getIata() {
+        return iata;
+    }
+
+    public void setIata(String iata) {
+        this.iata = iata;
+    }
+
+    public double getDistanceKm() {
+        return distanceKm;
+    }
+
+    public void setDistanceKm(double distanceKm) {
+        this.distanceKm = distanceKm;
+    }
+
+    public Atmosphereinfo getAtmosphere() {
+        return atmosphere;
+    }
+
+    public void setAtmosphere(Atmosphereinfo atmosphere) {
+        this.atmosphere = atmosphere;
+    }
+
+    @Override
+    public String toString() {
+        return "NearbyAtmosphere{" +
+                "iata='" + iata + '\'' +
+                ", distanceKm=" + distanceKm +
+                ", atmosphere=" + atmosphere +
+                '}';
+    }
+
+}
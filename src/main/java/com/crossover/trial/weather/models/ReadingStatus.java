@@ -0,0 +1,83 @@
+package com.crossover.trial.weather.models;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Outcome of a single {@link WeatherReading} of a batch update.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ReadingStatus {
+
+    /**
+     * the three letter IATA code of the reading
+     */
+    private String iata;
+
+    /**
+     * the point type of the reading
+     */
+    private String pointType;
+
+    /**
+     * HTTP status code of the reading
+     */
+    private int status;
+
+    /**
+     * reason of a failure
+     */
+    private String message;
+
+    public ReadingStatus() {
+    }
+
+    public ReadingStatus(String iata, String pointType, int status, String message) {
+        this.iata = iata;
+        this.pointType = pointType;
+        this.status = status;
+        this.message = message;
+    }
+
+    public String getIata() {
+        return iata;
+    }
+
+    public void setIata(String iata) {
+        this.iata = iata;
+    }
+
+    public String getPointType() {
+        return pointType;
+    }
+
+    public void setPointType(String pointType) {
+        this.pointType = pointType;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public void setStatus(int status) {
+        this.status = status;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    @Override
+    public String toString() {
+        return "ReadingStatus{" +
+                "iata='" + iata + '\'' +
+                ", pointType='" + pointType + '\'' +
+                ", status=" + status +
+                ", message='" + message + '\'' +
+                '}';
+    }
+
+}
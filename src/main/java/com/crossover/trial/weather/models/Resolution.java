@@ -0,0 +1,50 @@
+package com.crossover.trial.weather.models;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The bucket widths of the rollups of the data points.
+ */
+public enum Resolution {
+    MINUTE("1m", TimeUnit.MINUTES.toMillis(1)),
+    HOUR("1h", TimeUnit.HOURS.toMillis(1)),
+    DAY("1d", TimeUnit.DAYS.toMillis(1));
+
+    /**
+     * short name of the resolution
+     */
+    private final String shortName;
+
+    /**
+     * bucket width in milliseconds
+     */
+    private final long millis;
+
+    Resolution(String shortName, long millis) {
+        this.shortName = shortName;
+        this.millis = millis;
+    }
+
+    public String getShortName() {
+        return shortName;
+    }
+
+    public long getMillis() {
+        return millis;
+    }
+
+    /**
+     * Case insensitive lookup of a resolution by its name or its short name
+     *
+     * @param name of the resolution, as "hour" or "1h"
+     * @return the resolution or null if not found
+     */
+    public static Resolution fromName(String name) {
+        for (Resolution resolution : values()) {
+            if (resolution.name().equalsIgnoreCase(name) || resolution.shortName.equalsIgnoreCase(name)) {
+                return resolution;
+            }
+        }
+        return null;
+    }
+}
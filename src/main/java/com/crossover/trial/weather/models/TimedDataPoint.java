@@ -0,0 +1,50 @@
+package com.crossover.trial.weather.models;
+
+/**
+ * A data point of the history of an airport with the time it was collected at.
+ */
+public class TimedDataPoint {
+
+    /**
+     * time of the update in milliseconds since UTC epoch
+     */
+    private long time;
+
+    /**
+     * the collected data point
+     */
+    private DataPoint dataPoint;
+
+    public TimedDataPoint() {
+    }
+
+    public TimedDataPoint(long time, DataPoint dataPoint) {
+        this.time = time;
+        this.dataPoint = dataPoint;
+    }
+
+    public long getTime() {
+        return time;
+    }
+
+    public void setTime(long time) {
+        this.time = time;
+    }
+
+    public DataPoint getDataPoint() {
+        return dataPoint;
+    }
+
+    public void setDataPoint(DataPoint dataPoint) {
+        this.dataPoint = dataPoint;
+    }
+
+    @Override
+    public String toString() {
+        return "TimedDataPoint{" +
+                "time=" + time +
+                ", dataPoint=" + dataPoint +
+                '}';
+    }
+
+}
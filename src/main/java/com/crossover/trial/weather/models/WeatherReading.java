@@ -0,0 +1,65 @@
+package com.crossover.trial.weather.models;
+
+/**
+ * A single data point of an airport as it's posted to the batch collector endpoint.
+ */
+public class WeatherReading {
+
+    /**
+     * the three letter IATA code
+     */
+    private String iata;
+
+    /**
+     * the point type, {@link DataPointType} for a complete list
+     */
+    private String pointType;
+
+    /**
+     * the collected data point
+     */
+    private DataPoint dataPoint;
+
+    public WeatherReading() {
+    }
+
+    public WeatherReading(String iata, String pointType, DataPoint dataPoint) {
+        this.iata = iata;
+        this.pointType = pointType;
+        this.dataPoint = dataPoint;
+    }
+
+    public String getIata() {
+        return iata;
+    }
+
+    public void setIata(String iata) {
+        this.iata = iata;
+    }
+
+    public String getPointType() {
+        return pointType;
+    }
+
+    public void setPointType(String pointType) {
+        this.pointType = pointType;
+    }
+
+    public DataPoint getDataPoint() {
+        return dataPoint;
+    }
+
+    public void setDataPoint(DataPoint dataPoint) {
+        this.dataPoint = dataPoint;
+    }
+
+    @Override
+    public String toString() {
+        return "WeatherReading{" +
+                "iata='" + iata + '\'' +
+                ", pointType='" + pointType + '\'' +
+                ", dataPoint=" + dataPoint +
+                '}';
+    }
+
+}
@@ -15,6 +15,11 @@ import java.util.logging.Logger;
  * It's a production level server!
  * <p>
  * Try to start several nodes using: java -jar [-Dmode=production] [-Dport=XXXX] weather-1.1.0.jar
+ * <p>
+ * A single node can keep the atmospheric information off the heap using -Dmode=offheap
+ * <p>
+ * A node can start with the airports of a binary catalog, compiled with mvn -P catalog process-classes, using
+ * -Dweather.catalog=target/airports.bin
  *
  * @see com.crossover.trial.weather.WeatherClusterIntegrationTest
  */
@@ -23,18 +28,31 @@ public class WeatherServer {
     private static final String CONTEXT_LOADER_LISTENER = "org.springframework.web.context.ContextLoaderListener";
     private static final String REQUEST_CONTEXT_LISTENER = "org.springframework.web.context.request.RequestContextListener";
 
-	private static HttpServer server;
+    private HttpServer server;
+    private WebappContext ctx;
 
     private int port = -1;
-    private boolean production = false;
+    private String mode = "test";
 
     public WeatherServer() {}
 
-    public static void main(String[] args) throws InterruptedException {
-        WeatherServer server = new WeatherServer();
+    /**
+     * @param production true to use the clustered Hazelcast storage, false for the simple in-memory storage
+     */
+    public WeatherServer(boolean production) {
+        this.mode = production ? "production" : "test";
+    }
+
+    /**
+     * @param mode production for the clustered Hazelcast storage, offheap for the off-heap storage, anything else for
+     *             the simple in-memory storage
+     */
+    public WeatherServer(String mode) {
+        this.mode = mode == null ? "test" : mode.toLowerCase();
+    }
 
-        String mode = System.getProperty("mode");
-        server.production = (mode != null && mode.equalsIgnoreCase("production"));
+    public static void main(String[] args) throws InterruptedException {
+        WeatherServer server = new WeatherServer(System.getProperty("mode"));
 
         String port = System.getProperty("port");
         if(port != null) {
@@ -51,7 +69,7 @@ public class WeatherServer {
 
     public void start() {
         try {
-            System.out.println("Starting Weather Server" + (production ? " in production mode" : " in test mode"));
+            System.out.println("Starting Weather Server in " + mode + " mode");
 
             server = new HttpServer();
             NetworkListener listener;
@@ -59,8 +77,8 @@ public class WeatherServer {
             else listener = new NetworkListener("grizzly2", "localhost", port);
             server.addListener(listener);
 
-            WebappContext ctx = new WebappContext("ctx", "/");
-            ctx.addContextInitParameter("contextConfigLocation", production ? "classpath:/weatherCastContext.xml" : "classpath:/beansContext.xml");
+            ctx = new WebappContext("ctx", "/");
+            ctx.addContextInitParameter("contextConfigLocation", contextConfigLocation());
             ctx.addListener(CONTEXT_LOADER_LISTENER);
             ctx.addListener(REQUEST_CONTEXT_LISTENER);
 
@@ -81,6 +99,19 @@ public class WeatherServer {
 
     public void stop() {
         server.shutdownNow();
+        // closes the Spring context and with it the node's Hazelcast member
+        ctx.undeploy();
+    }
+
+    private String contextConfigLocation() {
+        switch (mode) {
+            case "production":
+                return "classpath:/weatherCastContext.xml";
+            case "offheap":
+                return "classpath:/offHeapContext.xml";
+            default:
+                return "classpath:/beansContext.xml";
+        }
     }
 
     public int getPort() {
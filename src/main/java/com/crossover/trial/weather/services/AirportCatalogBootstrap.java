@@ -0,0 +1,62 @@
+package com.crossover.trial.weather.services;
+
+import com.crossover.trial.weather.models.Airport;
+import com.crossover.trial.weather.utils.AirportCatalogFile;
+import com.crossover.trial.weather.utils.AirportSnapshot;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * Loads the airports of a binary catalog, compiled by {@link AirportCatalogCompiler}, when the server starts, so a new
+ * node answers queries without waiting for an {@link AirportLoader} run.
+ * <p>
+ * The catalog is given with {@code weather.catalog} and only loaded when the DAO has no airports yet, airports already
+ * recovered from a journal or from the cluster are never replaced. The simple DAO takes the snapshot of the catalog
+ * with its spatial index as it is, the other DAOs save the airports as one batch.
+ */
+@Component
+public class AirportCatalogBootstrap {
+
+    private static final Logger LOGGER = Logger.getLogger(AirportCatalogBootstrap.class.getName());
+
+    @Resource
+    private AirportDao airportDao;
+
+    /**
+     * the catalog file, nothing is loaded if it's empty
+     */
+    @Value("${weather.catalog:}")
+    private String catalog;
+
+    @PostConstruct
+    public void init() throws IOException {
+        if (catalog == null || catalog.trim().isEmpty()) return;
+        if (!airportDao.getAllAirportCodes().isEmpty()) {
+            LOGGER.info("Airports are known already, " + catalog + " is not loaded");
+            return;
+        }
+
+        long start = System.nanoTime();
+        AirportSnapshot snapshot = AirportCatalogFile.read(new File(catalog.trim()));
+        if (airportDao instanceof SimpleAirportDaoImpl) {
+            ((SimpleAirportDaoImpl) airportDao).reload(snapshot);
+        } else {
+            List<Airport> airports = new ArrayList<>(snapshot.size());
+            for (int p = 0; p < snapshot.size(); p++) {
+                airports.add(snapshot.getAirport(p));
+            }
+            airportDao.saveAirports(airports);
+        }
+        LOGGER.info("Loaded " + snapshot.size() + " airports from " + catalog + " in "
+                + (System.nanoTime() - start) / 1000000 + " ms");
+    }
+
+}
@@ -0,0 +1,85 @@
+package com.crossover.trial.weather.services;
+
+import com.crossover.trial.weather.models.Airport;
+import com.crossover.trial.weather.utils.AirportCatalogFile;
+import com.crossover.trial.weather.utils.AirportSnapshot;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVRecord;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Build-time tool compiling an airports file, in the format read by {@link AirportLoader}, into a binary catalog the
+ * server loads at startup with -Dweather.catalog=file_name
+ *
+ * @see AirportCatalogFile
+ */
+public class AirportCatalogCompiler {
+
+    /**
+     * codes fitting the fixed width of the catalog, missing codes are \N or empty in airports.dat
+     */
+    private static final Pattern IATA_CODE = Pattern.compile("[A-Za-z0-9]{1,4}");
+
+    public static void main(String args[]) throws IOException {
+        if (args.length != 2) {
+            System.out.println("USAGE: java com.crossover.trial.weather.services.AirportCatalogCompiler airports_file catalog_file");
+            return;
+        }
+
+        File airportDataFile = new File(args[0]);
+        if (!airportDataFile.exists() || airportDataFile.length() == 0) {
+            System.err.println(airportDataFile + " is not a valid input");
+            System.exit(1);
+        }
+
+        AirportSnapshot snapshot;
+        try (InputStream in = new FileInputStream(airportDataFile)) {
+            snapshot = compile(in);
+        }
+        File catalog = new File(args[1]);
+        File parent = catalog.getAbsoluteFile().getParentFile();
+        if (!parent.isDirectory() && !parent.mkdirs()) {
+            System.err.println("Cannot create " + parent);
+            System.exit(1);
+        }
+        AirportCatalogFile.write(snapshot, catalog);
+        System.out.println("Compiled " + snapshot.size() + " airports to " + catalog);
+    }
+
+    /**
+     * Read the airports with a valid IATA code and coordinates, others are reported and skipped
+     *
+     * @param airportDataStream the airports file
+     * @return a snapshot of the airports
+     */
+    public static AirportSnapshot compile(InputStream airportDataStream) throws IOException {
+        List<Airport> airports = new ArrayList<>();
+        for (CSVRecord record : CSVFormat.DEFAULT.parse(
+                new BufferedReader(new InputStreamReader(airportDataStream, StandardCharsets.UTF_8)))) {
+            try {
+                String iataCode = record.get(4).trim();
+                double latitude = Double.parseDouble(record.get(6));
+                double longitude = Double.parseDouble(record.get(7));
+                if (!IATA_CODE.matcher(iataCode).matches()
+                        || !(latitude >= -90 && latitude <= 90) || !(longitude >= -180 && longitude <= 180)) {
+                    throw new IllegalArgumentException();
+                }
+                airports.add(new Airport(iataCode, latitude, longitude));
+            } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+                System.err.println("Skipped line " + record.getRecordNumber() + ": " + record);
+            }
+        }
+        return AirportSnapshot.of(airports);
+    }
+
+}
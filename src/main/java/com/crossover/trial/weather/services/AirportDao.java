@@ -1,11 +1,18 @@
 package com.crossover.trial.weather.services;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 import java.util.Set;
 
 import com.crossover.trial.weather.models.Airport;
 import com.crossover.trial.weather.models.Atmosphereinfo;
+import com.crossover.trial.weather.models.CacheStats;
 import com.crossover.trial.weather.models.DataPoint;
+import com.crossover.trial.weather.models.NearbyAtmosphere;
+import com.crossover.trial.weather.models.DataPointType;
 
 /**
  * DAO for business objects
@@ -43,6 +50,13 @@ public interface AirportDao {
      */
     void saveAirport(Airport ad);
 
+    /**
+     * Save many airports to the database in one operation. Airports without an IATA code are skipped.
+     *
+     * @param airports collection of AirportData
+     */
+    void saveAirports(Collection<Airport> airports);
+
     /**
      * Delete airport data and it's atmospheric information from the database
      *
@@ -67,6 +81,65 @@ public interface AirportDao {
      */
     List<Atmosphereinfo> findAtmosphericInformationNearbyAirport(String iataCode, double radius);
 
+    /**
+     * Given an iataCode and radius visit the atmospheric information of the airports within the radius as the spatial
+     * search finds them, without collecting them first
+     *
+     * @param iataCode as a string
+     * @param radius   as a double
+     * @param consumer receives the atmospheric information, airports without any are skipped
+     */
+    void forEachAtmosphericInformationNearbyAirport(String iataCode, double radius, Consumer<Atmosphereinfo> consumer);
+
+    /**
+     * Given an iataCode and radius find the nearest airports within the radius that have atmospheric information
+     *
+     * @param iataCode as a string
+     * @param radius   as a double
+     * @param limit    the most airports to return, all of them if it's 0 or less
+     * @return the atmospheric information with the airports and their distances, from the nearest to the farthest
+     */
+    List<NearbyAtmosphere> findNearestAtmosphericInformation(String iataCode, double radius, int limit);
+
+    /**
+     * Given a point and radius find the nearest airports within the radius that have atmospheric information
+     *
+     * @param latitude  of the point in degrees
+     * @param longitude of the point in degrees
+     * @param radius    as a double
+     * @param limit     the most airports to return, all of them if it's 0 or less
+     * @return the atmospheric information with the airports and their distances to the point, from the nearest to
+     * the farthest, empty if the point isn't valid
+     */
+    List<NearbyAtmosphere> findAtmosphericInformationNear(double latitude, double longitude, double radius, int limit);
+
+    /**
+     * Given a latitude/longitude box find the airports within it that have atmospheric information. The box crosses
+     * the antimeridian if its minimal longitude is above the maximal one.
+     *
+     * @param minLatitude  southern edge in degrees
+     * @param minLongitude western edge in degrees
+     * @param maxLatitude  northern edge in degrees
+     * @param maxLongitude eastern edge in degrees
+     * @param limit        the most airports to return, all of them if it's 0 or less
+     * @return the atmospheric information with the airports and their distances to the centre of the box, from the
+     * nearest to the farthest, empty if the box isn't valid
+     */
+    List<NearbyAtmosphere> findAtmosphericInformationInBox(double minLatitude, double minLongitude,
+                                                           double maxLatitude, double maxLongitude, int limit);
+
+    /**
+     * Given an iataCode find the k other airports nearest to it with atmospheric information, whatever their distance.
+     * The airport itself and airports without atmospheric information are never returned.
+     *
+     * @param iataCode as a string
+     * @param k        the number of airports to find
+     * @param filter   accepts the atmospheric information of the airports that may be returned, all airports with
+     *                 atmospheric information are considered if it's null
+     * @return the airports with their distances and atmospheric information, from the nearest to the farthest
+     */
+    List<NearbyAtmosphere> findKNearest(String iataCode, int k, Predicate<Atmosphereinfo> filter);
+
     /**
      * Update atmospheric information with the given data point for the given point type
      *
@@ -76,6 +149,28 @@ public interface AirportDao {
      */
     void updateAtmosphericInformation(String iataCode, String pointType, DataPoint dp);
 
+    /**
+     * Update atmospheric information of an airport with several data points in one operation
+     *
+     * @param iataCode   airport iata code
+     * @param dataPoints the actual data points by their point type
+     */
+    void updateAtmosphericInformation(String iataCode, Map<DataPointType, DataPoint> dataPoints);
+
+    /**
+     * Count the airports whose atmospheric information was updated in the last day
+     *
+     * @return number of recently updated airports
+     */
+    long countRecentAtmosphericInformation();
+
+    /**
+     * Counters of the cache of {@link #findAtmosphericInformationNearbyAirport(String, double)}
+     *
+     * @return the counters, a capacity of 0 if the results aren't cached
+     */
+    CacheStats getNearbyCacheStats();
+
     /**
      * Delete atmospheric information of particular airport from the database
      *
@@ -1,17 +1,36 @@
 package com.crossover.trial.weather.services;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+
 import com.crossover.trial.weather.models.Airport;
 import com.crossover.trial.weather.models.Atmosphereinfo;
+import com.crossover.trial.weather.models.CacheStats;
 import com.crossover.trial.weather.models.DataPoint;
 import com.crossover.trial.weather.models.DataPointType;
+import com.crossover.trial.weather.models.NearbyAtmosphere;
+import com.crossover.trial.weather.utils.AirportSnapshot;
+import com.crossover.trial.weather.utils.ExpiryWheel;
+import com.crossover.trial.weather.utils.GeoUtils;
+import com.crossover.trial.weather.utils.NearestHeap;
+import com.crossover.trial.weather.utils.OrdinalRegistry;
+import com.crossover.trial.weather.utils.Storage;
 
 /**
  * General implementation of the DAO that can be used for any key-value storage.
@@ -29,9 +48,60 @@ public abstract class AirportDaoImpl implements AirportDao {
 
     private static final Logger LOGGER = Logger.getLogger(AirportDaoImpl.class.getName());
 
-    protected abstract Map<String, Airport> getAirportDataStorage();
+    @Resource
+    private OrdinalRegistry ordinalRegistry;
+
+    @Autowired(required = false)
+    private volatile List<AirportDaoListener> listeners = Collections.emptyList();
+
+    private volatile AirportDaoListener journal;
+
+    /**
+     * the most radius queries whose results are cached, 0 disables the cache
+     */
+    @Value("${weather.nearbyCache.size:1024}")
+    private int nearbyCacheSize;
+
+    /**
+     * the most atmospheric information cached for one radius query
+     */
+    @Value("${weather.nearbyCache.maxResults:2048}")
+    private int nearbyCacheMaxResults;
+
+    private NearbyWeatherCache nearbyCache;
+
+    @PostConstruct
+    public void initNearbyCache() {
+        if (nearbyCacheSize <= 0 || !isNearbyCacheable()) return;
+        nearbyCache = new NearbyWeatherCache(this, nearbyCacheSize, nearbyCacheMaxResults);
+        addListener(nearbyCache);
+    }
+
+    /**
+     * The storage of the airports and their atmospheric information. Every operation reads it once, so all its reads
+     * and writes go to the same dataset even if the dataset is replaced meanwhile.
+     * <p>
+     * The airport catalog is a local read-only copy of the airport data that is kept in sync with it, all airport
+     * queries are served from it and the airport data is only written to. The recent updates are kept in sync with
+     * the atmospheric information, they're null if the storage is also changed by others, the DAO then overrides
+     * {@link #countRecentAtmosphericInformation()} to count the storage itself.
+     */
+    protected abstract Storage.Dataset getDataset();
+
+    /**
+     * Ordinals of the known airports, they're registered together with the airport catalog
+     */
+    protected OrdinalRegistry getOrdinalRegistry() {
+        return ordinalRegistry;
+    }
 
-    protected abstract Map<String, Atmosphereinfo> getAtmosphericInformationDataStorage();
+    /**
+     * The results of the radius queries can only be cached when every change of the storage is made through this DAO,
+     * the cache is invalidated by its events
+     */
+    protected boolean isNearbyCacheable() {
+        return true;
+    }
 
     @Override
     public Airport findAirportData(String iataCode) {
@@ -39,7 +109,7 @@ public abstract class AirportDaoImpl implements AirportDao {
             LOGGER.severe("iataCode is null");
             return null;
         }
-        return getAirportDataStorage().get(iataCode);
+        return getDataset().getAirportCatalog().getSnapshot().get(iataCode);
     }
 
     @Override
@@ -50,116 +120,279 @@ public abstract class AirportDaoImpl implements AirportDao {
             return result;
         }
 
-        Airport ad = getAirportDataStorage().get(iataCode);
+        AirportSnapshot snapshot = getDataset().getAirportCatalog().getSnapshot();
+        Airport ad = snapshot.get(iataCode);
         if (ad == null) {
             LOGGER.severe("Cannot find airport iataCode = " + iataCode);
             return result;
         }
 
-        for (Airport a : getAirportDataStorage().values()) {
-            if (calculateDistance(ad, a) <= radius) {
-                result.add(a);
-            }
-        }
+        snapshot.forEachWithin(ad.getLatitude(), ad.getLongitude(), radius, result::add);
 
         return result;
     }
 
     @Override
     public Set<String> getAllAirportCodes() {
-        return getAirportDataStorage().keySet();
+        return getDataset().getAirportCatalog().getSnapshot().getIataCodes();
     }
 
     @Override
     public Atmosphereinfo findAtmosphericInformation(String iataCode) {
         if (iataCode == null) return null;
-        return getAtmosphericInformationDataStorage().get(iataCode);
+        return getDataset().getAtmosphericInformation().get(iataCode);
     }
 
     @Override
     public List<Atmosphereinfo> findAtmosphericInformationNearbyAirport(String iataCode, double radius) {
+        NearbyWeatherCache cache = nearbyCache;
+        if (cache != null && iataCode != null && radius > 0 && radius < Double.POSITIVE_INFINITY) {
+            return cache.find(iataCode, radius);
+        }
         List<Atmosphereinfo> result = new ArrayList<>();
-        if (iataCode == null) return result;
+        forEachAtmosphericInformationNearbyAirport(iataCode, radius, result::add);
+        return result;
+    }
+
+    @Override
+    public List<NearbyAtmosphere> findNearestAtmosphericInformation(String iataCode, double radius, int limit) {
+        if (iataCode == null) return new ArrayList<>();
+
+        Storage.Dataset dataset = getDataset();
+        AirportSnapshot snapshot = dataset.getAirportCatalog().getSnapshot();
+        Airport ad = snapshot.get(iataCode);
+        if (ad == null) {
+            LOGGER.severe("Cannot find airport iataCode = " + iataCode);
+            return new ArrayList<>();
+        }
 
-        for (Airport ad : findNearbyAirports(iataCode, radius)) {
-            Atmosphereinfo ai = getAtmosphericInformationDataStorage().get(ad.getIata());
+        return findNearest(dataset, limit,
+                visitor -> snapshot.forEachWithin(ad.getLatitude(), ad.getLongitude(), radius, visitor));
+    }
+
+    @Override
+    public List<NearbyAtmosphere> findAtmosphericInformationNear(double latitude, double longitude, double radius,
+                                                                 int limit) {
+        if (!(latitude >= -90 && latitude <= 90) || Double.isNaN(longitude) || Double.isInfinite(longitude)) {
+            return new ArrayList<>();
+        }
+
+        Storage.Dataset dataset = getDataset();
+        AirportSnapshot snapshot = dataset.getAirportCatalog().getSnapshot();
+        return findNearest(dataset, limit, visitor -> snapshot.forEachWithin(latitude, longitude, radius, visitor));
+    }
+
+    @Override
+    public List<NearbyAtmosphere> findAtmosphericInformationInBox(double minLatitude, double minLongitude,
+                                                                  double maxLatitude, double maxLongitude, int limit) {
+        Storage.Dataset dataset = getDataset();
+        AirportSnapshot snapshot = dataset.getAirportCatalog().getSnapshot();
+        return findNearest(dataset, limit,
+                visitor -> snapshot.forEachInBox(minLatitude, minLongitude, maxLatitude, maxLongitude, visitor));
+    }
+
+    /**
+     * @param search visits the candidates with their squared chords to the centre of the search
+     * @return the candidates with atmospheric information from the nearest to the farthest, at most limit of them if
+     * it's positive
+     */
+    private List<NearbyAtmosphere> findNearest(Storage.Dataset dataset, int limit,
+                                               Consumer<AirportSnapshot.PositionVisitor> search) {
+        // the storage is only read for candidates that can still make the top
+        AirportSnapshot snapshot = dataset.getAirportCatalog().getSnapshot();
+        Map<String, Atmosphereinfo> storage = dataset.getAtmosphericInformation();
+        NearestHeap heap = new NearestHeap(limit > 0 ? limit : Integer.MAX_VALUE);
+        search.accept((position, squaredChord) -> {
+            if (heap.isFull() && !(squaredChord < heap.peekKey())) return;
+            if (storage.containsKey(snapshot.getIataCode(position))) heap.offer(squaredChord, position);
+        });
+
+        List<NearbyAtmosphere> result = new ArrayList<>();
+        double[] squaredChords = new double[heap.size()];
+        int[] positions = new int[heap.size()];
+        heap.drainSorted(squaredChords, positions);
+        for (int i = 0; i < positions.length; i++) {
+            String iata = snapshot.getIataCode(positions[i]);
+            Atmosphereinfo ai = storage.get(iata);
             if (ai != null) {
-                result.add(ai);
+                result.add(new NearbyAtmosphere(iata, GeoUtils.distanceOfSquaredChord(squaredChords[i]), ai));
             }
         }
+        return result;
+    }
+
+    @Override
+    public List<NearbyAtmosphere> findKNearest(String iataCode, int k, Predicate<Atmosphereinfo> filter) {
+        List<NearbyAtmosphere> result = new ArrayList<>();
+        if (iataCode == null || k <= 0) return result;
+
+        Storage.Dataset dataset = getDataset();
+        AirportSnapshot snapshot = dataset.getAirportCatalog().getSnapshot();
+        Airport ad = snapshot.get(iataCode);
+        if (ad == null) {
+            LOGGER.severe("Cannot find airport iataCode = " + iataCode);
+            return result;
+        }
 
+        Map<String, Atmosphereinfo> storage = dataset.getAtmosphericInformation();
+        NearestHeap heap = new NearestHeap(k);
+        int origin = snapshot.indexOf(iataCode);
+        snapshot.forEachNearest(ad.getLatitude(), ad.getLongitude(), heap, position -> {
+            if (position == origin) return false;
+            Atmosphereinfo ai = storage.get(snapshot.getIataCode(position));
+            return ai != null && (filter == null || filter.test(ai));
+        });
+
+        double[] squaredChords = new double[heap.size()];
+        int[] positions = new int[heap.size()];
+        heap.drainSorted(squaredChords, positions);
+        for (int i = 0; i < positions.length; i++) {
+            String iata = snapshot.getIataCode(positions[i]);
+            Atmosphereinfo ai = storage.get(iata);
+            if (ai != null) {
+                result.add(new NearbyAtmosphere(iata, GeoUtils.distanceOfSquaredChord(squaredChords[i]), ai));
+            }
+        }
         return result;
     }
 
-    /**
-     * Haversine distance between two airports.
-     *
-     * @param ad1 airport 1
-     * @param ad2 airport 2
-     * @return the distance in KM
-     */
-    private double calculateDistance(Airport ad1, Airport ad2) {
-        double deltaLat = Math.toRadians(ad2.getLatitude() - ad1.getLatitude());
-        double deltaLon = Math.toRadians(ad2.getLongitude() - ad1.getLongitude());
-        double a = Math.pow(Math.sin(deltaLat / 2), 2) + Math.pow(Math.sin(deltaLon / 2), 2)
-                * Math.cos(ad1.getLatitude()) * Math.cos(ad2.getLatitude());
-        double c = 2 * Math.asin(Math.sqrt(a));
+    @Override
+    public void forEachAtmosphericInformationNearbyAirport(String iataCode, double radius,
+                                                           Consumer<Atmosphereinfo> consumer) {
+        if (iataCode == null) return;
 
-        return 6372.8 * c;
+        Storage.Dataset dataset = getDataset();
+        AirportSnapshot snapshot = dataset.getAirportCatalog().getSnapshot();
+        Airport ad = snapshot.get(iataCode);
+        if (ad == null) {
+            LOGGER.severe("Cannot find airport iataCode = " + iataCode);
+            return;
+        }
+
+        Map<String, Atmosphereinfo> storage = dataset.getAtmosphericInformation();
+        snapshot.forEachWithin(ad.getLatitude(), ad.getLongitude(), radius, a -> {
+            Atmosphereinfo ai = storage.get(a.getIata());
+            if (ai != null) consumer.accept(ai);
+        });
     }
 
     public void updateAtmosphericInformation(String iataCode, String pointType, DataPoint dp) {
         if (iataCode == null) throw new IllegalArgumentException("IATA code is null");
-        if (getAirportDataStorage().get(iataCode) == null) throw new IllegalArgumentException("Unknown IATA code");
+        if (findAirportData(iataCode) == null) throw new IllegalArgumentException("Unknown IATA code");
         if (pointType == null) throw new IllegalArgumentException("pointType is null");
         if (dp == null) throw new IllegalArgumentException("Data point is null");
 
-        Atmosphereinfo oldValue = getAtmosphericInformationDataStorage().get(iataCode);
-        if (oldValue == null) {
-            oldValue = new Atmosphereinfo();
-            getAtmosphericInformationDataStorage().putIfAbsent(iataCode, oldValue);
-            oldValue = getAtmosphericInformationDataStorage().get(iataCode);
+        DataPointType type = DataPointType.fromName(pointType);
+        if (type == null) {
+            LOGGER.warning("Unknown point type " + pointType);
+            return;
+        }
+        if (!type.isValid(dp)) throw new IllegalArgumentException("Wrong parameter " + pointType + " = " + dp.getMean());
+
+        update(iataCode, Collections.singletonMap(type, dp));
+    }
+
+    @Override
+    public void updateAtmosphericInformation(String iataCode, Map<DataPointType, DataPoint> dataPoints) {
+        if (iataCode == null) throw new IllegalArgumentException("IATA code is null");
+        if (findAirportData(iataCode) == null) throw new IllegalArgumentException("Unknown IATA code");
+        if (dataPoints == null) throw new IllegalArgumentException("Data points are null");
+
+        for (Map.Entry<DataPointType, DataPoint> e : dataPoints.entrySet()) {
+            if (e.getKey() == null) throw new IllegalArgumentException("pointType is null");
+            if (e.getValue() == null) throw new IllegalArgumentException("Data point is null");
+            if (!e.getKey().isValid(e.getValue()))
+                throw new IllegalArgumentException("Wrong parameter " + e.getKey() + " = " + e.getValue().getMean());
         }
+        if (dataPoints.isEmpty()) return;
+
+        update(iataCode, dataPoints);
+    }
+
+    /**
+     * Store validated data points of a known airport, and notify the listeners
+     */
+    private void update(String iataCode, Map<DataPointType, DataPoint> dataPoints) {
+        long time = System.currentTimeMillis();
+        storeDataPoints(getDataset(), iataCode, dataPoints, time);
+        fire(l -> l.dataPointsUpdated(iataCode, dataPoints, time));
+    }
+
+    private void storeDataPoints(Storage.Dataset dataset, String iataCode, Map<DataPointType, DataPoint> dataPoints,
+                                 long time) {
+        long previous = updateDataPoints(dataset, iataCode, dataPoints, time);
+        ExpiryWheel recentUpdates = dataset.getRecentUpdates();
+        if (recentUpdates != null) recentUpdates.moved(previous, Math.max(previous, time));
+    }
 
-        while (true) {
-            Atmosphereinfo newValue = new Atmosphereinfo(oldValue.getTemperature(), oldValue.getHumidity(), oldValue.getWind(), oldValue.getPrecipitation(), oldValue.getPressure(), oldValue.getCloudCover());
-            updateAtmosphericInformation(newValue, pointType, dp);
-            if (getAtmosphericInformationDataStorage().replace(iataCode, oldValue, newValue)) break;
+    /**
+     * Register a listener of the changes of this DAO only, in addition to the listener beans
+     *
+     * @param listener the listener, it's called after the listeners registered before it
+     */
+    protected synchronized void addListener(AirportDaoListener listener) {
+        List<AirportDaoListener> registered = new ArrayList<>(listeners);
+        registered.add(listener);
+        listeners = Collections.unmodifiableList(registered);
+    }
+
+    /**
+     * Set the journal of the changes of this DAO. Unlike the listeners it's not best effort, a change it fails to
+     * journal fails: the caller gets the exception of the journal, although the change has been applied already.
+     *
+     * @param journal the journal, it's called after all listeners
+     */
+    protected void setJournal(AirportDaoListener journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Notify the listeners, a failing listener doesn't fail the change or the other listeners. The journal comes last
+     * and its failure is thrown.
+     */
+    private void fire(Consumer<AirportDaoListener> event) {
+        for (AirportDaoListener listener : listeners) {
             try {
-                Thread.sleep(10);
-            } catch (InterruptedException e) {
-                LOGGER.log(Level.SEVERE, "updateAtmosphericInformation", e);
+                event.accept(listener);
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.SEVERE, "Airport DAO listener failed", e);
             }
         }
+        AirportDaoListener journal = this.journal;
+        if (journal != null) event.accept(journal);
     }
 
-    protected void updateAtmosphericInformation(Atmosphereinfo ai, String pointType, DataPoint dp) {
-        if (pointType.equalsIgnoreCase(DataPointType.WIND.name())) {
-            if (dp.getMean() >= 0) {
-                ai.setWind(dp);
-            } else throw new IllegalArgumentException("Wrong parameter " + pointType + " = " + dp.getMean());
-        } else if (pointType.equalsIgnoreCase(DataPointType.TEMPERATURE.name())) {
-            if (dp.getMean() >= -50 && dp.getMean() < 100) {
-                ai.setTemperature(dp);
-            } else throw new IllegalArgumentException("Wrong parameter " + pointType + " = " + dp.getMean());
-        } else if (pointType.equalsIgnoreCase(DataPointType.HUMIDTY.name())) {
-            if (dp.getMean() >= 0 && dp.getMean() < 100) {
-                ai.setHumidity(dp);
-            } else throw new IllegalArgumentException("Wrong parameter " + pointType + " = " + dp.getMean());
-        } else if (pointType.equalsIgnoreCase(DataPointType.PRESSURE.name())) {
-            if (dp.getMean() >= 650 && dp.getMean() < 800) {
-                ai.setPressure(dp);
-            } else throw new IllegalArgumentException("Wrong parameter " + pointType + " = " + dp.getMean());
-        } else if (pointType.equalsIgnoreCase(DataPointType.CLOUDCOVER.name())) {
-            if (dp.getMean() >= 0 && dp.getMean() < 100) {
-                ai.setCloudCover(dp);
-            } else throw new IllegalArgumentException("Wrong parameter " + pointType + " = " + dp.getMean());
-        } else if (pointType.equalsIgnoreCase(DataPointType.PRECIPITATION.name())) {
-            if (dp.getMean() >= 0 && dp.getMean() < 100) {
-                ai.setPrecipitation(dp);
-            } else throw new IllegalArgumentException("");
-        }
-        ai.setLastUpdateTime(System.currentTimeMillis());
+    @Override
+    public long countRecentAtmosphericInformation() {
+        return getDataset().getRecentUpdates().count(System.currentTimeMillis());
+    }
+
+    @Override
+    public CacheStats getNearbyCacheStats() {
+        NearbyWeatherCache cache = nearbyCache;
+        return cache == null ? new CacheStats() : cache.getStats();
+    }
+
+    /**
+     * Store validated data points. Only the slots of the given point types are touched, so updates of different point
+     * types of the same airport never conflict.
+     *
+     * @param dataset    the dataset of the update
+     * @param iataCode   airport iata code
+     * @param dataPoints the actual data points by their point type
+     * @param time       of the update in milliseconds since UTC epoch
+     * @return the last update time before this update, 0 if the atmospheric information is new
+     */
+    protected long updateDataPoints(Storage.Dataset dataset, String iataCode, Map<DataPointType, DataPoint> dataPoints,
+                                    long time) {
+        Map<String, Atmosphereinfo> storage = dataset.getAtmosphericInformation();
+        Atmosphereinfo ai = storage.get(iataCode);
+        if (ai == null) {
+            Atmosphereinfo created = new Atmosphereinfo();
+            ai = storage.putIfAbsent(iataCode, created);
+            if (ai == null) ai = created;
+        }
+        return ai.update(dataPoints, time);
     }
 
     @Override
@@ -168,7 +401,38 @@ public abstract class AirportDaoImpl implements AirportDao {
             LOGGER.severe("Cannot save airport");
             return;
         }
-        getAirportDataStorage().put(ad.getIata(), ad);
+        // the ordinal is registered before the airport is visible, collectors may use it right away
+        ordinalRegistry.register(ad.getIata());
+        Storage.Dataset dataset = getDataset();
+        dataset.getAirportData().put(ad.getIata(), ad);
+        dataset.getAirportCatalog().add(ad);
+        fire(l -> l.airportsSaved(Collections.singletonList(ad)));
+    }
+
+    @Override
+    public void saveAirports(Collection<Airport> airports) {
+        if (airports == null) {
+            LOGGER.severe("Cannot save airports");
+            return;
+        }
+        Map<String, Airport> batch = new HashMap<>();
+        for (Airport ad : airports) {
+            if (ad == null || ad.getIata() == null) {
+                LOGGER.severe("Cannot save airport");
+                continue;
+            }
+            batch.put(ad.getIata(), ad);
+        }
+        if (batch.isEmpty()) return;
+
+        storeAirports(getDataset(), batch);
+        fire(l -> l.airportsSaved(batch.values()));
+    }
+
+    private void storeAirports(Storage.Dataset dataset, Map<String, Airport> batch) {
+        batch.keySet().forEach(ordinalRegistry::register);
+        dataset.getAirportData().putAll(batch);
+        dataset.getAirportCatalog().addAll(batch.values());
     }
 
     @Override
@@ -177,8 +441,17 @@ public abstract class AirportDaoImpl implements AirportDao {
             LOGGER.severe("Cannot delete airport");
             return;
         }
-        deleteAtmosphericInformation(iataCode);
-        getAirportDataStorage().remove(iataCode);
+        Storage.Dataset dataset = getDataset();
+        removeAtmosphericInformation(dataset, iataCode);
+        fire(l -> l.atmosphericInformationDeleted(iataCode));
+        removeAirport(dataset, iataCode);
+        fire(l -> l.airportDeleted(iataCode));
+    }
+
+    private void removeAirport(Storage.Dataset dataset, String iataCode) {
+        dataset.getAirportData().remove(iataCode);
+        dataset.getAirportCatalog().remove(iataCode);
+        ordinalRegistry.unregister(iataCode);
     }
 
     @Override
@@ -187,7 +460,49 @@ public abstract class AirportDaoImpl implements AirportDao {
             LOGGER.severe("Cannot delete atmospheric information");
             return;
         }
-        getAtmosphericInformationDataStorage().remove(iataCode);
+        removeAtmosphericInformation(getDataset(), iataCode);
+        fire(l -> l.atmosphericInformationDeleted(iataCode));
+    }
+
+    private void removeAtmosphericInformation(Storage.Dataset dataset, String iataCode) {
+        Atmosphereinfo ai = dataset.getAtmosphericInformation().remove(iataCode);
+        ExpiryWheel recentUpdates = dataset.getRecentUpdates();
+        if (ai != null && recentUpdates != null) recentUpdates.remove(ai.getLastUpdateTime());
+    }
+
+    /**
+     * Applies changes to the storage without validating them and without notifying the listeners or the journal, for
+     * example the changes recovered from the journal. Data points of unknown airports are dropped.
+     */
+    protected class StorageWriter implements AirportDaoListener {
+
+        @Override
+        public void airportsSaved(Collection<Airport> airports) {
+            Map<String, Airport> batch = new HashMap<>();
+            airports.forEach(ad -> batch.put(ad.getIata(), ad));
+            storeAirports(getDataset(), batch);
+        }
+
+        @Override
+        public void airportDeleted(String iataCode) {
+            Storage.Dataset dataset = getDataset();
+            removeAtmosphericInformation(dataset, iataCode);
+            removeAirport(dataset, iataCode);
+        }
+
+        @Override
+        public void dataPointsUpdated(String iataCode, Map<DataPointType, DataPoint> dataPoints, long time) {
+            Storage.Dataset dataset = getDataset();
+            if (dataset.getAirportCatalog().getSnapshot().get(iataCode) != null) {
+                storeDataPoints(dataset, iataCode, dataPoints, time);
+            }
+        }
+
+        @Override
+        public void atmosphericInformationDeleted(String iataCode) {
+            removeAtmosphericInformation(getDataset(), iataCode);
+        }
+
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,47 @@
+package com.crossover.trial.weather.services;
+
+import com.crossover.trial.weather.models.Airport;
+import com.crossover.trial.weather.models.DataPoint;
+import com.crossover.trial.weather.models.DataPointType;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Receives the changes made through the airport DAO of this node, every bean implementing it is registered with the
+ * DAO. Listeners are called synchronously by the thread making the change, after it's been applied, so they have to
+ * be quick. Changes made by other nodes of a cluster aren't seen.
+ */
+public interface AirportDaoListener {
+
+    /**
+     * @param airports the saved airports
+     */
+    default void airportsSaved(Collection<Airport> airports) {
+    }
+
+    /**
+     * Called after the atmospheric information of the airport has been deleted
+     *
+     * @param iataCode the 3 letter airport code
+     */
+    default void airportDeleted(String iataCode) {
+    }
+
+    /**
+     * @param iataCode   the 3 letter airport code
+     * @param dataPoints the validated data points by their point type
+     * @param time       of the update in milliseconds since UTC epoch
+     */
+    default void dataPointsUpdated(String iataCode, Map<DataPointType, DataPoint> dataPoints, long time) {
+    }
+
+    /**
+     * Called while the airport is still known
+     *
+     * @param iataCode the 3 letter airport code
+     */
+    default void atmosphericInformationDeleted(String iataCode) {
+    }
+
+}
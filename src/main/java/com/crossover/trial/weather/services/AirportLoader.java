@@ -1,23 +1,51 @@
 package com.crossover.trial.weather.services;
 
+import com.crossover.trial.weather.models.ImportStatus;
 import com.crossover.trial.weather.utils.Paths;
 import static com.crossover.trial.weather.utils.Paths.AIRPORT;
+import static com.crossover.trial.weather.utils.Paths.AIRPORTS;
 import static com.crossover.trial.weather.utils.Paths.COLLECT;
+import static com.crossover.trial.weather.utils.Paths.TEXT_CSV;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
 import org.apache.commons.csv.CSVRecord;
 
 import javax.ws.rs.client.Client;
 import javax.ws.rs.client.ClientBuilder;
 import javax.ws.rs.client.Entity;
+import javax.ws.rs.client.InvocationCallback;
 import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import java.io.*;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * A simple airport loader which reads a file from disk and sends entries to the webservice
+ * <p>
+ * In the bulk mode the file is streamed to the bulk import endpoint in chunks, with a bounded number of chunks
+ * in flight.
  */
 public class AirportLoader {
 
+    /**
+     * number of airports sent in one bulk request
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 1000;
+
+    /**
+     * number of bulk requests waiting for a response at the same time
+     */
+    public static final int DEFAULT_MAX_IN_FLIGHT = 4;
+
+    /**
+     * reads the responses of the bulk requests, a reader is thread-safe and caches its deserializer
+     */
+    private static final ObjectReader IMPORT_STATUS_READER = new ObjectMapper().reader(ImportStatus.class);
+
     /**
      * end point to supply updates
      */
@@ -29,8 +57,8 @@ public class AirportLoader {
     }
 
     public static void main(String args[]) throws IOException {
-        if (args.length != 2) {
-            System.out.println("USAGE: java com.crossover.trial.weather.services.AirportLoader file_name weather_server_url");
+        if (args.length != 2 && !(args.length == 3 && "--bulk".equals(args[2]))) {
+            System.out.println("USAGE: java com.crossover.trial.weather.services.AirportLoader file_name weather_server_url [--bulk]");
             return;
         }
 
@@ -41,16 +69,16 @@ public class AirportLoader {
         }
 
         AirportLoader al = new AirportLoader(args[1]);
-        al.upload(new FileInputStream(airportDataFile));
+        if (args.length == 3) {
+            al.uploadBulk(new FileInputStream(airportDataFile), DEFAULT_CHUNK_SIZE, DEFAULT_MAX_IN_FLIGHT);
+        } else {
+            al.upload(new FileInputStream(airportDataFile));
+        }
         System.exit(0);
     }
 
     public void upload(InputStream airportDataStream) throws IOException {
-        Response response = collect.path(Paths.PING).request().get();
-        if (response.getStatus() != Response.Status.OK.getStatusCode()) {
-            System.out.println("Service AWS at " + collect.getUri() + "is unavailable");
-            return;
-        }
+        if (!isAvailable()) return;
 
         System.out.printf("%1$-8s %2$-20s %3$-20s %4$-8s \n", "IATA", "Latitude", "Longitude", "Result");
         System.out.println("==========================================================");
@@ -59,7 +87,7 @@ public class AirportLoader {
             String iataCode = record.get(4);
             String latitude = record.get(6);
             String longitude = record.get(7);
-            response = collect.path(AIRPORT+"/" + iataCode + "/" + latitude + "/" + longitude).
+            Response response = collect.path(AIRPORT+"/" + iataCode + "/" + latitude + "/" + longitude).
                     request().post(Entity.entity("", "application/json"));
 
             System.out.printf("%1$-8s %2$-20s %3$-20s %4$-8s \n", iataCode, latitude, longitude,
@@ -67,4 +95,93 @@ public class AirportLoader {
         }
     }
 
+    /**
+     * Send the airports to the bulk import endpoint
+     *
+     * @param airportDataStream the airports file
+     * @param chunkSize         number of airports sent in one request
+     * @param maxInFlight       number of requests waiting for a response at the same time
+     * @return the total of the import statuses returned by the service
+     */
+    public ImportStatus uploadBulk(InputStream airportDataStream, int chunkSize, int maxInFlight) throws IOException {
+        ImportStatus total = new ImportStatus();
+        if (!isAvailable()) return total;
+
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        AtomicInteger saved = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+
+        StringWriter chunk = new StringWriter();
+        CSVPrinter printer = new CSVPrinter(chunk, CSVFormat.DEFAULT);
+        int records = 0;
+        try {
+            for (CSVRecord record : CSVFormat.DEFAULT.parse(new BufferedReader(new InputStreamReader(airportDataStream)))) {
+                printer.printRecord(record.get(4), record.get(6), record.get(7));
+                if (++records == chunkSize) {
+                    sendChunk(chunk.toString(), records, inFlight, saved, rejected, failed);
+                    chunk.getBuffer().setLength(0);
+                    records = 0;
+                }
+            }
+            if (records > 0) {
+                sendChunk(chunk.toString(), records, inFlight, saved, rejected, failed);
+            }
+            inFlight.acquire(maxInFlight);
+            inFlight.release(maxInFlight);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Upload is interrupted");
+        }
+
+        total.setSaved(saved.get());
+        total.setRejected(rejected.get() + failed.get());
+        System.out.printf("Saved %d airports, rejected %d, failed to send %d\n", saved.get(), rejected.get(), failed.get());
+        return total;
+    }
+
+    private void sendChunk(String body, int records, Semaphore inFlight, AtomicInteger saved,
+                           AtomicInteger rejected, AtomicInteger failed) throws InterruptedException {
+        inFlight.acquire();
+        collect.path(AIRPORTS).request(MediaType.APPLICATION_JSON).async()
+                .post(Entity.entity(body, TEXT_CSV), new InvocationCallback<Response>() {
+                    @Override
+                    public void completed(Response response) {
+                        try {
+                            // a malformed chunk is answered by a bad request with the status of its saved part
+                            if (response.getStatus() == Response.Status.OK.getStatusCode()
+                                    || response.getStatus() == Response.Status.BAD_REQUEST.getStatusCode()
+                                    && response.hasEntity()) {
+                                ImportStatus status = IMPORT_STATUS_READER.readValue(response.readEntity(String.class));
+                                saved.addAndGet(status.getSaved());
+                                rejected.addAndGet(status.getRejected());
+                                failed.addAndGet(records - status.getSaved() - status.getRejected());
+                            } else {
+                                failed.addAndGet(records);
+                            }
+                        } catch (IOException | RuntimeException e) {
+                            failed.addAndGet(records);
+                        } finally {
+                            response.close();
+                            inFlight.release();
+                        }
+                    }
+
+                    @Override
+                    public void failed(Throwable throwable) {
+                        failed.addAndGet(records);
+                        inFlight.release();
+                    }
+                });
+    }
+
+    private boolean isAvailable() {
+        Response response = collect.path(Paths.PING).request().get();
+        if (response.getStatus() != Response.Status.OK.getStatusCode()) {
+            System.out.println("Service AWS at " + collect.getUri() + "is unavailable");
+            return false;
+        }
+        return true;
+    }
+
 }
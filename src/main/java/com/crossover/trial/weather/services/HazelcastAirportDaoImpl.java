@@ -2,29 +2,205 @@ package com.crossover.trial.weather.services;
 
 import com.crossover.trial.weather.models.Airport;
 import com.crossover.trial.weather.models.Atmosphereinfo;
+import com.crossover.trial.weather.models.DataPoint;
+import com.crossover.trial.weather.models.DataPointType;
+import com.crossover.trial.weather.services.hazelcast.AtmosphereUpdateProcessor;
+import com.crossover.trial.weather.services.hazelcast.RecentUpdateCounter;
+import com.crossover.trial.weather.utils.AirportCatalog;
+import com.crossover.trial.weather.utils.Storage;
+import com.hazelcast.core.EntryEvent;
 import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IExecutorService;
+import com.hazelcast.core.IMap;
+import com.hazelcast.core.Member;
+import com.hazelcast.map.listener.EntryAddedListener;
+import com.hazelcast.map.listener.EntryEvictedListener;
+import com.hazelcast.map.listener.EntryRemovedListener;
+import com.hazelcast.map.listener.EntryUpdatedListener;
 
+import javax.annotation.PostConstruct;
 import javax.annotation.Resource;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * Implementation of the airport DAO using Hazelcast framework.
  * <p>
  * It's an example of the implementation that can be used in production.
+ * <p>
+ * Every node keeps its own airport catalog and ordinals of the airports, so airport queries never leave the JVM.
+ * Changes made by other nodes of the cluster are applied to them by a listener on the airport map.
  */
 public class HazelcastAirportDaoImpl extends AirportDaoImpl {
 
+    private static final Logger LOGGER = Logger.getLogger(HazelcastAirportDaoImpl.class.getName());
+
+    private static final String ATMOSPHERIC_INFORMATION = "ATMOSPHERIC_INFORMATION";
+
+    private static final long DAY_MILLIS = TimeUnit.DAYS.toMillis(1);
+
     @Resource
     private HazelcastInstance hazelcastInstance;
 
+    /**
+     * the proxies are cached, looking them up by name on every call costs a map lookup and a name check
+     */
+    private IMap<String, Airport> airportData;
+    private IMap<String, Atmosphereinfo> atmosphericInformation;
+
+    private final AirportCatalog airportCatalog = new AirportCatalog();
+
+    /**
+     * every node updates the atmospheric information, a wheel of this node would only see a part of the updates
+     */
+    private Storage.Dataset dataset;
+
+    /**
+     * changes made by other nodes that are not in the catalog yet, a null airport is a removal
+     */
+    private final Queue<Map.Entry<String, Airport>> pending = new ConcurrentLinkedQueue<>();
+
+    /**
+     * runs the counts of the recent updates on the members
+     */
+    private IExecutorService executor;
+
+    @PostConstruct
+    public void init() {
+        airportData = hazelcastInstance.getMap("AIRPORT_DATA");
+        atmosphericInformation = hazelcastInstance.getMap(ATMOSPHERIC_INFORMATION);
+        executor = hazelcastInstance.getExecutorService("weather");
+        dataset = new Storage.Dataset(airportData, airportCatalog, atmosphericInformation, null);
+        // events arriving while the airports are read wait in the queue and are applied after them, in order, so an
+        // older value read from the map never overwrites a later change
+        synchronized (pending) {
+            airportData.addEntryListener(new AirportIndexListener(), true);
+            Map<String, Airport> initial = new LinkedHashMap<>();
+            airportData.values().forEach(ad -> initial.put(ad.getIata(), ad));
+            airportCatalog.apply(initial);
+            initial.keySet().forEach(getOrdinalRegistry()::register);
+            applyPending();
+        }
+    }
+
+    @Override
+    protected Storage.Dataset getDataset() {
+        return dataset;
+    }
+
+    /**
+     * Every member counts the records it owns, only the counts travel over the network. It's a scan of the cluster,
+     * the ping statistics call it once per refresh.
+     */
     @Override
-    protected Map<String, Airport> getAirportDataStorage() {
-        return hazelcastInstance.getMap("AIRPORT_DATA");
+    public long countRecentAtmosphericInformation() {
+        Map<Member, Future<Long>> counts = executor.submitToAllMembers(
+                new RecentUpdateCounter(ATMOSPHERIC_INFORMATION, System.currentTimeMillis() - DAY_MILLIS));
+        long count = 0;
+        for (Map.Entry<Member, Future<Long>> e : counts.entrySet()) {
+            try {
+                count += e.getValue().get();
+            } catch (ExecutionException ex) {
+                LOGGER.log(Level.SEVERE, "Cannot count the recent updates on " + e.getKey(), ex);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return count;
     }
 
+    /**
+     * Other nodes update the atmospheric information without any event on this node, so the results of the radius
+     * queries aren't cached
+     */
     @Override
-    protected Map<String, Atmosphereinfo> getAtmosphericInformationDataStorage() {
-        return hazelcastInstance.getMap("ATMOSPHERIC_INFORMATION");
+    protected boolean isNearbyCacheable() {
+        return false;
+    }
+
+    /**
+     * The data points are shipped to the owner of the partition and applied there in place
+     */
+    @Override
+    protected long updateDataPoints(Storage.Dataset dataset, String iataCode, Map<DataPointType, DataPoint> dataPoints,
+                                    long time) {
+        return (Long) atmosphericInformation.executeOnKey(iataCode, new AtmosphereUpdateProcessor(dataPoints, time));
+    }
+
+    /**
+     * Apply the pending changes in one new snapshot. Whoever holds the queue applies the changes queued so far,
+     * so a burst of events, like a bulk import on another node, doesn't build a snapshot per airport.
+     */
+    private void applyPending() {
+        synchronized (pending) {
+            Map<String, Airport> changes = new LinkedHashMap<>();
+            for (Map.Entry<String, Airport> e; (e = pending.poll()) != null; ) {
+                changes.remove(e.getKey());
+                changes.put(e.getKey(), e.getValue());
+            }
+            if (changes.isEmpty()) return;
+            airportCatalog.apply(changes);
+            changes.forEach((iataCode, ad) -> {
+                if (ad == null) {
+                    getOrdinalRegistry().unregister(iataCode);
+                } else {
+                    getOrdinalRegistry().register(iataCode);
+                }
+            });
+        }
+    }
+
+    private void indexAdded(Airport ad) {
+        pending.add(new SimpleImmutableEntry<>(ad.getIata(), ad));
+        applyPending();
+    }
+
+    private void indexRemoved(String iataCode) {
+        pending.add(new SimpleImmutableEntry<>(iataCode, null));
+        applyPending();
+    }
+
+    /**
+     * Keeps the local airport catalog in sync with the cluster-wide airport map. Events caused by this node are
+     * skipped, they were already applied by the DAO and may arrive after a later local change of the same airport.
+     */
+    private class AirportIndexListener implements EntryAddedListener<String, Airport>,
+            EntryUpdatedListener<String, Airport>, EntryRemovedListener<String, Airport>,
+            EntryEvictedListener<String, Airport> {
+
+        @Override
+        public void entryAdded(EntryEvent<String, Airport> event) {
+            if (!isLocal(event)) indexAdded(event.getValue());
+        }
+
+        @Override
+        public void entryUpdated(EntryEvent<String, Airport> event) {
+            if (!isLocal(event)) indexAdded(event.getValue());
+        }
+
+        @Override
+        public void entryRemoved(EntryEvent<String, Airport> event) {
+            if (!isLocal(event)) indexRemoved(event.getKey());
+        }
+
+        @Override
+        public void entryEvicted(EntryEvent<String, Airport> event) {
+            if (!isLocal(event)) indexRemoved(event.getKey());
+        }
+
+        private boolean isLocal(EntryEvent<String, Airport> event) {
+            return event.getMember() != null && event.getMember().localMember();
+        }
+
     }
 
 }
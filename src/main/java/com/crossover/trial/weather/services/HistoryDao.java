@@ -0,0 +1,30 @@
+package com.crossover.trial.weather.services;
+
+import com.crossover.trial.weather.models.DataPointType;
+import com.crossover.trial.weather.models.TimedDataPoint;
+
+import java.util.List;
+
+/**
+ * DAO for the recent history of the data points of the airports
+ */
+public interface HistoryDao {
+
+    /**
+     * Find the data points of an airport collected in a time range, readings older than the retention period or pushed
+     * out of the history by newer ones aren't returned
+     *
+     * @param iataCode the 3 letter airport code
+     * @param type     the point type
+     * @param from     the earliest time in milliseconds since UTC epoch, inclusive
+     * @param to       the latest time in milliseconds since UTC epoch, inclusive
+     * @return the data points from the oldest to the newest, an empty list for an unknown airport
+     */
+    List<TimedDataPoint> findHistory(String iataCode, DataPointType type, long from, long to);
+
+    /**
+     * Drop the history of all airports
+     */
+    void clear();
+
+}
@@ -0,0 +1,326 @@
+package com.crossover.trial.weather.services;
+
+import com.crossover.trial.weather.models.Airport;
+import com.crossover.trial.weather.models.Atmosphereinfo;
+import com.crossover.trial.weather.models.CacheStats;
+import com.crossover.trial.weather.models.DataPoint;
+import com.crossover.trial.weather.models.DataPointType;
+import com.crossover.trial.weather.utils.AirportSnapshot;
+import com.crossover.trial.weather.utils.GeoUtils;
+import com.crossover.trial.weather.utils.Storage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * Results of the radius queries around the hot airports, keyed by the airport and the radius rounded up to a whole KM.
+ * <p>
+ * An entry holds the atmospheric information within the rounded radius with the squared chord of each, so any radius
+ * of the same bucket is answered by filtering it, with exactly the result the storage would give. Entries are
+ * dropped as soon as a data point of an airport within their region is updated or deleted, and all of them when
+ * airports are saved or deleted. An entry also remembers the airport snapshot and the storage it was loaded from, a
+ * storage replaced as a whole doesn't leave stale entries behind.
+ * <p>
+ * A query is only cached on its second miss within a while, the doorkeeper of TinyLFU, so the long tail of queries
+ * asked once doesn't churn the cache. The capacity is kept by the CLOCK approximation of LRU, a hit only sets a flag
+ * of its entry and never locks. Every update of a data point checks all entries, the capacity should stay in the
+ * thousands. A result too large to keep is only found out by loading it, its key is remembered so the query is never
+ * loaded into the cache again and never evicts anything.
+ */
+public class NearbyWeatherCache implements AirportDaoListener {
+
+    private static final Logger LOGGER = Logger.getLogger(NearbyWeatherCache.class.getName());
+
+    /**
+     * slack of the region check on updates, the centre of the query and the airport positions are rounded differently
+     */
+    private static final double SLACK = 1e-12;
+
+    private final AirportDaoImpl dao;
+
+    private final int capacity;
+
+    /**
+     * larger results aren't kept, a region that large is invalidated by nearly every update anyway
+     */
+    private final int maxResults;
+
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * keys whose results were too large to keep, at most capacity of them until the airports change
+     */
+    private final Set<Key> oversized = ConcurrentHashMap.newKeySet();
+
+    /**
+     * hashes of the keys missed recently by their slot, racy updates only cost an admission
+     */
+    private final int[] doorkeeper;
+
+    /**
+     * the clock hand of the eviction, guarded by this
+     */
+    private Iterator<Entry> hand;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    /**
+     * @param dao        the DAO of the airports and their atmospheric information, every change has to be made through
+     *                   it and the cache has to be registered as its listener
+     * @param capacity   the most entries kept
+     * @param maxResults the most atmospheric information kept by an entry
+     */
+    public NearbyWeatherCache(AirportDaoImpl dao, int capacity, int maxResults) {
+        if (capacity <= 0) throw new IllegalArgumentException("Capacity must be positive " + capacity);
+        this.dao = dao;
+        this.capacity = capacity;
+        this.maxResults = maxResults;
+        this.doorkeeper = new int[Integer.highestOneBit(capacity) << 3];
+    }
+
+    /**
+     * Same as {@link AirportDao#findAtmosphericInformationNearbyAirport(String, double)}
+     *
+     * @param iataCode the 3 letter airport code
+     * @param radius   in KM, positive and finite
+     * @return the atmospheric information within the radius
+     */
+    public List<Atmosphereinfo> find(String iataCode, double radius) {
+        Storage.Dataset dataset = dao.getDataset();
+        AirportSnapshot snapshot = dataset.getAirportCatalog().getSnapshot();
+        Map<String, Atmosphereinfo> storage = dataset.getAtmosphericInformation();
+        double maxSquaredChord = GeoUtils.squaredChord(radius);
+        Key key = new Key(iataCode, Math.ceil(radius));
+
+        Entry entry = entries.get(key);
+        boolean loading = false;
+        if (entry != null && entry.snapshot == snapshot && entry.storage == storage) {
+            Atmosphereinfo[] values = entry.values;
+            if (values != null) {
+                hits.increment();
+                if (!entry.referenced) entry.referenced = true;
+                return entry.select(values, maxSquaredChord);
+            }
+            loading = true;
+        }
+        misses.increment();
+
+        Airport centre = snapshot.get(iataCode);
+        if (centre == null) {
+            LOGGER.severe("Cannot find airport iataCode = " + iataCode);
+            return new ArrayList<>();
+        }
+
+        if (!loading && (oversized.contains(key) || !admit(key))) {
+            List<Atmosphereinfo> result = new ArrayList<>();
+            snapshot.forEachWithin(centre.getLatitude(), centre.getLongitude(), radius, a -> {
+                Atmosphereinfo ai = storage.get(a.getIata());
+                if (ai != null) result.add(ai);
+            });
+            return result;
+        }
+
+        Entry loaded = new Entry(key, centre, snapshot, storage);
+        // another thread is loading the same entry, the query doesn't wait for it
+        boolean added = false;
+        if (!loading) {
+            // the entry is visible before the storage is read, an update meanwhile drops it
+            added = entries.put(key, loaded) == null;
+        }
+        loaded.load();
+        Atmosphereinfo[] values = loaded.values;
+        if (values.length > maxResults) {
+            entries.remove(key, loaded);
+            if (oversized.size() >= capacity) oversized.clear();
+            oversized.add(key);
+        } else if (added && entries.size() > capacity) {
+            evict();
+        }
+        return loaded.select(values, maxSquaredChord);
+    }
+
+    /**
+     * @return the counters since the cache was created
+     */
+    public CacheStats getStats() {
+        return new CacheStats(capacity, entries.size(), hits.sum(), misses.sum(), evictions.sum(),
+                invalidations.sum());
+    }
+
+    @Override
+    public void airportsSaved(Collection<Airport> airports) {
+        invalidateAll();
+    }
+
+    @Override
+    public void airportDeleted(String iataCode) {
+        invalidateAll();
+    }
+
+    @Override
+    public void dataPointsUpdated(String iataCode, Map<DataPointType, DataPoint> dataPoints, long time) {
+        invalidate(iataCode);
+    }
+
+    @Override
+    public void atmosphericInformationDeleted(String iataCode) {
+        invalidate(iataCode);
+    }
+
+    /**
+     * @return true if the key was missed recently, otherwise it's remembered for the next miss
+     */
+    private boolean admit(Key key) {
+        int hash = key.hashCode();
+        hash ^= hash >>> 16;
+        int slot = hash & (doorkeeper.length - 1);
+        if (doorkeeper[slot] == hash) return true;
+        doorkeeper[slot] = hash;
+        return false;
+    }
+
+    /**
+     * Drop the entries whose region contains the airport
+     */
+    private void invalidate(String iataCode) {
+        if (entries.isEmpty()) return;
+        Airport ad = dao.getDataset().getAirportCatalog().getSnapshot().get(iataCode);
+        if (ad == null) return;
+        for (Entry entry : entries.values()) {
+            if (ad.squaredChordTo(entry.centre) <= entry.maxSquaredChord + SLACK) remove(entry);
+        }
+    }
+
+    private void invalidateAll() {
+        oversized.clear();
+        for (Entry entry : entries.values()) {
+            remove(entry);
+        }
+    }
+
+    private void remove(Entry entry) {
+        if (entries.remove(entry.key, entry)) invalidations.increment();
+    }
+
+    /**
+     * Sweep the clock hand until the cache is within its capacity, an entry hit since the last sweep gets a second
+     * chance
+     */
+    private synchronized void evict() {
+        int chances = 2 * capacity;
+        while (entries.size() > capacity) {
+            if (hand == null || !hand.hasNext()) {
+                hand = entries.values().iterator();
+                if (!hand.hasNext()) return;
+            }
+            Entry entry = hand.next();
+            if (entry.referenced && chances-- > 0) {
+                entry.referenced = false;
+            } else if (entries.remove(entry.key, entry)) {
+                evictions.increment();
+            }
+        }
+    }
+
+    private static final class Key {
+
+        private final String iataCode;
+
+        private final double bucket;
+
+        private Key(String iataCode, double bucket) {
+            this.iataCode = iataCode;
+            this.bucket = bucket;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return bucket == other.bucket && iataCode.equals(other.iataCode);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * iataCode.hashCode() + Double.hashCode(bucket);
+        }
+
+    }
+
+    private static final class Entry {
+
+        private final Key key;
+
+        private final Airport centre;
+
+        /**
+         * the squared chord of the rounded radius
+         */
+        private final double maxSquaredChord;
+
+        private final AirportSnapshot snapshot;
+
+        private final Map<String, Atmosphereinfo> storage;
+
+        /**
+         * squared chords of the values, written before them
+         */
+        private double[] squaredChords;
+
+        /**
+         * the atmospheric information within the rounded radius, null while it's being loaded
+         */
+        private volatile Atmosphereinfo[] values;
+
+        /**
+         * hit since the last sweep of the clock hand
+         */
+        private volatile boolean referenced;
+
+        private Entry(Key key, Airport centre, AirportSnapshot snapshot, Map<String, Atmosphereinfo> storage) {
+            this.key = key;
+            this.centre = centre;
+            this.maxSquaredChord = GeoUtils.squaredChord(key.bucket);
+            this.snapshot = snapshot;
+            this.storage = storage;
+        }
+
+        private void load() {
+            List<Atmosphereinfo> found = new ArrayList<>();
+            double[][] chords = {new double[16]};
+            snapshot.forEachWithin(centre.getLatitude(), centre.getLongitude(), key.bucket, (position, squaredChord) -> {
+                Atmosphereinfo ai = storage.get(snapshot.getIataCode(position));
+                if (ai == null) return;
+                int i = found.size();
+                if (i == chords[0].length) chords[0] = Arrays.copyOf(chords[0], 2 * i);
+                chords[0][i] = squaredChord;
+                found.add(ai);
+            });
+            squaredChords = chords[0];
+            values = found.toArray(new Atmosphereinfo[found.size()]);
+        }
+
+        private List<Atmosphereinfo> select(Atmosphereinfo[] values, double maxSquaredChord) {
+            double[] chords = squaredChords;
+            List<Atmosphereinfo> result = new ArrayList<>(values.length);
+            for (int i = 0; i < values.length; i++) {
+                if (chords[i] <= maxSquaredChord) result.add(values[i]);
+            }
+            return result;
+        }
+
+    }
+
+}
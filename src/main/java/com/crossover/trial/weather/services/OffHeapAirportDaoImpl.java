@@ -0,0 +1,117 @@
+package com.crossover.trial.weather.services;
+
+import com.crossover.trial.weather.models.Atmosphereinfo;
+import com.crossover.trial.weather.models.DataPoint;
+import com.crossover.trial.weather.models.DataPointType;
+import com.crossover.trial.weather.services.offheap.OffHeapAtmosphereStore;
+import com.crossover.trial.weather.utils.AirportCatalog;
+import com.crossover.trial.weather.utils.ExpiryWheel;
+import com.crossover.trial.weather.utils.Storage;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Implementation of the airport DAO that keeps the atmospheric information in direct memory.
+ * <p>
+ * The readings live in an {@link OffHeapAtmosphereStore} indexed by the airport ordinal, so the heap and the work of
+ * the garbage collector don't grow with the number of stations. Queries get a short-lived copy of the atmospheric
+ * information. The airports themselves are few and stay on the heap.
+ */
+public class OffHeapAirportDaoImpl extends AirportDaoImpl {
+
+    private final OffHeapAtmosphereStore store = new OffHeapAtmosphereStore();
+
+    /**
+     * the atmospheric information is a read and remove view of the store by IATA code
+     */
+    private final Storage.Dataset dataset = new Storage.Dataset(new ConcurrentHashMap<>(), new AirportCatalog(),
+            new AtmosphereStoreView(), new ExpiryWheel());
+
+    @Override
+    protected Storage.Dataset getDataset() {
+        return dataset;
+    }
+
+    @Override
+    protected long updateDataPoints(Storage.Dataset dataset, String iataCode, Map<DataPointType, DataPoint> dataPoints,
+                                    long time) {
+        int ordinal = getOrdinalRegistry().ordinalOf(iataCode);
+        if (ordinal < 0) throw new IllegalArgumentException("Unknown IATA code");
+        return store.update(ordinal, dataPoints, time);
+    }
+
+    /**
+     * The store seen as a map of the known airports to their atmospheric information
+     */
+    private class AtmosphereStoreView extends AbstractMap<String, Atmosphereinfo> {
+
+        @Override
+        public Atmosphereinfo get(Object key) {
+            return key instanceof String ? store.read(getOrdinalRegistry().ordinalOf((String) key)) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public Atmosphereinfo remove(Object key) {
+            return key instanceof String ? store.remove(getOrdinalRegistry().ordinalOf((String) key)) : null;
+        }
+
+        @Override
+        public Set<Entry<String, Atmosphereinfo>> entrySet() {
+            return new AbstractSet<Entry<String, Atmosphereinfo>>() {
+
+                @Override
+                public Iterator<Entry<String, Atmosphereinfo>> iterator() {
+                    Iterator<String> codes = dataset.getAirportCatalog().getSnapshot().getIataCodes().iterator();
+                    return new Iterator<Entry<String, Atmosphereinfo>>() {
+
+                        private Entry<String, Atmosphereinfo> next = advance();
+
+                        private Entry<String, Atmosphereinfo> advance() {
+                            while (codes.hasNext()) {
+                                String iataCode = codes.next();
+                                Atmosphereinfo ai = get(iataCode);
+                                if (ai != null) return new SimpleImmutableEntry<>(iataCode, ai);
+                            }
+                            return null;
+                        }
+
+                        @Override
+                        public boolean hasNext() {
+                            return next != null;
+                        }
+
+                        @Override
+                        public Entry<String, Atmosphereinfo> next() {
+                            if (next == null) throw new NoSuchElementException();
+                            Entry<String, Atmosphereinfo> result = next;
+                            next = advance();
+                            return result;
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    int size = 0;
+                    for (Iterator<Entry<String, Atmosphereinfo>> it = iterator(); it.hasNext(); it.next()) {
+                        size++;
+                    }
+                    return size;
+                }
+            };
+        }
+
+    }
+
+}
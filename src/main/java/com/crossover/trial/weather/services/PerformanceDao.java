@@ -15,13 +15,20 @@ public interface PerformanceDao {
      */
     RequestFrequencyData getPerformanceData();
 
+    /**
+     * Get performance data that may be a little stale, it's rebuilt at most once per refresh period
+     *
+     * @return a holder object for performance data, the same instance until it's rebuilt
+     */
+    RequestFrequencyData getPerformanceSnapshot();
+
     /**
      * Record information about how often requests are made
      *
      * @param iata   an iata code
      * @param radius query radius
      */
-    void updateRequestFrequency(String iata, Double radius);
+    void updateRequestFrequency(String iata, double radius);
 
     /**
      * Reset performance data
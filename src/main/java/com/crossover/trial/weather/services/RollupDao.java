@@ -0,0 +1,30 @@
+package com.crossover.trial.weather.services;
+
+import com.crossover.trial.weather.models.DataPointType;
+import com.crossover.trial.weather.models.Resolution;
+import com.crossover.trial.weather.models.TimedDataPoint;
+
+import java.util.List;
+
+/**
+ * DAO for the aggregates of the data points of the airports over time buckets
+ */
+public interface RollupDao {
+
+    /**
+     * Find the aggregates of the recent buckets of an airport
+     *
+     * @param iataCode   the 3 letter airport code
+     * @param type       the point type
+     * @param resolution the bucket width
+     * @return the non-empty buckets from the oldest to the newest with their start times, an empty list for an
+     * unknown airport
+     */
+    List<TimedDataPoint> findRollup(String iataCode, DataPointType type, Resolution resolution);
+
+    /**
+     * Drop the aggregates of all airports
+     */
+    void clear();
+
+}
@@ -1,27 +1,119 @@
 package com.crossover.trial.weather.services;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import com.crossover.trial.weather.models.Airport;
-import com.crossover.trial.weather.models.Atmosphereinfo;
+import com.crossover.trial.weather.services.wal.AirportJournal;
+import com.crossover.trial.weather.utils.AirportSnapshot;
 import com.crossover.trial.weather.utils.Storage;
 
-import java.util.Map;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collection;
+import java.util.logging.Logger;
 
 /**
  * Implementation of the airport DAO using simple in-memory data storage
+ * <p>
+ * When {@code weather.wal.dir} is set the changes are journaled to that directory by an {@link AirportJournal}, and
+ * the storage is recovered from it at startup before any request is served. A change that can't be journaled fails.
+ * Only the storage is recovered, the listeners don't see the recovered changes, so the history and the rollups of
+ * the readings start empty.
  */
 @Service
 public class SimpleAirportDaoImpl extends AirportDaoImpl {
 
-    @Override
-    protected Map<String, Airport> getAirportDataStorage() {
-        return Storage.getAIRPORT_DATA();
+    private static final Logger LOGGER = Logger.getLogger(SimpleAirportDaoImpl.class.getName());
+
+    @Resource
+    private Storage storage;
+
+    /**
+     * directory of the journal, no journal if it's empty
+     */
+    @Value("${weather.wal.dir:}")
+    private String walDir;
+
+    @Value("${weather.wal.segmentBytes:67108864}")
+    private int walSegmentBytes;
+
+    /**
+     * period of the group commits of the journal
+     */
+    @Value("${weather.wal.syncMillis:10}")
+    private long walSyncMillis;
+
+    /**
+     * period of the snapshots of the storage
+     */
+    @Value("${weather.wal.snapshotMillis:600000}")
+    private long walSnapshotMillis;
+
+    private AirportJournal journal;
+
+    @PostConstruct
+    public void init() throws IOException {
+        if (walDir == null || walDir.trim().isEmpty()) return;
+
+        long start = System.currentTimeMillis();
+        journal = new AirportJournal(new File(walDir.trim()), walSegmentBytes, storage);
+        long records = journal.recover(new StorageWriter());
+        LOGGER.info("Recovered " + records + " changes from " + walDir + " in "
+                + (System.currentTimeMillis() - start) + " ms");
+        setJournal(journal);
+        journal.start(walSyncMillis, walSnapshotMillis);
+    }
+
+    @PreDestroy
+    public void close() {
+        if (journal != null) journal.close();
+    }
+
+    /**
+     * Write a snapshot of the storage to the journal now, so the next startup doesn't have to replay the changes made
+     * so far. Does nothing without a journal.
+     */
+    public void checkpoint() throws IOException {
+        if (journal != null) journal.checkpoint();
     }
 
     @Override
-    protected Map<String, Atmosphereinfo> getAtmosphericInformationDataStorage() {
-        return Storage.getATMOSPHERIC_INFORMATION();
+    protected Storage.Dataset getDataset() {
+        return storage.getDataset();
+    }
+
+    /**
+     * Replace all airports at once, queries see either the old or the new airports. The atmospheric information
+     * is dropped with the old airports. With a journal the new airports are written to a snapshot right away.
+     *
+     * @param airports the new airports
+     */
+    public void reload(Collection<Airport> airports) {
+        reload(AirportSnapshot.of(airports));
+    }
+
+    /**
+     * Replace all airports at once with the airports of a snapshot, its spatial index is used as it is
+     *
+     * @param snapshot the new airports
+     * @see #reload(Collection)
+     */
+    public void reload(AirportSnapshot snapshot) {
+        Storage.Dataset previous = storage.swap(new Storage.Dataset(snapshot));
+        previous.getAirportData().keySet().forEach(getOrdinalRegistry()::unregister);
+        storage.getDataset().getAirportData().keySet().forEach(getOrdinalRegistry()::register);
+        if (journal != null) {
+            try {
+                journal.checkpoint();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot journal the reloaded airports", e);
+            }
+        }
     }
 
 }
@@ -0,0 +1,115 @@
+package com.crossover.trial.weather.services;
+
+import com.crossover.trial.weather.models.DataPoint;
+import com.crossover.trial.weather.models.DataPointType;
+import com.crossover.trial.weather.models.TimedDataPoint;
+import com.crossover.trial.weather.utils.OrdinalRegistry;
+import com.crossover.trial.weather.utils.ReadingRing;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.Resource;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Implementation of the history DAO keeping a {@link ReadingRing} per airport and point type in memory
+ * <p>
+ * The rings are indexed by the airport ordinal and filled by the events of the airport DAO, so the history only holds
+ * the updates made through this node. A ring keeps the last {@code weather.history.capacity} readings, and readings
+ * older than {@code weather.history.retentionMillis} are left out of the queries.
+ * <p>
+ * A reading takes 32 bytes, a full ring of the default capacity about 2 KB, so about 12 KB per airport with all the
+ * point types updated and 120 MB for 10,000 airports. A day of minute readings, a capacity of 1440, takes 46 KB per
+ * ring and 2.7 GB for 10,000 airports. A capacity of 0 turns the history off.
+ */
+@Service
+public class SimpleHistoryDaoImpl implements HistoryDao, AirportDaoListener {
+
+    private static final DataPointType[] TYPES = DataPointType.values();
+
+    @Resource
+    private OrdinalRegistry ordinalRegistry;
+
+    /**
+     * the number of readings kept per airport and point type, an hour of readings collected every minute by default,
+     * 0 keeps no history
+     */
+    @Value("${weather.history.capacity:60}")
+    private int capacity;
+
+    @Value("${weather.history.retentionMillis:86400000}")
+    private long retentionMillis;
+
+    /**
+     * rings indexed by the airport ordinal and the point type, the array only grows
+     */
+    private volatile ReadingRing[][] rings = new ReadingRing[0][];
+
+    @Override
+    public List<TimedDataPoint> findHistory(String iataCode, DataPointType type, long from, long to) {
+        int ordinal = ordinalRegistry.ordinalOf(iataCode);
+        ReadingRing[][] current = rings;
+        if (type == null || ordinal < 0 || ordinal >= current.length) return Collections.emptyList();
+
+        long oldest = System.currentTimeMillis() - retentionMillis;
+        return current[ordinal][type.ordinal()].find(Math.max(from, oldest), to);
+    }
+
+    @Override
+    public void dataPointsUpdated(String iataCode, Map<DataPointType, DataPoint> dataPoints, long time) {
+        int ordinal = ordinalRegistry.ordinalOf(iataCode);
+        if (ordinal < 0 || capacity <= 0) return;
+
+        ReadingRing[][] current = rings;
+        ReadingRing[] airport = ordinal < current.length ? current[ordinal] : grow(ordinal);
+        for (Map.Entry<DataPointType, DataPoint> e : dataPoints.entrySet()) {
+            airport[e.getKey().ordinal()].add(time, e.getValue());
+        }
+    }
+
+    @Override
+    public void atmosphericInformationDeleted(String iataCode) {
+        int ordinal = ordinalRegistry.ordinalOf(iataCode);
+        ReadingRing[][] current = rings;
+        if (ordinal < 0 || ordinal >= current.length) return;
+
+        for (ReadingRing ring : current[ordinal]) {
+            ring.clear();
+        }
+    }
+
+    @Override
+    public void clear() {
+        for (ReadingRing[] airport : rings) {
+            for (ReadingRing ring : airport) {
+                ring.clear();
+            }
+        }
+    }
+
+    /**
+     * Make room for a new airport ordinal, the rings of the known ordinals are kept
+     *
+     * @return the rings of the ordinal
+     */
+    private synchronized ReadingRing[] grow(int ordinal) {
+        ReadingRing[][] current = rings;
+        if (ordinal >= current.length) {
+            int length = Math.max(ordinal + 1, Math.max(ordinalRegistry.size(), 2 * current.length));
+            ReadingRing[][] grown = Arrays.copyOf(current, length);
+            for (int i = current.length; i < length; i++) {
+                grown[i] = new ReadingRing[TYPES.length];
+                for (int t = 0; t < TYPES.length; t++) {
+                    grown[i][t] = new ReadingRing(capacity);
+                }
+            }
+            rings = current = grown;
+        }
+        return current[ordinal];
+    }
+
+}
@@ -1,115 +1,163 @@
 package com.crossover.trial.weather.services;
 
-import com.crossover.trial.weather.models.Airport;
-import com.crossover.trial.weather.models.Atmosphereinfo;
 import com.crossover.trial.weather.models.RequestFrequencyData;
-import com.crossover.trial.weather.utils.Storage;
+import com.crossover.trial.weather.utils.OrdinalRegistry;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import javax.annotation.Resource;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Implementation of the performance DAO using simple in-memory data storage
+ * <p>
+ * Requests are counted in {@link LongAdder}s indexed by the airport ordinal and by the radius, so recording a query
+ * takes no lock and allocates nothing once the airport has been counted before. The data size and the total number of
+ * requests are maintained incrementally, the ping payload is served from a snapshot.
  */
 @Service
 @Deprecated
 public class SimplePerformanceDaoImpl implements PerformanceDao {
 
+    /**
+     * all requests with a radius above it go to one counter. It's unusual to request radius > 1000.
+     */
+    private static final int MAX_RADIUS = 1000;
+
     @Resource
     private AirportDao airportDao;
+    @Resource
+    private OrdinalRegistry ordinalRegistry;
 
-    @Override
-    public void updateRequestFrequency(String iata, Double radius) {
-        Airport airportData = airportDao.findAirportData(iata);
+    /**
+     * how long a snapshot of the performance data is served
+     */
+    @Value("${weather.ping.refreshMillis:1000}")
+    private long refreshMillis;
 
-        if (airportData != null) {
-            AtomicInteger i = Storage.getREQUEST_FREQUENCY().get(airportData);
-            if (i == null) {
-                Storage.getREQUEST_FREQUENCY().putIfAbsent(airportData, new AtomicInteger(0));
-                i = Storage.getREQUEST_FREQUENCY().get(airportData);
+    private volatile Snapshot snapshot;
 
-            }
-            i.incrementAndGet();
+    private final LongAdder requests = new LongAdder();
 
-            // radius cannot be less than zero
-            if (radius < 0) radius = 0d;
-            // all request with radius above 1000 to one counter. It's unusual to request radius > 1000.
-            if (radius > 1000) radius = 1000d;
+    /**
+     * request counters indexed by the airport ordinal, the array only grows
+     */
+    private volatile LongAdder[] airportFrequency = newCounters(64);
 
-            i = Storage.getRADIUS_FREQUENCY().get(radius);
-            if (i == null) {
-                Storage.getRADIUS_FREQUENCY().putIfAbsent(radius, new AtomicInteger(0));
-                i = Storage.getRADIUS_FREQUENCY().get(radius);
-            }
-            i.incrementAndGet();
-        }
+    /**
+     * request counters indexed by the radius in KM
+     */
+    private final LongAdder[] radiusFrequency = newCounters(MAX_RADIUS + 1);
+
+    @Override
+    public void updateRequestFrequency(String iata, double radius) {
+        int ordinal = ordinalRegistry.ordinalOf(iata);
+        if (ordinal < 0) return;
+
+        LongAdder[] counters = airportFrequency;
+        (ordinal < counters.length ? counters[ordinal] : grow(ordinal)).increment();
+        requests.increment();
+
+        // radius cannot be less than zero
+        int bucket = radius > MAX_RADIUS ? MAX_RADIUS : radius > 0 ? (int) radius : 0;
+        radiusFrequency[bucket].increment();
     }
 
     @Override
     public RequestFrequencyData getPerformanceData() {
         RequestFrequencyData data = new RequestFrequencyData();
 
-        int dataSize = 0;
-        for (Atmosphereinfo ai : Storage.getATMOSPHERIC_INFORMATION().values()) {
-            // we only count recent readings
-            if (ai.getCloudCover() != null
-                    || ai.getHumidity() != null
-                    || ai.getPressure() != null
-                    || ai.getPrecipitation() != null
-                    || ai.getTemperature() != null
-                    || ai.getWind() != null) {
-                // updated in the last day
-                if (ai.getLastUpdateTime() > System.currentTimeMillis() - 86400000) {
-                    dataSize++;
-                }
-            }
-        }
+        data.setDataSize(airportDao.countRecentAtmosphericInformation());
 
-        data.setDataSize(dataSize);
+        LongAdder[] counters = airportFrequency;
+        long count = requests.sum();
 
         Map<String, Double> freq = new HashMap<>();
-
-        int count = 0;
-        for (AtomicInteger i : Storage.getREQUEST_FREQUENCY().values()) {
-            count += i.get();
-        }
-
         if (count > 0) {
-            for (Airport ad : Storage.getAIRPORT_DATA().values()) {
-                double frac = (double) Storage.getREQUEST_FREQUENCY().getOrDefault(ad, new AtomicInteger(0)).intValue() / count;
-                freq.put(ad.getIata(), frac);
+            for (String iata : airportDao.getAllAirportCodes()) {
+                int ordinal = ordinalRegistry.ordinalOf(iata);
+                long n = ordinal >= 0 && ordinal < counters.length ? counters[ordinal].sum() : 0;
+                freq.put(iata, (double) n / count);
             }
         }
 
         data.setAirportFrequency(freq);
 
-        int m = Storage.getRADIUS_FREQUENCY().keySet().stream()
-                .max(Double::compare)
-                .orElse(0d).intValue();
-
-        if (m < 0) m = 0;
-        if (m > 1000) m = 1000;
-
-        int[] hist = new int[m + 1];
-
-        for (Map.Entry<Double, AtomicInteger> e : Storage.getRADIUS_FREQUENCY().entrySet()) {
-            int i = e.getKey().intValue();
-            hist[i] = e.getValue().intValue();
+        int[] hist = new int[MAX_RADIUS + 1];
+        int length = 1;
+        for (int i = 0; i < hist.length; i++) {
+            hist[i] = radiusFrequency[i].intValue();
+            if (hist[i] != 0) length = i + 1;
         }
 
-        data.setRadiusFrequency(hist);
+        data.setRadiusFrequency(Arrays.copyOf(hist, length));
 
         return data;
     }
 
+    @Override
+    public RequestFrequencyData getPerformanceSnapshot() {
+        long now = System.currentTimeMillis();
+        Snapshot current = snapshot;
+        if (current == null || now - current.created >= refreshMillis) {
+            current = new Snapshot(getPerformanceData(), now);
+            snapshot = current;
+        }
+        return current.data;
+    }
+
     @Override
     public void clear() {
-        Storage.getRADIUS_FREQUENCY().clear();
-        Storage.getREQUEST_FREQUENCY().clear();
+        snapshot = null;
+        requests.reset();
+        for (LongAdder counter : radiusFrequency) {
+            counter.reset();
+        }
+        for (LongAdder counter : airportFrequency) {
+            counter.reset();
+        }
+    }
+
+    /**
+     * Make room for a new airport ordinal
+     *
+     * @return the counter of the ordinal
+     */
+    private synchronized LongAdder grow(int ordinal) {
+        LongAdder[] counters = airportFrequency;
+        if (ordinal >= counters.length) {
+            int length = Math.max(ordinal + 1, Math.max(ordinalRegistry.size(), 2 * counters.length));
+            LongAdder[] grown = Arrays.copyOf(counters, length);
+            for (int i = counters.length; i < length; i++) {
+                grown[i] = new LongAdder();
+            }
+            airportFrequency = counters = grown;
+        }
+        return counters[ordinal];
+    }
+
+    private static class Snapshot {
+
+        private final RequestFrequencyData data;
+        private final long created;
+
+        private Snapshot(RequestFrequencyData data, long created) {
+            this.data = data;
+            this.created = created;
+        }
+
+    }
+
+    private static LongAdder[] newCounters(int length) {
+        LongAdder[] counters = new LongAdder[length];
+        for (int i = 0; i < length; i++) {
+            counters[i] = new LongAdder();
+        }
+        return counters;
     }
 
 }
@@ -0,0 +1,135 @@
+package com.crossover.trial.weather.services;
+
+import com.crossover.trial.weather.models.DataPoint;
+import com.crossover.trial.weather.models.DataPointType;
+import com.crossover.trial.weather.models.Resolution;
+import com.crossover.trial.weather.models.TimedDataPoint;
+import com.crossover.trial.weather.utils.OrdinalRegistry;
+import com.crossover.trial.weather.utils.RollupRing;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.Resource;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Implementation of the rollup DAO folding every update into a {@link RollupRing} per airport, point type and
+ * resolution
+ * <p>
+ * The rings are indexed by the airport ordinal and filled by the events of the airport DAO as the readings come in,
+ * so a query only reads the buckets and the aggregates only cover the updates made through this node. The number of
+ * buckets kept per resolution is configurable, three hours of minutes, a week of hours and 90 days by default.
+ */
+@Service
+public class SimpleRollupDaoImpl implements RollupDao, AirportDaoListener {
+
+    private static final DataPointType[] TYPES = DataPointType.values();
+
+    private static final Resolution[] RESOLUTIONS = Resolution.values();
+
+    @Resource
+    private OrdinalRegistry ordinalRegistry;
+
+    @Value("${weather.rollup.minutes:180}")
+    private int minutes;
+
+    @Value("${weather.rollup.hours:168}")
+    private int hours;
+
+    @Value("${weather.rollup.days:90}")
+    private int days;
+
+    /**
+     * rings indexed by the airport ordinal and by the point type and resolution, the array only grows
+     */
+    private volatile RollupRing[][] rings = new RollupRing[0][];
+
+    @Override
+    public List<TimedDataPoint> findRollup(String iataCode, DataPointType type, Resolution resolution) {
+        int ordinal = ordinalRegistry.ordinalOf(iataCode);
+        RollupRing[][] current = rings;
+        if (type == null || resolution == null || ordinal < 0 || ordinal >= current.length) {
+            return Collections.emptyList();
+        }
+
+        return current[ordinal][indexOf(type, resolution)].find(System.currentTimeMillis());
+    }
+
+    @Override
+    public void dataPointsUpdated(String iataCode, Map<DataPointType, DataPoint> dataPoints, long time) {
+        int ordinal = ordinalRegistry.ordinalOf(iataCode);
+        if (ordinal < 0) return;
+
+        RollupRing[][] current = rings;
+        RollupRing[] airport = ordinal < current.length ? current[ordinal] : grow(ordinal);
+        for (Map.Entry<DataPointType, DataPoint> e : dataPoints.entrySet()) {
+            for (Resolution resolution : RESOLUTIONS) {
+                airport[indexOf(e.getKey(), resolution)].add(time, e.getValue());
+            }
+        }
+    }
+
+    @Override
+    public void atmosphericInformationDeleted(String iataCode) {
+        int ordinal = ordinalRegistry.ordinalOf(iataCode);
+        RollupRing[][] current = rings;
+        if (ordinal < 0 || ordinal >= current.length) return;
+
+        for (RollupRing ring : current[ordinal]) {
+            ring.clear();
+        }
+    }
+
+    @Override
+    public void clear() {
+        for (RollupRing[] airport : rings) {
+            for (RollupRing ring : airport) {
+                ring.clear();
+            }
+        }
+    }
+
+    private static int indexOf(DataPointType type, Resolution resolution) {
+        return type.ordinal() * RESOLUTIONS.length + resolution.ordinal();
+    }
+
+    private int capacityOf(Resolution resolution) {
+        switch (resolution) {
+            case MINUTE:
+                return minutes;
+            case HOUR:
+                return hours;
+            default:
+                return days;
+        }
+    }
+
+    /**
+     * Make room for a new airport ordinal, the rings of the known ordinals are kept
+     *
+     * @return the rings of the ordinal
+     */
+    private synchronized RollupRing[] grow(int ordinal) {
+        RollupRing[][] current = rings;
+        if (ordinal >= current.length) {
+            int length = Math.max(ordinal + 1, Math.max(ordinalRegistry.size(), 2 * current.length));
+            RollupRing[][] grown = Arrays.copyOf(current, length);
+            for (int i = current.length; i < length; i++) {
+                grown[i] = new RollupRing[TYPES.length * RESOLUTIONS.length];
+                for (DataPointType type : TYPES) {
+                    for (Resolution resolution : RESOLUTIONS) {
+                        grown[i][indexOf(type, resolution)] =
+                                new RollupRing(resolution.getMillis(), capacityOf(resolution));
+                    }
+                }
+            }
+            rings = current = grown;
+        }
+        return current[ordinal];
+    }
+
+}
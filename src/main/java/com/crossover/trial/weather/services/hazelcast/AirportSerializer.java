@@ -0,0 +1,38 @@
+package com.crossover.trial.weather.services.hazelcast;
+
+import com.crossover.trial.weather.models.Airport;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.StreamSerializer;
+
+import java.io.IOException;
+
+/**
+ * Writes an airport as its code and coordinates, the unit vector is derived again on read.
+ */
+public class AirportSerializer implements StreamSerializer<Airport> {
+
+    public static final int TYPE_ID = 2;
+
+    @Override
+    public int getTypeId() {
+        return TYPE_ID;
+    }
+
+    @Override
+    public void write(ObjectDataOutput out, Airport airport) throws IOException {
+        out.writeUTF(airport.getIata());
+        out.writeDouble(airport.getLatitude());
+        out.writeDouble(airport.getLongitude());
+    }
+
+    @Override
+    public Airport read(ObjectDataInput in) throws IOException {
+        return new Airport(in.readUTF(), in.readDouble(), in.readDouble());
+    }
+
+    @Override
+    public void destroy() {
+    }
+
+}
@@ -0,0 +1,90 @@
+package com.crossover.trial.weather.services.hazelcast;
+
+import com.crossover.trial.weather.models.Atmosphereinfo;
+import com.crossover.trial.weather.models.DataPoint;
+import com.crossover.trial.weather.models.DataPointType;
+import com.hazelcast.map.EntryBackupProcessor;
+import com.hazelcast.map.EntryProcessor;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Stores data points in the atmospheric information of an airport. It's executed by the partition owner
+ * and its backups, so the update doesn't need a get/replace round trip and never conflicts with updates of other
+ * point types. The result is the last update time before the update.
+ * <p>
+ * It's its own backup processor and is shipped as the data points and the time only.
+ */
+public class AtmosphereUpdateProcessor implements EntryProcessor<String, Atmosphereinfo>,
+        EntryBackupProcessor<String, Atmosphereinfo>, IdentifiedDataSerializable {
+
+    private static final long serialVersionUID = 2386475960154338412L;
+
+    private static final DataPointType[] TYPES = DataPointType.values();
+
+    private EnumMap<DataPointType, DataPoint> dataPoints;
+    private long time;
+
+    public AtmosphereUpdateProcessor() {
+    }
+
+    public AtmosphereUpdateProcessor(Map<DataPointType, DataPoint> dataPoints, long time) {
+        this.dataPoints = new EnumMap<>(dataPoints);
+        this.time = time;
+    }
+
+    @Override
+    public Object process(Map.Entry<String, Atmosphereinfo> entry) {
+        Atmosphereinfo ai = entry.getValue();
+        if (ai == null) ai = new Atmosphereinfo();
+        long previous = ai.update(dataPoints, time);
+        entry.setValue(ai);
+        return previous;
+    }
+
+    @Override
+    public void processBackup(Map.Entry<String, Atmosphereinfo> entry) {
+        process(entry);
+    }
+
+    @Override
+    public EntryBackupProcessor<String, Atmosphereinfo> getBackupProcessor() {
+        return this;
+    }
+
+    @Override
+    public int getFactoryId() {
+        return WeatherDataSerializableFactory.FACTORY_ID;
+    }
+
+    @Override
+    public int getId() {
+        return WeatherDataSerializableFactory.ATMOSPHERE_UPDATE_PROCESSOR;
+    }
+
+    @Override
+    public void writeData(ObjectDataOutput out) throws IOException {
+        out.writeLong(time);
+        out.writeByte(dataPoints.size());
+        for (Map.Entry<DataPointType, DataPoint> e : dataPoints.entrySet()) {
+            out.writeByte(e.getKey().ordinal());
+            DataPointSerializer.writeDataPoint(out, e.getValue());
+        }
+    }
+
+    @Override
+    public void readData(ObjectDataInput in) throws IOException {
+        time = in.readLong();
+        int size = in.readByte();
+        dataPoints = new EnumMap<>(DataPointType.class);
+        for (int i = 0; i < size; i++) {
+            dataPoints.put(TYPES[in.readByte()], DataPointSerializer.readDataPoint(in));
+        }
+    }
+
+}
@@ -0,0 +1,59 @@
+package com.crossover.trial.weather.services.hazelcast;
+
+import com.crossover.trial.weather.models.Atmosphereinfo;
+import com.crossover.trial.weather.models.DataPoint;
+import com.crossover.trial.weather.models.DataPointType;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.StreamSerializer;
+
+import java.io.IOException;
+
+/**
+ * Writes the atmospheric information as a bit mask of the present point types, their data points and the last
+ * update time.
+ */
+public class AtmosphereinfoSerializer implements StreamSerializer<Atmosphereinfo> {
+
+    public static final int TYPE_ID = 3;
+
+    private static final DataPointType[] TYPES = DataPointType.values();
+
+    @Override
+    public int getTypeId() {
+        return TYPE_ID;
+    }
+
+    @Override
+    public void write(ObjectDataOutput out, Atmosphereinfo ai) throws IOException {
+        DataPoint[] dataPoints = new DataPoint[TYPES.length];
+        int mask = 0;
+        for (DataPointType type : TYPES) {
+            dataPoints[type.ordinal()] = ai.getDataPoint(type);
+            if (dataPoints[type.ordinal()] != null) mask |= 1 << type.ordinal();
+        }
+        out.writeByte(mask);
+        for (DataPoint dp : dataPoints) {
+            if (dp != null) DataPointSerializer.writeDataPoint(out, dp);
+        }
+        out.writeLong(ai.getLastUpdateTime());
+    }
+
+    @Override
+    public Atmosphereinfo read(ObjectDataInput in) throws IOException {
+        Atmosphereinfo ai = new Atmosphereinfo();
+        int mask = in.readByte();
+        for (DataPointType type : TYPES) {
+            if ((mask & 1 << type.ordinal()) != 0) {
+                ai.setDataPoint(type, DataPointSerializer.readDataPoint(in));
+            }
+        }
+        ai.setLastUpdateTime(in.readLong());
+        return ai;
+    }
+
+    @Override
+    public void destroy() {
+    }
+
+}
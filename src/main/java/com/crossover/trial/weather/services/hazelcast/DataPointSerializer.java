@@ -0,0 +1,54 @@
+package com.crossover.trial.weather.services.hazelcast;
+
+import com.crossover.trial.weather.models.DataPoint;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.StreamSerializer;
+
+import java.io.IOException;
+
+/**
+ * Writes a data point as its five numbers, 24 bytes instead of a java serialization stream with a class descriptor.
+ */
+public class DataPointSerializer implements StreamSerializer<DataPoint> {
+
+    public static final int TYPE_ID = 1;
+
+    @Override
+    public int getTypeId() {
+        return TYPE_ID;
+    }
+
+    @Override
+    public void write(ObjectDataOutput out, DataPoint dp) throws IOException {
+        writeDataPoint(out, dp);
+    }
+
+    @Override
+    public DataPoint read(ObjectDataInput in) throws IOException {
+        return readDataPoint(in);
+    }
+
+    @Override
+    public void destroy() {
+    }
+
+    static void writeDataPoint(ObjectDataOutput out, DataPoint dp) throws IOException {
+        out.writeDouble(dp.getMean());
+        out.writeInt(dp.getFirst());
+        out.writeInt(dp.getSecond());
+        out.writeInt(dp.getThird());
+        out.writeInt(dp.getCount());
+    }
+
+    static DataPoint readDataPoint(ObjectDataInput in) throws IOException {
+        DataPoint dp = new DataPoint();
+        dp.setMean(in.readDouble());
+        dp.setFirst(in.readInt());
+        dp.setSecond(in.readInt());
+        dp.setThird(in.readInt());
+        dp.setCount(in.readInt());
+        return dp;
+    }
+
+}
@@ -0,0 +1,92 @@
+package com.crossover.trial.weather.services.hazelcast;
+
+import com.crossover.trial.weather.models.Atmosphereinfo;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.HazelcastInstanceAware;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
+import com.hazelcast.query.Predicate;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+/**
+ * Counts the atmospheric information owned by the member it runs on that was updated since the given time. Submitted
+ * to all members, the counts add up to the count of the cluster without moving any record over the network.
+ */
+public class RecentUpdateCounter implements Callable<Long>, HazelcastInstanceAware, IdentifiedDataSerializable {
+
+    private String mapName;
+    private long since;
+
+    private transient HazelcastInstance hazelcastInstance;
+
+    public RecentUpdateCounter() {
+    }
+
+    /**
+     * @param mapName name of the map of the atmospheric information
+     * @param since   in milliseconds since UTC epoch, only later updates are counted
+     */
+    public RecentUpdateCounter(String mapName, long since) {
+        this.mapName = mapName;
+        this.since = since;
+    }
+
+    @Override
+    public Long call() {
+        return (long) hazelcastInstance.<String, Atmosphereinfo>getMap(mapName)
+                .localKeySet(new UpdatedSince(since)).size();
+    }
+
+    @Override
+    public void setHazelcastInstance(HazelcastInstance hazelcastInstance) {
+        this.hazelcastInstance = hazelcastInstance;
+    }
+
+    @Override
+    public int getFactoryId() {
+        return WeatherDataSerializableFactory.FACTORY_ID;
+    }
+
+    @Override
+    public int getId() {
+        return WeatherDataSerializableFactory.RECENT_UPDATE_COUNTER;
+    }
+
+    @Override
+    public void writeData(ObjectDataOutput out) throws IOException {
+        out.writeUTF(mapName);
+        out.writeLong(since);
+    }
+
+    @Override
+    public void readData(ObjectDataInput in) throws IOException {
+        mapName = in.readUTF();
+        since = in.readLong();
+    }
+
+    /**
+     * Evaluated on the member that owns the records, the map keeps them as objects so nothing is deserialized
+     */
+    private static final class UpdatedSince implements Predicate<String, Atmosphereinfo> {
+
+        private static final long serialVersionUID = -4326570954436734019L;
+
+        private final long since;
+
+        private UpdatedSince(long since) {
+            this.since = since;
+        }
+
+        @Override
+        public boolean apply(Map.Entry<String, Atmosphereinfo> entry) {
+            Atmosphereinfo ai = entry.getValue();
+            return ai != null && ai.getLastUpdateTime() > since;
+        }
+
+    }
+
+}
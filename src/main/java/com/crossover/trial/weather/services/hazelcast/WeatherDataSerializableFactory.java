@@ -0,0 +1,29 @@
+package com.crossover.trial.weather.services.hazelcast;
+
+import com.hazelcast.nio.serialization.DataSerializableFactory;
+import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
+
+/**
+ * Creates the {@link IdentifiedDataSerializable}s of the weather service by id, without reflection.
+ */
+public class WeatherDataSerializableFactory implements DataSerializableFactory {
+
+    public static final int FACTORY_ID = 1;
+
+    public static final int ATMOSPHERE_UPDATE_PROCESSOR = 1;
+
+    public static final int RECENT_UPDATE_COUNTER = 2;
+
+    @Override
+    public IdentifiedDataSerializable create(int typeId) {
+        switch (typeId) {
+            case ATMOSPHERE_UPDATE_PROCESSOR:
+                return new AtmosphereUpdateProcessor();
+            case RECENT_UPDATE_COUNTER:
+                return new RecentUpdateCounter();
+            default:
+                return null;
+        }
+    }
+
+}
@@ -0,0 +1,34 @@
+package com.crossover.trial.weather.services.hazelcast;
+
+import com.crossover.trial.weather.models.Airport;
+import com.crossover.trial.weather.models.Atmosphereinfo;
+import com.crossover.trial.weather.models.DataPoint;
+import com.hazelcast.config.SerializationConfig;
+import com.hazelcast.config.SerializerConfig;
+
+/**
+ * Registers the compact serializers of the models and the data serializable factory of the weather service. The
+ * same registrations are declared in weatherCastContext.xml, this is for members configured in code.
+ */
+public final class WeatherSerialization {
+
+    private WeatherSerialization() {
+    }
+
+    /**
+     * @param config the serialization config of a member or a client
+     * @return the config
+     */
+    public static SerializationConfig configure(SerializationConfig config) {
+        config.addSerializerConfig(new SerializerConfig()
+                .setTypeClass(DataPoint.class).setImplementation(new DataPointSerializer()));
+        config.addSerializerConfig(new SerializerConfig()
+                .setTypeClass(Airport.class).setImplementation(new AirportSerializer()));
+        config.addSerializerConfig(new SerializerConfig()
+                .setTypeClass(Atmosphereinfo.class).setImplementation(new AtmosphereinfoSerializer()));
+        config.addDataSerializableFactory(WeatherDataSerializableFactory.FACTORY_ID,
+                new WeatherDataSerializableFactory());
+        return config;
+    }
+
+}
@@ -0,0 +1,191 @@
+package com.crossover.trial.weather.services.offheap;
+
+import com.crossover.trial.weather.models.Atmosphereinfo;
+import com.crossover.trial.weather.models.DataPoint;
+import com.crossover.trial.weather.models.DataPointType;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Atmospheric information of all airports in direct memory, indexed by the airport ordinal and the point type.
+ * <p>
+ * Ordinals are grouped in segments of {@link #SEGMENT_SIZE}. A segment is one direct buffer with a column per field
+ * of the data point, plus the present point types and the last update time of every airport, so the heap only holds
+ * one buffer object per segment however many readings are stored. Writers lock a stripe of the ordinals, readers
+ * copy the record out optimistically and retry under the read lock if a writer got in the way.
+ */
+public class OffHeapAtmosphereStore {
+
+    public static final int SEGMENT_SIZE = 1024;
+
+    private static final int TYPES = DataPointType.values().length;
+
+    private static final DataPointType[] TYPE_VALUES = DataPointType.values();
+
+    private static final int SLOTS = SEGMENT_SIZE * TYPES;
+
+    /**
+     * column offsets within a segment
+     */
+    private static final int MEAN = 0;
+    private static final int FIRST = MEAN + SLOTS * Double.BYTES;
+    private static final int SECOND = FIRST + SLOTS * Integer.BYTES;
+    private static final int THIRD = SECOND + SLOTS * Integer.BYTES;
+    private static final int COUNT = THIRD + SLOTS * Integer.BYTES;
+    private static final int LAST_UPDATE = COUNT + SLOTS * Integer.BYTES;
+    private static final int PRESENT = LAST_UPDATE + SEGMENT_SIZE * Long.BYTES;
+    private static final int SEGMENT_BYTES = PRESENT + SEGMENT_SIZE;
+
+    private static final int STRIPES = 64;
+
+    private final StampedLock[] locks = new StampedLock[STRIPES];
+
+    /**
+     * the array only grows, a segment is allocated before it's published
+     */
+    private volatile ByteBuffer[] segments = new ByteBuffer[0];
+
+    public OffHeapAtmosphereStore() {
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new StampedLock();
+        }
+    }
+
+    /**
+     * Store data points and move the last update time forward
+     *
+     * @param ordinal    of the airport
+     * @param dataPoints the data points by their point type
+     * @param time       of the update in milliseconds since UTC epoch
+     * @return the last update time before this update, 0 if the airport had no atmospheric information
+     */
+    public long update(int ordinal, Map<DataPointType, DataPoint> dataPoints, long time) {
+        ByteBuffer segment = segmentFor(ordinal);
+        int local = ordinal % SEGMENT_SIZE;
+        StampedLock lock = lockOf(ordinal);
+        long stamp = lock.writeLock();
+        try {
+            int present = segment.get(PRESENT + local);
+            for (Map.Entry<DataPointType, DataPoint> e : dataPoints.entrySet()) {
+                int type = e.getKey().ordinal();
+                int slot = local * TYPES + type;
+                DataPoint dp = e.getValue();
+                segment.putDouble(MEAN + slot * Double.BYTES, dp.getMean());
+                segment.putInt(FIRST + slot * Integer.BYTES, dp.getFirst());
+                segment.putInt(SECOND + slot * Integer.BYTES, dp.getSecond());
+                segment.putInt(THIRD + slot * Integer.BYTES, dp.getThird());
+                segment.putInt(COUNT + slot * Integer.BYTES, dp.getCount());
+                present |= 1 << type;
+            }
+            segment.put(PRESENT + local, (byte) present);
+            long previous = segment.getLong(LAST_UPDATE + local * Long.BYTES);
+            segment.putLong(LAST_UPDATE + local * Long.BYTES, Math.max(previous, time));
+            return previous;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * @param ordinal of the airport
+     * @return a copy of the atmospheric information or null if there is none
+     */
+    public Atmosphereinfo read(int ordinal) {
+        ByteBuffer[] current = segments;
+        if (ordinal < 0 || ordinal / SEGMENT_SIZE >= current.length) return null;
+        ByteBuffer segment = current[ordinal / SEGMENT_SIZE];
+        int local = ordinal % SEGMENT_SIZE;
+
+        StampedLock lock = lockOf(ordinal);
+        long stamp = lock.tryOptimisticRead();
+        Atmosphereinfo ai = copy(segment, local);
+        if (lock.validate(stamp)) return ai;
+
+        stamp = lock.readLock();
+        try {
+            return copy(segment, local);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * @param ordinal of the airport
+     * @return the removed atmospheric information or null if there was none
+     */
+    public Atmosphereinfo remove(int ordinal) {
+        ByteBuffer[] current = segments;
+        if (ordinal < 0 || ordinal / SEGMENT_SIZE >= current.length) return null;
+        ByteBuffer segment = current[ordinal / SEGMENT_SIZE];
+        int local = ordinal % SEGMENT_SIZE;
+
+        StampedLock lock = lockOf(ordinal);
+        long stamp = lock.writeLock();
+        try {
+            Atmosphereinfo ai = copy(segment, local);
+            segment.put(PRESENT + local, (byte) 0);
+            segment.putLong(LAST_UPDATE + local * Long.BYTES, 0);
+            return ai;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * @return bytes of direct memory held by the store
+     */
+    public long getCapacityBytes() {
+        return (long) segments.length * SEGMENT_BYTES;
+    }
+
+    private static Atmosphereinfo copy(ByteBuffer segment, int local) {
+        int present = segment.get(PRESENT + local);
+        if (present == 0) return null;
+        Atmosphereinfo ai = new Atmosphereinfo();
+        for (int type = 0; type < TYPES; type++) {
+            if ((present & 1 << type) == 0) continue;
+            int slot = local * TYPES + type;
+            DataPoint dp = new DataPoint();
+            dp.setMean(segment.getDouble(MEAN + slot * Double.BYTES));
+            dp.setFirst(segment.getInt(FIRST + slot * Integer.BYTES));
+            dp.setSecond(segment.getInt(SECOND + slot * Integer.BYTES));
+            dp.setThird(segment.getInt(THIRD + slot * Integer.BYTES));
+            dp.setCount(segment.getInt(COUNT + slot * Integer.BYTES));
+            ai.setDataPoint(TYPE_VALUES[type], dp);
+        }
+        ai.setLastUpdateTime(segment.getLong(LAST_UPDATE + local * Long.BYTES));
+        return ai;
+    }
+
+    private StampedLock lockOf(int ordinal) {
+        return locks[ordinal & (STRIPES - 1)];
+    }
+
+    private ByteBuffer segmentFor(int ordinal) {
+        if (ordinal < 0) throw new IllegalArgumentException("Negative ordinal " + ordinal);
+        ByteBuffer[] current = segments;
+        int index = ordinal / SEGMENT_SIZE;
+        return index < current.length ? current[index] : grow(index);
+    }
+
+    /**
+     * Allocate the segments up to the given one
+     *
+     * @return the segment
+     */
+    private synchronized ByteBuffer grow(int index) {
+        ByteBuffer[] current = segments;
+        if (index >= current.length) {
+            ByteBuffer[] grown = Arrays.copyOf(current, index + 1);
+            for (int i = current.length; i < grown.length; i++) {
+                grown[i] = ByteBuffer.allocateDirect(SEGMENT_BYTES);
+            }
+            segments = current = grown;
+        }
+        return current[index];
+    }
+
+}
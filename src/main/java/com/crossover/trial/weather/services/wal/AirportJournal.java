@@ -0,0 +1,436 @@
+package com.crossover.trial.weather.services.wal;
+
+import com.crossover.trial.weather.models.Airport;
+import com.crossover.trial.weather.models.Atmosphereinfo;
+import com.crossover.trial.weather.models.DataPoint;
+import com.crossover.trial.weather.models.DataPointType;
+import com.crossover.trial.weather.services.AirportDaoListener;
+import com.crossover.trial.weather.utils.Storage;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Durable copy of the changes of an airport DAO on the disk: a {@link WriteAheadLog} of the changes plus periodic
+ * snapshots of the whole {@link Storage}.
+ * <p>
+ * Every change is one record of the log, appended by the thread making the change after it has been applied. A
+ * background thread forces the log to the disk every few milliseconds, so the changes are group-committed without
+ * slowing down the ingest path, and a power failure loses at most the last sync period. A crash of the process alone
+ * loses nothing, the mapped segments are in the page cache.
+ * <p>
+ * A checkpoint starts a new log segment, writes the storage to a snapshot numbered after it and, once the snapshot is
+ * on the disk and verified, drops the segments and snapshots before the previous snapshot. Changes made while the
+ * snapshot is written are in both the snapshot and the new segment, which is fine since replaying a change stores the
+ * same values again, the recovered changes are applied to the storage only and never counted. Recovery reads the latest readable snapshot, falling back to the previous one whose log is still
+ * there, and the log from its segment on, and hands the changes to a listener in the order they were made. Recovery
+ * fails if no snapshot can be read and the log doesn't go back to the start.
+ * <p>
+ * Concurrent updates of the same point type of an airport may be logged in another order than they were applied, the
+ * recovered data point is then the one of the other update.
+ */
+public class AirportJournal implements AirportDaoListener {
+
+    private static final Logger LOGGER = Logger.getLogger(AirportJournal.class.getName());
+
+    private static final Pattern SNAPSHOT = Pattern.compile("snapshot-(\\d{16})\\.bin");
+
+    private static final int SNAPSHOT_MAGIC = 0x57534e31;
+
+    private static final DataPointType[] TYPES = DataPointType.values();
+
+    /**
+     * record and snapshot entry types
+     */
+    private static final byte END = 0;
+    private static final byte AIRPORT_SAVED = 1;
+    private static final byte AIRPORT_DELETED = 2;
+    private static final byte DATA_POINTS_UPDATED = 3;
+    private static final byte ATMOSPHERIC_INFORMATION_DELETED = 4;
+
+    private final File dir;
+
+    private final Storage storage;
+
+    private final WriteAheadLog log;
+
+    private volatile ScheduledExecutorService scheduler;
+
+    /**
+     * @param dir          directory of the log and the snapshots, it's created if needed
+     * @param segmentBytes size of a log segment
+     * @param storage      the storage the snapshots are taken of
+     */
+    public AirportJournal(File dir, int segmentBytes, Storage storage) {
+        this.dir = dir;
+        this.storage = storage;
+        this.log = new WriteAheadLog(dir, segmentBytes);
+    }
+
+    /**
+     * Replay the latest snapshot and the log after it, then open a new log segment for the changes to come
+     *
+     * @param target receives the recovered changes, in the order they were made, a change may be received twice
+     * @return the number of replayed records and snapshot entries
+     */
+    public long recover(AirportDaoListener target) throws IOException {
+        long[] count = {0};
+        List<Long> snapshots = getSnapshots();
+        long snapshot = -1;
+        for (int i = snapshots.size() - 1; i >= 0 && snapshot < 0; i--) {
+            File file = fileOf(snapshots.get(i));
+            try {
+                count[0] += readSnapshot(file, target);
+                snapshot = snapshots.get(i);
+            } catch (IOException e) {
+                LOGGER.log(Level.SEVERE, "Cannot read the snapshot " + file + ", falling back to the previous one", e);
+                // kept for a look but set aside, the next checkpoint must not take it for the previous snapshot
+                File damaged = new File(dir, file.getName() + ".damaged");
+                if (!file.renameTo(damaged)) LOGGER.warning("Cannot rename " + file + " to " + damaged);
+            }
+        }
+
+        // the log has to go on from the snapshot, or from the very start without one
+        List<Long> segments = log.getSegments();
+        long from = Math.max(snapshot, 0);
+        if ((!segments.isEmpty() && segments.get(0) > from)
+                || (snapshot < 0 && !snapshots.isEmpty() && segments.isEmpty())) {
+            throw new IOException("No snapshot in " + dir + " can be read together with the log after it");
+        }
+
+        long last = log.replay(from, payload -> {
+            replay(payload, target);
+            count[0]++;
+        });
+        log.open(Math.max(last, snapshots.isEmpty() ? -1 : snapshots.get(snapshots.size() - 1)) + 1);
+        return count[0];
+    }
+
+    /**
+     * Start the background thread forcing the log to the disk and taking the snapshots
+     *
+     * @param syncMillis     period of the group commits
+     * @param snapshotMillis period of the checkpoints, no checkpoints if it's not positive
+     */
+    public void start(long syncMillis, long snapshotMillis) {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "airport-journal");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(log::sync, syncMillis, syncMillis, TimeUnit.MILLISECONDS);
+        if (snapshotMillis > 0) {
+            scheduler.scheduleWithFixedDelay(() -> {
+                try {
+                    checkpoint();
+                } catch (IOException | RuntimeException e) {
+                    LOGGER.log(Level.SEVERE, "Cannot write a snapshot to " + dir, e);
+                }
+            }, snapshotMillis, snapshotMillis, TimeUnit.MILLISECONDS);
+        }
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Write a snapshot of the storage and drop the log before the previous snapshot, which stays a fallback until the
+     * next checkpoint
+     */
+    public synchronized void checkpoint() throws IOException {
+        List<Long> snapshots = getSnapshots();
+        long sequence = log.roll();
+        File tmp = new File(dir, "snapshot.tmp");
+        try (FileOutputStream file = new FileOutputStream(tmp)) {
+            CheckedOutputStream checked = new CheckedOutputStream(new BufferedOutputStream(file), new CRC32());
+            DataOutputStream out = new DataOutputStream(checked);
+            writeSnapshot(storage.getDataset(), out);
+            out.flush();
+            out.writeLong(checked.getChecksum().getValue());
+            out.flush();
+            file.getFD().sync();
+        }
+        Files.move(tmp.toPath(), fileOf(sequence).toPath(), StandardCopyOption.ATOMIC_MOVE);
+        syncDirectory();
+        try {
+            verify(fileOf(sequence));
+        } catch (IOException e) {
+            if (!fileOf(sequence).delete()) LOGGER.warning("Cannot delete " + fileOf(sequence));
+            throw e;
+        }
+
+        if (snapshots.isEmpty()) return;
+        long previous = snapshots.get(snapshots.size() - 1);
+        for (long s : snapshots) {
+            if (s < previous && !fileOf(s).delete()) LOGGER.warning("Cannot delete " + fileOf(s));
+        }
+        log.deleteBefore(previous);
+    }
+
+    /**
+     * Stop the background thread and force the log to the disk
+     */
+    public void close() {
+        ScheduledExecutorService scheduler = this.scheduler;
+        if (scheduler != null) {
+            scheduler.shutdown();
+            try {
+                scheduler.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        log.close();
+    }
+
+    @Override
+    public void airportsSaved(Collection<Airport> airports) {
+        for (Airport ad : airports) {
+            append(buffer -> {
+                buffer.put(AIRPORT_SAVED);
+                putString(buffer, ad.getIata());
+                buffer.putDouble(ad.getLatitude());
+                buffer.putDouble(ad.getLongitude());
+            });
+        }
+    }
+
+    @Override
+    public void airportDeleted(String iataCode) {
+        append(buffer -> {
+            buffer.put(AIRPORT_DELETED);
+            putString(buffer, iataCode);
+        });
+    }
+
+    @Override
+    public void dataPointsUpdated(String iataCode, Map<DataPointType, DataPoint> dataPoints, long time) {
+        append(buffer -> {
+            buffer.put(DATA_POINTS_UPDATED);
+            putString(buffer, iataCode);
+            buffer.putLong(time);
+            buffer.put((byte) dataPoints.size());
+            for (Map.Entry<DataPointType, DataPoint> e : dataPoints.entrySet()) {
+                buffer.put((byte) e.getKey().ordinal());
+                DataPoint dp = e.getValue();
+                buffer.putDouble(dp.getMean());
+                buffer.putInt(dp.getFirst());
+                buffer.putInt(dp.getSecond());
+                buffer.putInt(dp.getThird());
+                buffer.putInt(dp.getCount());
+            }
+        });
+    }
+
+    @Override
+    public void atmosphericInformationDeleted(String iataCode) {
+        append(buffer -> {
+            buffer.put(ATMOSPHERIC_INFORMATION_DELETED);
+            putString(buffer, iataCode);
+        });
+    }
+
+    private void append(Consumer<ByteBuffer> encoder) {
+        try {
+            log.append(encoder);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot append to the log in " + dir, e);
+        }
+    }
+
+    private static void replay(ByteBuffer payload, AirportDaoListener target) {
+        byte type = payload.get();
+        String iataCode = getString(payload);
+        switch (type) {
+            case AIRPORT_SAVED:
+                Airport ad = new Airport(iataCode, payload.getDouble(), payload.getDouble());
+                target.airportsSaved(Collections.singletonList(ad));
+                break;
+            case AIRPORT_DELETED:
+                target.airportDeleted(iataCode);
+                break;
+            case DATA_POINTS_UPDATED:
+                long time = payload.getLong();
+                int size = payload.get();
+                Map<DataPointType, DataPoint> dataPoints = new EnumMap<>(DataPointType.class);
+                for (int i = 0; i < size; i++) {
+                    DataPointType pointType = TYPES[payload.get()];
+                    DataPoint dp = new DataPoint();
+                    dp.setMean(payload.getDouble());
+                    dp.setFirst(payload.getInt());
+                    dp.setSecond(payload.getInt());
+                    dp.setThird(payload.getInt());
+                    dp.setCount(payload.getInt());
+                    dataPoints.put(pointType, dp);
+                }
+                target.dataPointsUpdated(iataCode, dataPoints, time);
+                break;
+            case ATMOSPHERIC_INFORMATION_DELETED:
+                target.atmosphericInformationDeleted(iataCode);
+                break;
+            default:
+                LOGGER.severe("Unknown record type " + type);
+        }
+    }
+
+    private static void writeSnapshot(Storage.Dataset dataset, DataOutputStream out) throws IOException {
+        out.writeInt(SNAPSHOT_MAGIC);
+        for (Airport ad : dataset.getAirportData().values()) {
+            out.writeByte(AIRPORT_SAVED);
+            out.writeUTF(ad.getIata());
+            out.writeDouble(ad.getLatitude());
+            out.writeDouble(ad.getLongitude());
+        }
+        for (Map.Entry<String, Atmosphereinfo> e : dataset.getAtmosphericInformation().entrySet()) {
+            Atmosphereinfo ai = e.getValue();
+            out.writeByte(DATA_POINTS_UPDATED);
+            out.writeUTF(e.getKey());
+            out.writeLong(ai.getLastUpdateTime());
+            for (DataPointType type : TYPES) {
+                DataPoint dp = ai.getDataPoint(type);
+                if (dp == null) continue;
+                out.writeByte(type.ordinal());
+                out.writeDouble(dp.getMean());
+                out.writeInt(dp.getFirst());
+                out.writeInt(dp.getSecond());
+                out.writeInt(dp.getThird());
+                out.writeInt(dp.getCount());
+            }
+            out.writeByte(-1);
+        }
+        out.writeByte(END);
+    }
+
+    /**
+     * @return the number of entries read
+     * @throws IOException if the snapshot is damaged, it's verified before any entry is handed to the target
+     */
+    private static long readSnapshot(File file, AirportDaoListener target) throws IOException {
+        try {
+            verify(file);
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+                if (in.readInt() != SNAPSHOT_MAGIC) throw new IOException("Not a snapshot");
+
+                long count = 0;
+                List<Airport> airports = new ArrayList<>();
+                for (byte type = in.readByte(); type != END; type = in.readByte(), count++) {
+                    String iataCode = in.readUTF();
+                    if (type == AIRPORT_SAVED) {
+                        airports.add(new Airport(iataCode, in.readDouble(), in.readDouble()));
+                        continue;
+                    }
+                    if (type != DATA_POINTS_UPDATED) throw new IOException("Unknown entry type " + type);
+
+                    // the airports come first, they're saved together before their atmospheric information
+                    if (!airports.isEmpty()) {
+                        target.airportsSaved(airports);
+                        airports = new ArrayList<>();
+                    }
+                    long time = in.readLong();
+                    Map<DataPointType, DataPoint> dataPoints = new EnumMap<>(DataPointType.class);
+                    for (int t = in.readByte(); t >= 0; t = in.readByte()) {
+                        DataPoint dp = new DataPoint();
+                        dp.setMean(in.readDouble());
+                        dp.setFirst(in.readInt());
+                        dp.setSecond(in.readInt());
+                        dp.setThird(in.readInt());
+                        dp.setCount(in.readInt());
+                        dataPoints.put(TYPES[t], dp);
+                    }
+                    target.dataPointsUpdated(iataCode, dataPoints, time);
+                }
+                if (!airports.isEmpty()) target.airportsSaved(airports);
+                return count;
+            }
+        } catch (RuntimeException e) {
+            throw new IOException("Cannot read the snapshot " + file, e);
+        }
+    }
+
+    /**
+     * Check the checksum at the end of a snapshot, so a damaged snapshot isn't replayed at all
+     */
+    private static void verify(File file) throws IOException {
+        long length = file.length() - Long.BYTES;
+        if (length < Integer.BYTES) throw new IOException("Truncated snapshot");
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            CRC32 crc = new CRC32();
+            byte[] chunk = new byte[8192];
+            for (long left = length; left > 0; ) {
+                int n = (int) Math.min(chunk.length, left);
+                in.readFully(chunk, 0, n);
+                crc.update(chunk, 0, n);
+                left -= n;
+            }
+            if (in.readLong() != crc.getValue()) throw new IOException("Wrong checksum");
+        }
+    }
+
+    /**
+     * Force the rename of a snapshot to the disk, before the log it replaces is deleted
+     */
+    private void syncDirectory() {
+        try (FileChannel channel = FileChannel.open(dir.toPath(), StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // not every platform can open a directory
+            LOGGER.log(Level.FINE, "Cannot sync " + dir, e);
+        }
+    }
+
+    private List<Long> getSnapshots() {
+        List<Long> result = new ArrayList<>();
+        String[] names = dir.list();
+        if (names == null) return result;
+        for (String name : names) {
+            Matcher m = SNAPSHOT.matcher(name);
+            if (m.matches()) result.add(Long.parseLong(m.group(1)));
+        }
+        Collections.sort(result);
+        return result;
+    }
+
+    private File fileOf(long sequence) {
+        return new File(dir, String.format("snapshot-%016d.bin", sequence));
+    }
+
+    private static void putString(ByteBuffer buffer, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+}
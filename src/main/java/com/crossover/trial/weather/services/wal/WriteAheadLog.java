@@ -0,0 +1,370 @@
+package com.crossover.trial.weather.services.wal;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of records in memory-mapped segment files of a fixed size.
+ * <p>
+ * A record is its length, the CRC32 of its payload and the payload. Appending copies the record into the mapped
+ * segment, which the operating system writes back on its own, so a crash of the process loses nothing but the
+ * records being appended, and the ones after them in the segment. The segment is forced to the disk by {@link #sync()},
+ * called periodically to commit all the records appended in the meantime at once. Segments are preallocated with
+ * zeros, a zero length or a wrong checksum marks the end of a segment written before a crash.
+ * <p>
+ * Appending takes no lock: each thread encodes its record into its own buffer, claims the space for it by a CAS on
+ * the position of the segment and copies it there, the length last. Only the thread finding the segment full takes the
+ * lock to switch to the next one, which a background thread has already created and mapped.
+ * <p>
+ * Segments are numbered, {@link #roll()} starts the next one so the older ones can be dropped once their records are
+ * covered by a snapshot.
+ */
+public class WriteAheadLog {
+
+    private static final Logger LOGGER = Logger.getLogger(WriteAheadLog.class.getName());
+
+    private static final Pattern SEGMENT = Pattern.compile("wal-(\\d{16})\\.log");
+
+    private static final int HEADER = 2 * Integer.BYTES;
+
+    /**
+     * the largest payload of a record
+     */
+    private static final int MAX_RECORD = 4096;
+
+    private final File dir;
+
+    private final int segmentBytes;
+
+    /**
+     * the buffer each appending thread encodes its records into
+     */
+    private final ThreadLocal<ByteBuffer> scratch = ThreadLocal.withInitial(() -> ByteBuffer.allocate(MAX_RECORD));
+
+    /**
+     * creates and maps the next segment while the current one is being filled
+     */
+    private final ExecutorService preallocator = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "wal-preallocator");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile Segment segment;
+
+    /**
+     * the segment after the current one, guarded by this
+     */
+    private Future<Segment> next;
+
+    /**
+     * full segments that haven't been forced to the disk since their last record was copied, guarded by this
+     */
+    private List<Segment> rolled = new ArrayList<>();
+
+    /**
+     * records have been appended since the last sync
+     */
+    private volatile boolean dirty;
+
+    /**
+     * @param dir          directory of the segments, it's created if needed
+     * @param segmentBytes size of a segment file
+     */
+    public WriteAheadLog(File dir, int segmentBytes) {
+        if (segmentBytes < HEADER + MAX_RECORD) throw new IllegalArgumentException("Segment is too small " + segmentBytes);
+        if (!dir.isDirectory() && !dir.mkdirs()) throw new IllegalArgumentException("Cannot create " + dir);
+        this.dir = dir;
+        this.segmentBytes = segmentBytes;
+    }
+
+    /**
+     * @return the numbers of the segments on the disk in ascending order
+     */
+    public List<Long> getSegments() {
+        List<Long> result = new ArrayList<>();
+        String[] names = dir.list();
+        if (names == null) return result;
+        for (String name : names) {
+            Matcher m = SEGMENT.matcher(name);
+            if (m.matches()) result.add(Long.parseLong(m.group(1)));
+        }
+        Collections.sort(result);
+        return result;
+    }
+
+    /**
+     * Read the records of the segments on the disk
+     *
+     * @param from     the first segment to read
+     * @param consumer receives the payload of each record in the order they were appended
+     * @return the number of the last segment read, from - 1 if there is none
+     */
+    public long replay(long from, Consumer<ByteBuffer> consumer) throws IOException {
+        long last = from - 1;
+        for (long s : getSegments()) {
+            if (s < from) continue;
+            last = s;
+            try (RandomAccessFile file = new RandomAccessFile(fileOf(s), "r")) {
+                ByteBuffer buffer = file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, file.length());
+                CRC32 checksum = new CRC32();
+                while (buffer.remaining() >= HEADER) {
+                    int length = buffer.getInt();
+                    int expected = buffer.getInt();
+                    if (length <= 0 || length > MAX_RECORD || length > buffer.remaining()) break;
+
+                    ByteBuffer payload = buffer.slice();
+                    payload.limit(length);
+                    checksum.reset();
+                    checksum.update(payload.duplicate());
+                    if ((int) checksum.getValue() != expected) {
+                        LOGGER.severe("Corrupt record in " + fileOf(s) + " at " + (buffer.position() - HEADER));
+                        break;
+                    }
+                    consumer.accept(payload);
+                    buffer.position(buffer.position() + length);
+                }
+            }
+        }
+        return last;
+    }
+
+    /**
+     * Start appending to a new segment
+     *
+     * @param next number of the segment, above all segments on the disk
+     */
+    public synchronized void open(long next) throws IOException {
+        switchTo(next);
+    }
+
+    /**
+     * Append a record, the segment is rolled when it's full
+     *
+     * @param encoder writes the payload of the record into the buffer it's given
+     */
+    public void append(Consumer<ByteBuffer> encoder) throws IOException {
+        ByteBuffer payload = scratch.get();
+        payload.clear();
+        try {
+            encoder.accept(payload);
+        } catch (BufferOverflowException e) {
+            throw new IllegalArgumentException("Record is larger than " + MAX_RECORD + " bytes", e);
+        }
+        payload.flip();
+        int length = payload.remaining();
+        CRC32 crc = new CRC32();
+        crc.update(payload.duplicate());
+
+        int size = HEADER + length;
+        Segment current = segment;
+        int position;
+        while (true) {
+            if (current == null) throw new IllegalStateException("The log is not open");
+            position = current.claimed.get();
+            if (position > segmentBytes - size) {
+                current = next(current);
+            } else if (current.claimed.compareAndSet(position, position + size)) {
+                break;
+            }
+        }
+
+        ByteBuffer target = current.buffer.duplicate();
+        target.position(position + HEADER);
+        target.put(payload);
+        target.putInt(position + Integer.BYTES, (int) crc.getValue());
+        // the length goes last, a record cut short reads as the end of the segment
+        target.putInt(position, length);
+        current.copied.addAndGet(size);
+        dirty = true;
+    }
+
+    /**
+     * Force the records appended since the last call to the disk
+     */
+    public void sync() {
+        if (!dirty) return;
+        Segment current;
+        List<Segment> full;
+        synchronized (this) {
+            dirty = false;
+            current = segment;
+            full = rolled;
+            rolled = new ArrayList<>();
+        }
+        List<Segment> pending = new ArrayList<>();
+        for (Segment s : full) {
+            // a record may still be copied into a full segment, it's forced again by the next sync
+            if (!s.isComplete()) pending.add(s);
+            s.buffer.force();
+        }
+        if (current != null) current.buffer.force();
+        if (!pending.isEmpty()) {
+            synchronized (this) {
+                rolled.addAll(pending);
+                dirty = true;
+            }
+        }
+    }
+
+    /**
+     * Start appending to the next segment and force the records of the previous ones to the disk
+     *
+     * @return number of the new segment
+     */
+    public long roll() throws IOException {
+        long sequence;
+        synchronized (this) {
+            if (segment == null) throw new IllegalStateException("The log is not open");
+            switchTo(segment.sequence + 1);
+            sequence = segment.sequence;
+        }
+        sync();
+        return sequence;
+    }
+
+    /**
+     * Delete the segments before the given one
+     *
+     * @param sequence number of the first segment to keep
+     */
+    public void deleteBefore(long sequence) {
+        for (long s : getSegments()) {
+            if (s >= sequence) break;
+            if (!fileOf(s).delete()) LOGGER.warning("Cannot delete " + fileOf(s));
+        }
+    }
+
+    /**
+     * Force the appended records to the disk and stop appending
+     */
+    public synchronized void close() {
+        sync();
+        segment = null;
+        // the preallocated segment holds no records, it's not left behind
+        Segment unused = takeNext();
+        if (unused != null && !fileOf(unused.sequence).delete()) LOGGER.warning("Cannot delete " + fileOf(unused.sequence));
+        preallocator.shutdown();
+    }
+
+    /**
+     * @param full a segment found full by an appending thread
+     * @return the segment to append to instead
+     */
+    private synchronized Segment next(Segment full) throws IOException {
+        if (segment == full) switchTo(full.sequence + 1);
+        return segment;
+    }
+
+    /**
+     * Make the given segment the current one and start mapping the one after it, called holding the lock
+     */
+    private void switchTo(long sequence) throws IOException {
+        Segment created = takeNext();
+        if (created != null && created.sequence != sequence) {
+            if (!fileOf(created.sequence).delete()) LOGGER.warning("Cannot delete " + fileOf(created.sequence));
+            created = null;
+        }
+        if (created == null) created = map(sequence);
+
+        Segment previous = segment;
+        segment = created;
+        // the previous segment is forced by the next sync, the appending thread doesn't wait for it
+        if (previous != null) {
+            previous.seal();
+            rolled.add(previous);
+            dirty = true;
+        }
+        next = preallocator.submit(() -> map(sequence + 1));
+    }
+
+    /**
+     * @return the preallocated segment, null if there is none or it couldn't be created
+     */
+    private Segment takeNext() {
+        Future<Segment> future = next;
+        next = null;
+        if (future == null) return null;
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            LOGGER.log(Level.WARNING, "Cannot preallocate a segment in " + dir, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+
+    private Segment map(long sequence) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(fileOf(sequence), "rw")) {
+            file.setLength(segmentBytes);
+            return new Segment(sequence, file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes));
+        }
+    }
+
+    private File fileOf(long sequence) {
+        return new File(dir, String.format("wal-%016d.log", sequence));
+    }
+
+    private static final class Segment {
+
+        /**
+         * the claimed position of a segment that takes no more records
+         */
+        private static final int SEALED = Integer.MAX_VALUE;
+
+        private final long sequence;
+
+        private final MappedByteBuffer buffer;
+
+        /**
+         * bytes claimed by the appending threads
+         */
+        private final AtomicInteger claimed = new AtomicInteger();
+
+        /**
+         * bytes of the claimed records that have been copied into the segment
+         */
+        private final AtomicInteger copied = new AtomicInteger();
+
+        /**
+         * bytes claimed before the segment was sealed
+         */
+        private volatile int length = -1;
+
+        private Segment(long sequence, MappedByteBuffer buffer) {
+            this.sequence = sequence;
+            this.buffer = buffer;
+        }
+
+        private void seal() {
+            length = claimed.getAndSet(SEALED);
+        }
+
+        private boolean isComplete() {
+            int sealed = length;
+            return sealed >= 0 && copied.get() == sealed;
+        }
+
+    }
+
+}
@@ -0,0 +1,83 @@
+package com.crossover.trial.weather.utils;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+
+import com.crossover.trial.weather.models.Airport;
+
+/**
+ * Publishes the current {@link AirportSnapshot} of the known airports.
+ * <p>
+ * Readers take the snapshot with a single volatile read and never lock. Writers are serialized on the catalog, each
+ * change builds and publishes a new snapshot, so bulk changes should be applied at once.
+ */
+public class AirportCatalog {
+
+    private volatile AirportSnapshot snapshot = AirportSnapshot.EMPTY;
+
+    public AirportCatalog() {
+    }
+
+    /**
+     * @param airports the initial airports
+     */
+    public AirportCatalog(Collection<Airport> airports) {
+        addAll(airports);
+    }
+
+    /**
+     * @param snapshot the initial snapshot
+     */
+    public AirportCatalog(AirportSnapshot snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    /**
+     * @return the current snapshot
+     */
+    public AirportSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Add an airport or replace the airport with the same IATA code
+     *
+     * @param airport as an Airport
+     */
+    public void add(Airport airport) {
+        if (airport == null || airport.getIata() == null) {
+            throw new IllegalArgumentException("Airport or its IATA code is null");
+        }
+        addAll(Collections.singletonList(airport));
+    }
+
+    /**
+     * @param airports airports to add or to replace
+     */
+    public synchronized void addAll(Collection<Airport> airports) {
+        if (airports.isEmpty()) return;
+        snapshot = snapshot.with(airports);
+    }
+
+    /**
+     * @param iataCode as a string
+     */
+    public synchronized void remove(String iataCode) {
+        if (snapshot.indexOf(iataCode) < 0) return;
+        snapshot = snapshot.apply(Collections.singletonMap(iataCode, null));
+    }
+
+    /**
+     * @param changes airports to add or to replace by IATA code, a null airport removes the code
+     */
+    public synchronized void apply(Map<String, Airport> changes) {
+        if (changes.isEmpty()) return;
+        snapshot = snapshot.apply(changes);
+    }
+
+    public synchronized void clear() {
+        snapshot = AirportSnapshot.EMPTY;
+    }
+
+}
@@ -0,0 +1,111 @@
+package com.crossover.trial.weather.utils;
+
+import com.crossover.trial.weather.models.Airport;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Binary file of an {@link AirportSnapshot}, with its spatial index, for a fast start of a new node.
+ * <p>
+ * The file holds the grid size, the cell ranges of the snapshot and the airports in the order of their cells as fixed
+ * width records: the IATA code in 4 ASCII bytes padded with zeros, the latitude and the longitude as doubles. A CRC32
+ * of all of it ends the file. It's memory-mapped and read into a snapshot without sorting the airports again.
+ */
+public final class AirportCatalogFile {
+
+    private static final int MAGIC = 0x57414331;
+
+    private static final int CODE_BYTES = 4;
+
+    private static final int RECORD_BYTES = CODE_BYTES + 2 * Double.BYTES;
+
+    private AirportCatalogFile() {
+    }
+
+    /**
+     * @param snapshot the airports, their IATA codes have at most 4 ASCII characters
+     * @param file     the catalog file, replaced if it exists
+     */
+    public static void write(AirportSnapshot snapshot, File file) throws IOException {
+        snapshot = snapshot.indexed();
+        int[] cellStart = snapshot.getCellStart();
+        try (FileOutputStream stream = new FileOutputStream(file)) {
+            CheckedOutputStream checked = new CheckedOutputStream(new BufferedOutputStream(stream), new CRC32());
+            DataOutputStream out = new DataOutputStream(checked);
+            out.writeInt(MAGIC);
+            out.writeInt(cellStart.length);
+            out.writeInt(snapshot.size());
+            for (int start : cellStart) {
+                out.writeInt(start);
+            }
+            for (int p = 0; p < snapshot.size(); p++) {
+                byte[] code = snapshot.getIataCode(p).getBytes(StandardCharsets.US_ASCII);
+                if (code.length > CODE_BYTES) throw new IllegalArgumentException("IATA code is too long " + snapshot.getIataCode(p));
+                out.write(code);
+                out.write(new byte[CODE_BYTES - code.length]);
+                out.writeDouble(snapshot.getLatitude(p));
+                out.writeDouble(snapshot.getLongitude(p));
+            }
+            out.flush();
+            out.writeLong(checked.getChecksum().getValue());
+            out.flush();
+        }
+    }
+
+    /**
+     * @param file the catalog file
+     * @return a snapshot of the airports of the file
+     * @throws IOException if the file isn't a complete catalog of the grid of {@link AirportSnapshot}
+     */
+    public static AirportSnapshot read(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            ByteBuffer buffer = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length());
+            if (buffer.remaining() < 3 * Integer.BYTES || buffer.getInt() != MAGIC) {
+                throw new IOException(file + " is not an airport catalog");
+            }
+            int cells = buffer.getInt();
+            int size = buffer.getInt();
+            if (cells != AirportSnapshot.CELLS + 2 || size < 0) throw new IOException(file + " has another grid");
+            long length = 3L * Integer.BYTES + (long) cells * Integer.BYTES + (long) size * RECORD_BYTES + Long.BYTES;
+            if (length != buffer.capacity()) throw new IOException(file + " is truncated");
+
+            CRC32 crc = new CRC32();
+            ByteBuffer body = buffer.duplicate();
+            body.position(0).limit(buffer.capacity() - Long.BYTES);
+            crc.update(body);
+            if (buffer.getLong(buffer.capacity() - Long.BYTES) != crc.getValue()) {
+                throw new IOException(file + " has a wrong checksum");
+            }
+
+            int[] cellStart = new int[cells];
+            buffer.asIntBuffer().get(cellStart);
+            buffer.position(buffer.position() + cells * Integer.BYTES);
+
+            Airport[] airports = new Airport[size];
+            byte[] code = new byte[CODE_BYTES];
+            for (int p = 0; p < size; p++) {
+                buffer.get(code);
+                int codeLength = 0;
+                while (codeLength < CODE_BYTES && code[codeLength] != 0) codeLength++;
+                airports[p] = new Airport(new String(code, 0, codeLength, StandardCharsets.US_ASCII),
+                        buffer.getDouble(), buffer.getDouble());
+            }
+            try {
+                return new AirportSnapshot(airports, cellStart);
+            } catch (IllegalArgumentException e) {
+                throw new IOException(file + " is not a valid catalog", e);
+            }
+        }
+    }
+
+}
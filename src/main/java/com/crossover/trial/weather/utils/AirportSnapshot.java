@@ -0,0 +1,821 @@
+package com.crossover.trial.weather.utils;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.IntPredicate;
+
+import com.crossover.trial.weather.models.Airport;
+
+/**
+ * Immutable, versioned copy of the known airports for the query paths.
+ * <p>
+ * Airports are stored column-wise, sorted by the cell of a fixed latitude/longitude grid, and each cell is a range
+ * of the columns. A radius query only visits the cells of the bounding box of the search circle and checks the
+ * distance on the unit vector columns, without touching the airport objects of the rejected candidates. The box is
+ * widened over the poles and wrapped over the antimeridian, so no airport inside the circle is ever skipped.
+ * <p>
+ * A change builds a new snapshot, which is meant for data that changes a few times a day and is read on every query.
+ * New airports added one by one are appended to the unindexed airports checked by every query instead, in columns
+ * shared with the previous snapshot, which never reads past its own size. The snapshot is only rebuilt when more than
+ * about the square root of the airports are unindexed, so adding airports one at a time costs O(N^1.5) in total
+ * rather than O(N^2).
+ */
+public final class AirportSnapshot {
+
+    /**
+     * cell size in degrees
+     */
+    public static final double CELL_SIZE = 1.0;
+
+    private static final int ROWS = (int) (180 / CELL_SIZE);
+    private static final int COLUMNS = (int) (360 / CELL_SIZE);
+
+    /**
+     * number of cells of the grid
+     */
+    static final int CELLS = ROWS * COLUMNS;
+
+    /**
+     * widens the bounding box to absorb rounding errors at its edges
+     */
+    private static final double EPSILON = 1e-9;
+
+    /**
+     * cells visited best-first cost about as much as this many airports or empty cells scanned in order
+     */
+    private static final int SCAN_COST = 256;
+
+    /**
+     * the fewest appended airports that can be unindexed before the snapshot is rebuilt
+     */
+    private static final int MIN_APPENDED = 64;
+
+    /**
+     * sines and cosines of the latitudes of the row edges and of the longitudes of the column edges
+     */
+    private static final double[] SIN_LAT_EDGE = new double[ROWS + 1];
+    private static final double[] COS_LAT_EDGE = new double[ROWS + 1];
+    private static final double[] SIN_LON_EDGE = new double[COLUMNS + 1];
+    private static final double[] COS_LON_EDGE = new double[COLUMNS + 1];
+
+    static {
+        for (int r = 0; r <= ROWS; r++) {
+            double lat = Math.toRadians(r * CELL_SIZE - 90);
+            SIN_LAT_EDGE[r] = Math.sin(lat);
+            COS_LAT_EDGE[r] = Math.max(0, Math.cos(lat));
+        }
+        for (int c = 0; c <= COLUMNS; c++) {
+            double lon = Math.toRadians(c * CELL_SIZE - 180);
+            SIN_LON_EDGE[c] = Math.sin(lon);
+            COS_LON_EDGE[c] = Math.cos(lon);
+        }
+    }
+
+    public static final AirportSnapshot EMPTY = new AirportSnapshot(Collections.emptyList(), 0);
+
+    private final long version;
+
+    private final int size;
+
+    /**
+     * the columns may be longer than the snapshot, later snapshots append to them
+     */
+    private final Airport[] airports;
+    private final String[] iataCodes;
+    private final double[] latitudes;
+    private final double[] longitudes;
+
+    /**
+     * positions as unit vectors
+     */
+    private final double[] xs;
+    private final double[] ys;
+    private final double[] zs;
+
+    /**
+     * airports of the cell c are at [cellStart[c], cellStart[c + 1]), airports with coordinates outside of the grid
+     * and the appended airports are at [cellStart[CELLS], size) and checked by every query
+     */
+    private final int[] cellStart;
+
+    /**
+     * positions of the indexed airports, [0, cellStart[CELLS + 1])
+     */
+    private final Map<String, Integer> positions;
+
+    /**
+     * positions of the appended airports, [cellStart[CELLS + 1], size)
+     */
+    private final Map<String, Integer> appended;
+
+    /**
+     * the length of the columns claimed by the snapshots sharing them, only the snapshot ending there may append
+     */
+    private final AtomicInteger claimed;
+
+    private AirportSnapshot(Collection<Airport> source, long version) {
+        this.version = version;
+        this.size = source.size();
+        int[] cells = new int[size];
+        cellStart = new int[CELLS + 2];
+        int i = 0;
+        for (Airport a : source) {
+            int cell = cellOf(a.getLatitude(), a.getLongitude());
+            cells[i++] = cell < 0 ? CELLS : cell;
+            cellStart[cells[i - 1] + 1]++;
+        }
+        for (int c = 1; c < cellStart.length; c++) {
+            cellStart[c] += cellStart[c - 1];
+        }
+
+        airports = new Airport[size];
+        int[] next = Arrays.copyOf(cellStart, cellStart.length - 1);
+        i = 0;
+        for (Airport a : source) {
+            airports[next[cells[i++]]++] = a;
+        }
+
+        iataCodes = new String[size];
+        latitudes = new double[size];
+        longitudes = new double[size];
+        xs = new double[size];
+        ys = new double[size];
+        zs = new double[size];
+        positions = new HashMap<>(size * 4 / 3 + 1);
+        appended = Collections.emptyMap();
+        claimed = new AtomicInteger(size);
+        fillColumns();
+    }
+
+    /**
+     * @param airports  the airports sorted by their cells, as they're stored in a snapshot
+     * @param cellStart the cell ranges of the airports
+     */
+    AirportSnapshot(Airport[] airports, int[] cellStart) {
+        if (cellStart.length != CELLS + 2 || cellStart[0] != 0 || cellStart[CELLS + 1] != airports.length) {
+            throw new IllegalArgumentException("Cell ranges don't match the airports");
+        }
+        for (int c = 0; c <= CELLS; c++) {
+            if (cellStart[c + 1] < cellStart[c]) throw new IllegalArgumentException("Cell ranges are not sorted");
+            for (int p = cellStart[c]; p < cellStart[c + 1]; p++) {
+                int cell = cellOf(airports[p].getLatitude(), airports[p].getLongitude());
+                if ((cell < 0 ? CELLS : cell) != c) throw new IllegalArgumentException("Airport in a wrong cell");
+            }
+        }
+        this.version = 1;
+        this.size = airports.length;
+        this.airports = airports;
+        this.cellStart = cellStart;
+        iataCodes = new String[size];
+        latitudes = new double[size];
+        longitudes = new double[size];
+        xs = new double[size];
+        ys = new double[size];
+        zs = new double[size];
+        positions = new HashMap<>(size * 4 / 3 + 1);
+        appended = Collections.emptyMap();
+        claimed = new AtomicInteger(size);
+        fillColumns();
+        if (positions.size() != size) throw new IllegalArgumentException("Duplicate IATA codes");
+    }
+
+    /**
+     * A snapshot appended to the columns of the previous one
+     */
+    private AirportSnapshot(AirportSnapshot previous, int size, Airport[] airports, String[] iataCodes,
+                            double[] latitudes, double[] longitudes, double[] xs, double[] ys, double[] zs,
+                            Map<String, Integer> appended, AtomicInteger claimed) {
+        this.version = previous.version + 1;
+        this.size = size;
+        this.airports = airports;
+        this.iataCodes = iataCodes;
+        this.latitudes = latitudes;
+        this.longitudes = longitudes;
+        this.xs = xs;
+        this.ys = ys;
+        this.zs = zs;
+        this.cellStart = previous.cellStart;
+        this.positions = previous.positions;
+        this.appended = appended;
+        this.claimed = claimed;
+    }
+
+    private void fillColumns() {
+        for (int p = 0; p < size; p++) {
+            fillColumns(airports[p], p, iataCodes, latitudes, longitudes, xs, ys, zs);
+            positions.put(airports[p].getIata(), p);
+        }
+    }
+
+    private static void fillColumns(Airport a, int p, String[] iataCodes, double[] latitudes, double[] longitudes,
+                                    double[] xs, double[] ys, double[] zs) {
+        iataCodes[p] = a.getIata();
+        latitudes[p] = a.getLatitude();
+        longitudes[p] = a.getLongitude();
+        double lat = Math.toRadians(a.getLatitude());
+        double lon = Math.toRadians(a.getLongitude());
+        double cosLat = Math.cos(lat);
+        xs[p] = cosLat * Math.cos(lon);
+        ys[p] = cosLat * Math.sin(lon);
+        zs[p] = Math.sin(lat);
+    }
+
+    /**
+     * @param airports the airports, ones without an IATA code are skipped and later ones replace earlier ones with
+     *                 the same code
+     * @return a snapshot of version 1
+     */
+    public static AirportSnapshot of(Collection<Airport> airports) {
+        return new AirportSnapshot(byIataCode(airports).values(), 1);
+    }
+
+    /**
+     * @param airports airports to add or to replace
+     * @return a new snapshot of the next version
+     */
+    public AirportSnapshot with(Collection<Airport> airports) {
+        return apply(byIataCode(airports));
+    }
+
+    private static Map<String, Airport> byIataCode(Collection<Airport> airports) {
+        Map<String, Airport> result = new LinkedHashMap<>();
+        for (Airport a : airports) {
+            if (a != null && a.getIata() != null) result.put(a.getIata(), a);
+        }
+        return result;
+    }
+
+    /**
+     * @param changes airports to add or to replace by IATA code, a null airport removes the code
+     * @return a new snapshot of the next version
+     */
+    public AirportSnapshot apply(Map<String, Airport> changes) {
+        AirportSnapshot next = append(changes);
+        if (next != null) return next;
+
+        Map<String, Airport> merged = new LinkedHashMap<>(size + changes.size());
+        for (int p = 0; p < size; p++) {
+            merged.put(iataCodes[p], airports[p]);
+        }
+        for (Map.Entry<String, Airport> e : changes.entrySet()) {
+            if (e.getValue() == null) {
+                merged.remove(e.getKey());
+            } else {
+                merged.put(e.getKey(), e.getValue());
+            }
+        }
+        return new AirportSnapshot(merged.values(), version + 1);
+    }
+
+    /**
+     * @param changes airports to add or to replace by IATA code, a null airport removes the code
+     * @return a snapshot with the new airports appended to the unindexed ones, null if the changes replace or remove
+     * airports or too many airports would be unindexed
+     */
+    private AirportSnapshot append(Map<String, Airport> changes) {
+        int next = size + changes.size();
+        if (next - cellStart[CELLS + 1] > Math.max(MIN_APPENDED, (int) Math.sqrt(next))) return null;
+        for (Map.Entry<String, Airport> e : changes.entrySet()) {
+            if (e.getValue() == null || indexOf(e.getKey()) >= 0) return null;
+        }
+
+        Airport[] airports = this.airports;
+        String[] iataCodes = this.iataCodes;
+        double[] latitudes = this.latitudes;
+        double[] longitudes = this.longitudes;
+        double[] xs = this.xs;
+        double[] ys = this.ys;
+        double[] zs = this.zs;
+        AtomicInteger claimed = this.claimed;
+        if (next > airports.length || !claimed.compareAndSet(size, next)) {
+            // room for every airport that can be appended before the next rebuild
+            int capacity = next + Math.max(MIN_APPENDED, (int) Math.sqrt(next));
+            airports = Arrays.copyOf(airports, capacity);
+            iataCodes = Arrays.copyOf(iataCodes, capacity);
+            latitudes = Arrays.copyOf(latitudes, capacity);
+            longitudes = Arrays.copyOf(longitudes, capacity);
+            xs = Arrays.copyOf(xs, capacity);
+            ys = Arrays.copyOf(ys, capacity);
+            zs = Arrays.copyOf(zs, capacity);
+            claimed = new AtomicInteger(next);
+        }
+
+        Map<String, Integer> appended = new HashMap<>(this.appended);
+        int p = size;
+        for (Airport a : changes.values()) {
+            airports[p] = a;
+            fillColumns(a, p, iataCodes, latitudes, longitudes, xs, ys, zs);
+            appended.put(a.getIata(), p++);
+        }
+        return new AirportSnapshot(this, next, airports, iataCodes, latitudes, longitudes, xs, ys, zs, appended,
+                claimed);
+    }
+
+    /**
+     * @return this snapshot if it has no appended airports, otherwise a rebuilt copy with all airports in their cells
+     */
+    AirportSnapshot indexed() {
+        if (size == cellStart[CELLS + 1]) return this;
+        return new AirportSnapshot(Arrays.asList(airports).subList(0, size), version);
+    }
+
+    /**
+     * @return the number of changes this snapshot is the result of
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param iataCode the 3 letter airport code
+     * @return the position of the airport or -1 if it isn't known
+     */
+    public int indexOf(String iataCode) {
+        if (iataCode == null) return -1;
+        Integer p = positions.get(iataCode);
+        if (p == null && !appended.isEmpty()) p = appended.get(iataCode);
+        return p == null ? -1 : p;
+    }
+
+    /**
+     * @param iataCode the 3 letter airport code
+     * @return the airport or null if it isn't known
+     */
+    public Airport get(String iataCode) {
+        int p = indexOf(iataCode);
+        return p < 0 ? null : airports[p];
+    }
+
+    /**
+     * @return a copy of the cell ranges, the airports of the cell c are at [cellStart[c], cellStart[c + 1])
+     */
+    int[] getCellStart() {
+        return cellStart.clone();
+    }
+
+    public Airport getAirport(int position) {
+        return airports[position];
+    }
+
+    public String getIataCode(int position) {
+        return iataCodes[position];
+    }
+
+    public double getLatitude(int position) {
+        return latitudes[position];
+    }
+
+    public double getLongitude(int position) {
+        return longitudes[position];
+    }
+
+    /**
+     * @return unmodifiable set of the IATA codes
+     */
+    public Set<String> getIataCodes() {
+        return new AbstractSet<String>() {
+            @Override
+            public Iterator<String> iterator() {
+                return new Iterator<String>() {
+                    private int next;
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < size;
+                    }
+
+                    @Override
+                    public String next() {
+                        if (next >= size) throw new NoSuchElementException();
+                        return iataCodes[next++];
+                    }
+                };
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return o instanceof String && indexOf((String) o) >= 0;
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * Visit every airport within the radius around the given point
+     *
+     * @param latitude  of the centre in degrees
+     * @param longitude of the centre in degrees
+     * @param radius    in KM
+     * @param consumer  receives the airports
+     */
+    public void forEachWithin(double latitude, double longitude, double radius, Consumer<Airport> consumer) {
+        forEachWithin(latitude, longitude, radius, (position, squaredChord) -> consumer.accept(airports[position]));
+    }
+
+    /**
+     * Visit every airport within the radius around the given point with its distance
+     *
+     * @param latitude  of the centre in degrees
+     * @param longitude of the centre in degrees
+     * @param radius    in KM
+     * @param visitor   receives the positions of the airports
+     */
+    public void forEachWithin(double latitude, double longitude, double radius, PositionVisitor visitor) {
+        double maxSquaredChord = GeoUtils.squaredChord(radius);
+        if (maxSquaredChord < 0) return;
+        double lat = Math.toRadians(latitude);
+        double lon = Math.toRadians(longitude);
+        double cosLat = Math.cos(lat);
+        double x = cosLat * Math.cos(lon);
+        double y = cosLat * Math.sin(lon);
+        double z = Math.sin(lat);
+
+        visit(cellStart[CELLS], size, x, y, z, maxSquaredChord, visitor);
+
+        double angle = radius / GeoUtils.EARTH_RADIUS;
+        if (angle >= Math.PI || Double.isNaN(latitude) || Double.isNaN(longitude)) {
+            visitRows(0, ROWS - 1, 0, COLUMNS - 1, x, y, z, maxSquaredChord, visitor);
+            return;
+        }
+
+        double deltaLat = Math.toDegrees(angle) + EPSILON;
+        double minLat = latitude - deltaLat;
+        double maxLat = latitude + deltaLat;
+        int minRow = row(Math.max(minLat, -90));
+        int maxRow = row(Math.min(maxLat, 90));
+
+        // the circle covers a pole, every longitude is reachable
+        if (minLat <= -90 || maxLat >= 90) {
+            visitRows(minRow, maxRow, 0, COLUMNS - 1, x, y, z, maxSquaredChord, visitor);
+            return;
+        }
+
+        double sinRatio = Math.sin(angle) / Math.cos(Math.toRadians(latitude));
+        if (sinRatio >= 1) {
+            visitRows(minRow, maxRow, 0, COLUMNS - 1, x, y, z, maxSquaredChord, visitor);
+            return;
+        }
+
+        double deltaLon = Math.toDegrees(Math.asin(sinRatio)) + EPSILON;
+        int firstColumn = (int) Math.floor((longitude - deltaLon + 180) / CELL_SIZE);
+        int lastColumn = (int) Math.floor((longitude + deltaLon + 180) / CELL_SIZE);
+        if (lastColumn - firstColumn + 1 >= COLUMNS) {
+            visitRows(minRow, maxRow, 0, COLUMNS - 1, x, y, z, maxSquaredChord, visitor);
+        } else {
+            visitRows(minRow, maxRow, firstColumn, lastColumn, x, y, z, maxSquaredChord, visitor);
+        }
+    }
+
+    /**
+     * Visit every airport within a latitude/longitude box. A box whose minimal longitude is above its maximal one
+     * crosses the antimeridian, longitudes are taken modulo 360 and a box 360 degrees wide or more covers them all.
+     *
+     * @param minLatitude  southern edge in degrees, inclusive
+     * @param minLongitude western edge in degrees, inclusive
+     * @param maxLatitude  northern edge in degrees, inclusive
+     * @param maxLongitude eastern edge in degrees, inclusive
+     * @param visitor      receives the positions of the airports with their squared chords to the centre of the box
+     */
+    public void forEachInBox(double minLatitude, double minLongitude, double maxLatitude, double maxLongitude,
+                             PositionVisitor visitor) {
+        if (!(minLatitude <= maxLatitude) || !(minLongitude > Double.NEGATIVE_INFINITY)
+                || !(maxLongitude < Double.POSITIVE_INFINITY)) {
+            return;
+        }
+        double south = Math.max(minLatitude, -90);
+        double north = Math.min(maxLatitude, 90);
+        if (south > north) return;
+
+        double west = ((minLongitude + 180) % 360 + 360) % 360 - 180;
+        double width = maxLongitude - minLongitude >= 360 ? 360 : ((maxLongitude - minLongitude) % 360 + 360) % 360;
+
+        double lat = Math.toRadians((south + north) / 2);
+        double lon = Math.toRadians(west + width / 2);
+        double cosLat = Math.cos(lat);
+        double x = cosLat * Math.cos(lon);
+        double y = cosLat * Math.sin(lon);
+        double z = Math.sin(lat);
+
+        int firstColumn = (int) Math.floor((west + 180) / CELL_SIZE);
+        int lastColumn = (int) Math.floor((west + width + 180) / CELL_SIZE);
+        if (lastColumn - firstColumn + 1 >= COLUMNS) {
+            firstColumn = 0;
+            lastColumn = COLUMNS - 1;
+        }
+        int wrappedFirst = Math.floorMod(firstColumn, COLUMNS);
+        int wrappedLast = Math.floorMod(lastColumn, COLUMNS);
+        for (int r = row(south); r <= row(north); r++) {
+            int offset = r * COLUMNS;
+            if (wrappedFirst <= wrappedLast) {
+                visitBox(cellStart[offset + wrappedFirst], cellStart[offset + wrappedLast + 1], south, north, west,
+                        width, x, y, z, visitor);
+            } else {
+                visitBox(cellStart[offset + wrappedFirst], cellStart[offset + COLUMNS], south, north, west, width,
+                        x, y, z, visitor);
+                visitBox(cellStart[offset], cellStart[offset + wrappedLast + 1], south, north, west, width,
+                        x, y, z, visitor);
+            }
+        }
+        visitBox(cellStart[CELLS + 1], size, south, north, west, width, x, y, z, visitor);
+    }
+
+    private void visitBox(int from, int to, double south, double north, double west, double width, double x, double y,
+                          double z, PositionVisitor visitor) {
+        for (int p = from; p < to; p++) {
+            double latitude = latitudes[p];
+            if (latitude < south || latitude > north) continue;
+            double east = ((longitudes[p] - west) % 360 + 360) % 360;
+            if (east > width) continue;
+            double dx = x - xs[p];
+            double dy = y - ys[p];
+            double dz = z - zs[p];
+            visitor.visit(p, dx * dx + dy * dy + dz * dz);
+        }
+    }
+
+    /**
+     * Find the airports nearest to the given point best-first. The cells are visited in the order of their distance
+     * from the point, starting with its own cell and spreading to the neighbours, and the search stops at the first
+     * cell that is farther than the k-th airport found, k being the limit of the heap. A search that keeps spreading
+     * because the filter rejects most airports falls back to scanning the cells it hasn't visited.
+     *
+     * @param latitude  of the point in degrees
+     * @param longitude of the point in degrees
+     * @param heap      receives the positions of the nearest airports keyed by their squared chords
+     * @param filter    accepts the positions of the airports that may be returned
+     */
+    public void forEachNearest(double latitude, double longitude, NearestHeap heap, IntPredicate filter) {
+        double lat = Math.toRadians(latitude);
+        double lon = Math.toRadians(longitude);
+        double cosLat = Math.cos(lat);
+        double x = cosLat * Math.cos(lon);
+        double y = cosLat * Math.sin(lon);
+        double z = Math.sin(lat);
+
+        offer(cellStart[CELLS], size, x, y, z, heap, filter);
+
+        int start = cellOf(latitude, longitude);
+        if (start < 0) {
+            offer(0, cellStart[CELLS], x, y, z, heap, filter);
+            return;
+        }
+
+        CellQueue queue = new CellQueue(latitude, longitude);
+        BitSet visited = new BitSet(CELLS);
+        int budget = (CELLS + size) / SCAN_COST;
+        queue.enqueue(start);
+        while (queue.size() > 0) {
+            if (heap.isFull() && !(queue.peekKey() < heap.peekKey())) break;
+            if (--budget < 0) {
+                // too few matches around the point, scanning the rest is cheaper than spreading further
+                for (int c = visited.nextClearBit(0); c < CELLS; c = visited.nextClearBit(c + 1)) {
+                    offer(cellStart[c], cellStart[c + 1], x, y, z, heap, filter);
+                }
+                return;
+            }
+            int cell = queue.poll();
+            visited.set(cell);
+            offer(cellStart[cell], cellStart[cell + 1], x, y, z, heap, filter);
+
+            int row = cell / COLUMNS;
+            int column = cell % COLUMNS;
+            queue.enqueue(row, column - 1);
+            queue.enqueue(row, column + 1);
+            queue.enqueue(row - 1, column);
+            queue.enqueue(row + 1, column);
+            // the cells around a pole meet at the pole
+            if (row == 0 || row == ROWS - 1) {
+                for (int c = 0; c < COLUMNS; c++) {
+                    queue.enqueue(row, c);
+                }
+            }
+        }
+    }
+
+    private void offer(int from, int to, double x, double y, double z, NearestHeap heap, IntPredicate filter) {
+        for (int p = from; p < to; p++) {
+            double dx = x - xs[p];
+            double dy = y - ys[p];
+            double dz = z - zs[p];
+            double squaredChord = dx * dx + dy * dy + dz * dz;
+            if (heap.isFull() && !(squaredChord < heap.peekKey())) continue;
+            if (filter.test(p)) heap.offer(squaredChord, p);
+        }
+    }
+
+    /**
+     * Visit a rectangle of cells, columns outside [0, COLUMNS) are wrapped over the antimeridian. Adjacent columns of
+     * a row are adjacent ranges, so each unwrapped part of a row is a single range.
+     */
+    private void visitRows(int minRow, int maxRow, int firstColumn, int lastColumn, double x, double y, double z,
+                           double maxSquaredChord, PositionVisitor visitor) {
+        int wrappedFirst = Math.floorMod(firstColumn, COLUMNS);
+        int wrappedLast = Math.floorMod(lastColumn, COLUMNS);
+        for (int r = minRow; r <= maxRow; r++) {
+            int offset = r * COLUMNS;
+            if (wrappedFirst <= wrappedLast) {
+                visit(cellStart[offset + wrappedFirst], cellStart[offset + wrappedLast + 1], x, y, z,
+                        maxSquaredChord, visitor);
+            } else {
+                visit(cellStart[offset + wrappedFirst], cellStart[offset + COLUMNS], x, y, z,
+                        maxSquaredChord, visitor);
+                visit(cellStart[offset], cellStart[offset + wrappedLast + 1], x, y, z, maxSquaredChord, visitor);
+            }
+        }
+    }
+
+    private void visit(int from, int to, double x, double y, double z, double maxSquaredChord,
+                       PositionVisitor visitor) {
+        for (int p = from; p < to; p++) {
+            double dx = x - xs[p];
+            double dy = y - ys[p];
+            double dz = z - zs[p];
+            double squaredChord = dx * dx + dy * dy + dz * dz;
+            if (squaredChord <= maxSquaredChord) {
+                visitor.visit(p, squaredChord);
+            }
+        }
+    }
+
+    /**
+     * @return the cell number or -1 if the coordinates cannot be placed on the grid
+     */
+    private static int cellOf(double latitude, double longitude) {
+        if (!(latitude >= -90 && latitude <= 90) || Double.isNaN(longitude) || Double.isInfinite(longitude)) {
+            return -1;
+        }
+        int column = Math.floorMod((int) Math.floor((longitude + 180) / CELL_SIZE), COLUMNS);
+        return row(latitude) * COLUMNS + column;
+    }
+
+    private static int row(double latitude) {
+        return Math.min(ROWS - 1, Math.max(0, (int) Math.floor((latitude + 90) / CELL_SIZE)));
+    }
+
+    /**
+     * The frontier of a nearest search, a binary min-heap of the cells keyed by a lower bound of their squared chord
+     * to the point. The bound only takes products of the sines and cosines of the point and of the cell edges.
+     */
+    private static final class CellQueue {
+
+        private final double latitude;
+        private final double longitude;
+        private final double sinLat;
+        private final double cosLat;
+        private final double sinLon;
+        private final double cosLon;
+
+        private final BitSet queued = new BitSet(CELLS);
+
+        private double[] keys = new double[64];
+        private int[] cells = new int[64];
+        private int size;
+
+        CellQueue(double latitude, double longitude) {
+            this.latitude = latitude;
+            this.longitude = longitude;
+            double lat = Math.toRadians(latitude);
+            double lon = Math.toRadians(longitude);
+            sinLat = Math.sin(lat);
+            cosLat = Math.cos(lat);
+            sinLon = Math.sin(lon);
+            cosLon = Math.cos(lon);
+        }
+
+        int size() {
+            return size;
+        }
+
+        double peekKey() {
+            return keys[0];
+        }
+
+        /**
+         * Add a cell unless it has been added before, columns are wrapped over the antimeridian
+         */
+        void enqueue(int row, int column) {
+            if (row >= 0 && row < ROWS) enqueue(row * COLUMNS + Math.floorMod(column, COLUMNS));
+        }
+
+        void enqueue(int cell) {
+            if (queued.get(cell)) return;
+            queued.set(cell);
+            add(minSquaredChord(cell), cell);
+        }
+
+        /**
+         * @return a lower bound of the squared chord between the point and any point of the cell
+         */
+        private double minSquaredChord(int cell) {
+            int row = cell / COLUMNS;
+            int column = cell % COLUMNS;
+            double minLat = row * CELL_SIZE - 90;
+            double maxLat = minLat + CELL_SIZE;
+
+            double cosAngle;
+            double east = ((longitude - (column * CELL_SIZE - 180)) % 360 + 360) % 360;
+            if (east <= CELL_SIZE) {
+                // the point is between the meridians of the cell, the nearest point is straight north or south
+                int edge = latitude < minLat ? row : latitude > maxLat ? row + 1 : -1;
+                cosAngle = edge < 0 ? 1 : cosLat * COS_LAT_EDGE[edge] + sinLat * SIN_LAT_EDGE[edge];
+            } else {
+                // the nearest point is on the nearer of the two meridians
+                int meridian = east - CELL_SIZE < 360 - east ? column + 1 : column;
+                double cosDeltaLon = cosLon * COS_LON_EDGE[meridian] + sinLon * SIN_LON_EDGE[meridian];
+                double south = cosAt(row, cosDeltaLon);
+                double north = cosAt(row + 1, cosDeltaLon);
+                if (cosDeltaLon > 0
+                        && sinLat * COS_LAT_EDGE[row] >= SIN_LAT_EDGE[row] * cosLat * cosDeltaLon
+                        && sinLat * COS_LAT_EDGE[row + 1] <= SIN_LAT_EDGE[row + 1] * cosLat * cosDeltaLon) {
+                    // the point of the meridian's great circle nearest to the point is within the cell
+                    cosAngle = Math.sqrt(sinLat * sinLat + cosLat * cosLat * cosDeltaLon * cosDeltaLon);
+                } else {
+                    // the distance along the meridian only grows away from that point, the nearest end is nearest
+                    cosAngle = Math.max(south, north);
+                }
+            }
+            return Math.max(0, 2 - 2 * cosAngle - EPSILON);
+        }
+
+        /**
+         * @return the cosine of the angle between the point and the given latitude edge on the meridian
+         */
+        private double cosAt(int edge, double cosDeltaLon) {
+            return sinLat * SIN_LAT_EDGE[edge] + cosLat * COS_LAT_EDGE[edge] * cosDeltaLon;
+        }
+
+        private void add(double key, int cell) {
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                cells = Arrays.copyOf(cells, size * 2);
+            }
+            int index = size++;
+            while (index > 0) {
+                int parent = (index - 1) >>> 1;
+                if (keys[parent] <= key) break;
+                keys[index] = keys[parent];
+                cells[index] = cells[parent];
+                index = parent;
+            }
+            keys[index] = key;
+            cells[index] = cell;
+        }
+
+        int poll() {
+            int result = cells[0];
+            size--;
+            double key = keys[size];
+            int cell = cells[size];
+            int index = 0;
+            int half = size >>> 1;
+            while (index < half) {
+                int child = 2 * index + 1;
+                int right = child + 1;
+                if (right < size && keys[right] < keys[child]) child = right;
+                if (key <= keys[child]) break;
+                keys[index] = keys[child];
+                cells[index] = cells[child];
+                index = child;
+            }
+            keys[index] = key;
+            cells[index] = cell;
+            return result;
+        }
+
+    }
+
+    /**
+     * Receives the airports of a radius query by their position in the snapshot
+     */
+    @FunctionalInterface
+    public interface PositionVisitor {
+
+        /**
+         * @param position     of the airport, see {@link #getAirport(int)}
+         * @param squaredChord between the centre and the airport on the unit sphere, see
+         *                     {@link GeoUtils#distanceOfSquaredChord(double)}
+         */
+        void visit(int position, double squaredChord);
+
+    }
+
+}
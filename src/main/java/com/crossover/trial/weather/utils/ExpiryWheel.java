@@ -0,0 +1,108 @@
+package com.crossover.trial.weather.utils;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts records by the time of their last update over a sliding window of one day, without scanning the records.
+ * <p>
+ * The window is split into one minute buckets. A bucket holds the minute it counts for and the count, packed in one
+ * long, so it's reused for a new minute in a single compare-and-set once its old minute leaves the window. The count
+ * is exact up to the bucket width: a record drops out of the window within a minute after it's one day old.
+ */
+public class ExpiryWheel {
+
+    public static final long BUCKET_MILLIS = 60_000;
+
+    public static final int BUCKETS = 1440;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+    /**
+     * Move a record to the bucket of its new update time
+     *
+     * @param previous update time of the record in milliseconds since UTC epoch, 0 if the record is new
+     * @param current  update time of the record in milliseconds since UTC epoch
+     */
+    public void moved(long previous, long current) {
+        long previousMinute = previous / BUCKET_MILLIS;
+        long currentMinute = current / BUCKET_MILLIS;
+        if (previous > 0 && current > 0 && previousMinute == currentMinute) return;
+        remove(previous);
+        add(current);
+    }
+
+    /**
+     * Count a record updated at the given time
+     *
+     * @param time in milliseconds since UTC epoch
+     */
+    public void add(long time) {
+        if (time <= 0) return;
+        long minute = time / BUCKET_MILLIS;
+        int slot = (int) (minute % BUCKETS);
+        while (true) {
+            long bucket = buckets.get(slot);
+            long bucketMinute = minuteOf(bucket);
+            long next;
+            if (bucketMinute == minute) {
+                next = pack(minute, countOf(bucket) + 1);
+            } else if (bucketMinute < minute) {
+                next = pack(minute, 1);
+            } else {
+                // the record is already out of the window
+                return;
+            }
+            if (buckets.compareAndSet(slot, bucket, next)) return;
+        }
+    }
+
+    /**
+     * Stop counting a record updated at the given time
+     *
+     * @param time in milliseconds since UTC epoch
+     */
+    public void remove(long time) {
+        if (time <= 0) return;
+        long minute = time / BUCKET_MILLIS;
+        int slot = (int) (minute % BUCKETS);
+        while (true) {
+            long bucket = buckets.get(slot);
+            // a bucket of another minute doesn't count the record anymore
+            if (minuteOf(bucket) != minute) return;
+            if (buckets.compareAndSet(slot, bucket, pack(minute, countOf(bucket) - 1))) return;
+        }
+    }
+
+    /**
+     * @param now in milliseconds since UTC epoch
+     * @return number of records updated in the last day
+     */
+    public long count(long now) {
+        long oldest = now / BUCKET_MILLIS - BUCKETS;
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            long bucket = buckets.get(i);
+            if (minuteOf(bucket) > oldest) count += countOf(bucket);
+        }
+        return count;
+    }
+
+    public void clear() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets.set(i, 0);
+        }
+    }
+
+    private static long pack(long minute, int count) {
+        return minute << 32 | (count & 0xFFFFFFFFL);
+    }
+
+    private static long minuteOf(long bucket) {
+        return bucket >>> 32;
+    }
+
+    private static int countOf(long bucket) {
+        return (int) bucket;
+    }
+
+}
@@ -0,0 +1,60 @@
+package com.crossover.trial.weather.utils;
+
+/**
+ * Great-circle helpers shared by the DAO and the spatial index.
+ */
+public final class GeoUtils {
+
+    /**
+     * mean earth radius in KM used for all distance calculations
+     */
+    public static final double EARTH_RADIUS = 6372.8;
+
+    private GeoUtils() {
+    }
+
+    /**
+     * Haversine distance between two points.
+     *
+     * @param lat1 latitude of the first point in degrees
+     * @param lon1 longitude of the first point in degrees
+     * @param lat2 latitude of the second point in degrees
+     * @param lon2 longitude of the second point in degrees
+     * @return the distance in KM
+     */
+    public static double distance(double lat1, double lon1, double lat2, double lon2) {
+        double deltaLat = Math.toRadians(lat2 - lat1);
+        double deltaLon = Math.toRadians(lon2 - lon1);
+        double a = Math.pow(Math.sin(deltaLat / 2), 2) + Math.pow(Math.sin(deltaLon / 2), 2)
+                * Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2));
+        double c = 2 * Math.asin(Math.sqrt(a));
+
+        return EARTH_RADIUS * c;
+    }
+
+    /**
+     * Squared chord on the unit sphere matching the given distance, computed once per query and compared with
+     * {@link com.crossover.trial.weather.models.Airport#squaredChordTo}.
+     *
+     * @param radius in KM
+     * @return the squared chord, negative if nothing can match and infinite if everything matches
+     */
+    public static double squaredChord(double radius) {
+        if (!(radius >= 0)) return -1;
+        double angle = radius / EARTH_RADIUS;
+        if (angle >= Math.PI) return Double.POSITIVE_INFINITY;
+        double chord = 2 * Math.sin(angle / 2);
+        return chord * chord;
+    }
+
+    /**
+     * Inverse of {@link #squaredChord(double)}.
+     *
+     * @param squaredChord on the unit sphere
+     * @return the distance in KM
+     */
+    public static double distanceOfSquaredChord(double squaredChord) {
+        return 2 * EARTH_RADIUS * Math.asin(Math.min(1, Math.sqrt(squaredChord) / 2));
+    }
+
+}
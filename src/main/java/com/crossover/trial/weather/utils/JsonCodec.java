@@ -0,0 +1,136 @@
+package com.crossover.trial.weather.utils;
+
+import com.crossover.trial.weather.models.Airport;
+import com.crossover.trial.weather.models.Atmosphereinfo;
+import com.crossover.trial.weather.models.DataPoint;
+import com.crossover.trial.weather.models.WeatherReading;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.stereotype.Component;
+
+import javax.ws.rs.ext.ContextResolver;
+import javax.ws.rs.ext.Provider;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The JSON codec shared by the endpoints and Jersey.
+ * <p>
+ * An {@link ObjectMapper} builds its serializers on first use and caches them, so it must live as long as the
+ * application. Readers and writers are immutable and thread-safe, the ones of the hot paths are created once.
+ */
+@Component
+@Provider
+public class JsonCodec implements ContextResolver<ObjectMapper> {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private final ObjectReader dataPointReader = mapper.reader(DataPoint.class);
+    private final ObjectReader weatherReadingReader = mapper.reader(WeatherReading.class);
+    private final ObjectReader airportReader = mapper.reader(Airport.class);
+
+    private final ObjectWriter pingWriter = mapper.writerFor(new TypeReference<Map<String, Object>>() {
+    });
+    private final ObjectWriter atmosphereWriter = mapper.writerFor(new TypeReference<List<Atmosphereinfo>>() {
+    }).without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    private final ObjectWriter atmosphereLineWriter = mapper.writerFor(Atmosphereinfo.class)
+            .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+    @Override
+    public ObjectMapper getContext(Class<?> type) {
+        return mapper;
+    }
+
+    /**
+     * @param json a json dict containing mean, first, second, thrid and count keys
+     * @return the data point
+     */
+    public DataPoint readDataPoint(String json) throws IOException {
+        return dataPointReader.readValue(json);
+    }
+
+    /**
+     * @return the reader of single {@link WeatherReading}s, use {@link ObjectReader#readValues} for a list or a stream
+     */
+    public ObjectReader getWeatherReadingReader() {
+        return weatherReadingReader;
+    }
+
+    /**
+     * @return the reader of single {@link Airport}s, use {@link ObjectReader#readValues} for a list or a stream
+     */
+    public ObjectReader getAirportReader() {
+        return airportReader;
+    }
+
+    /**
+     * @param data the health information
+     * @return the json formatted dict
+     */
+    public String writePing(Map<String, Object> data) throws JsonProcessingException {
+        return pingWriter.writeValueAsString(data);
+    }
+
+    /**
+     * @param out         the stream to write to, it isn't closed
+     * @param atmospheres the atmospheric information
+     */
+    public void writeAtmosphere(OutputStream out, List<Atmosphereinfo> atmospheres) throws IOException {
+        atmosphereWriter.writeValue(out, atmospheres);
+    }
+
+    /**
+     * @param out the stream to write to, it isn't closed
+     * @return a writer of atmospheric information as newline delimited json, one value per line
+     */
+    public AtmosphereLines writeAtmosphereLines(OutputStream out) throws IOException {
+        JsonGenerator generator = mapper.getFactory().createGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.setRootValueSeparator(null);
+        return new AtmosphereLines(generator, atmosphereLineWriter.writeValues(generator));
+    }
+
+    /**
+     * Writes values through the buffer of one generator, so a line reaches the stream once the buffer is full and the
+     * memory doesn't depend on the number of values
+     */
+    public static class AtmosphereLines implements Closeable {
+
+        private final JsonGenerator generator;
+
+        private final SequenceWriter values;
+
+        private AtmosphereLines(JsonGenerator generator, SequenceWriter values) {
+            this.generator = generator;
+            this.values = values;
+        }
+
+        /**
+         * @param ai the atmospheric information of the next line
+         */
+        public void write(Atmosphereinfo ai) throws IOException {
+            values.write(ai);
+            generator.writeRaw('\n');
+        }
+
+        /**
+         * Flush the buffered lines, the stream is left open
+         */
+        @Override
+        public void close() throws IOException {
+            values.close();
+            generator.close();
+        }
+
+    }
+
+}
@@ -0,0 +1,119 @@
+package com.crossover.trial.weather.utils;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram of latencies in nanoseconds with a bounded relative error, in the manner of HdrHistogram.
+ * <p>
+ * Values below {@link #SUB_BUCKETS} get a bucket each, above that every power of two is split into
+ * {@link #SUB_BUCKETS} / 2 linear buckets, so a value is reported at most 1 / 16 above itself. All buckets are
+ * allocated up front, recording a value is a shift and an atomic increment. Values above {@link #MAX_VALUE}, about 18
+ * minutes, are counted in the last bucket.
+ */
+public class LatencyHistogram {
+
+    public static final long MAX_VALUE = (1L << 40) - 1;
+
+    /**
+     * log2 of the number of linear buckets below the first power of two that is split
+     */
+    private static final int SUB_BITS = 5;
+
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+    private static final int HALF_BUCKETS = SUB_BUCKETS / 2;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(indexOf(MAX_VALUE) + 1);
+
+    /**
+     * @param nanos the latency, negative values are counted as 0
+     */
+    public void record(long nanos) {
+        buckets.incrementAndGet(indexOf(Math.min(Math.max(nanos, 0), MAX_VALUE)));
+    }
+
+    /**
+     * @return the counts of the buckets, a copy that isn't affected by concurrent updates
+     */
+    public Snapshot snapshot() {
+        long[] counts = new long[buckets.length()];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = buckets.get(i);
+        }
+        return new Snapshot(counts);
+    }
+
+    public void clear() {
+        for (int i = 0; i < buckets.length(); i++) {
+            buckets.set(i, 0);
+        }
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+        int magnitude = 63 - Long.numberOfLeadingZeros(value);
+        int shift = magnitude - SUB_BITS + 1;
+        // the top SUB_BITS bits of the value, the leading one included, are in [HALF_BUCKETS, SUB_BUCKETS)
+        return shift * HALF_BUCKETS + (int) (value >>> shift);
+    }
+
+    /**
+     * @return the highest value counted in the bucket
+     */
+    static long highestValueOf(int index) {
+        if (index < SUB_BUCKETS) return index;
+        int shift = index / HALF_BUCKETS - 1;
+        long top = index - shift * HALF_BUCKETS;
+        return ((top + 1) << shift) - 1;
+    }
+
+    /**
+     * Histogram counts at one point in time
+     */
+    public static final class Snapshot {
+
+        private final long[] counts;
+
+        private final long count;
+
+        private Snapshot(long[] counts) {
+            this.counts = counts;
+            long total = 0;
+            for (long c : counts) {
+                total += c;
+            }
+            this.count = total;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * @param percentile in [0, 100]
+         * @return the highest value of the bucket that holds the percentile, 0 if there are no values
+         */
+        public long getValueAtPercentile(double percentile) {
+            if (count == 0) return 0;
+            long rank = Math.max(1, (long) Math.ceil(Math.min(percentile, 100) / 100 * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) return highestValueOf(i);
+            }
+            return highestValueOf(counts.length - 1);
+        }
+
+        /**
+         * @return the highest value of the highest non-empty bucket, 0 if there are no values
+         */
+        public long getMaxValue() {
+            for (int i = counts.length - 1; i >= 0; i--) {
+                if (counts[i] > 0) return highestValueOf(i);
+            }
+            return 0;
+        }
+
+    }
+
+}
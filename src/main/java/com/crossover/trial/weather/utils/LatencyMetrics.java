@@ -0,0 +1,70 @@
+package com.crossover.trial.weather.utils;
+
+import com.crossover.trial.weather.models.LatencyData;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency histograms of the endpoint methods.
+ * <p>
+ * A method gets its histogram on its first call, every later call records into it without allocating.
+ */
+@Component
+public class LatencyMetrics {
+
+    private final Map<Method, Entry> histograms = new ConcurrentHashMap<>();
+
+    /**
+     * @param method the called method
+     * @param nanos  duration of the call
+     */
+    public void record(Method method, long nanos) {
+        Entry entry = histograms.get(method);
+        if (entry == null) {
+            entry = histograms.computeIfAbsent(method, Entry::new);
+        }
+        entry.histogram.record(nanos);
+    }
+
+    /**
+     * @return the latency percentiles by class and method name, like WeatherQueryEndpoint.weather
+     */
+    public Map<String, LatencyData> getLatencyData() {
+        Map<String, LatencyData> result = new TreeMap<>();
+        for (Entry entry : histograms.values()) {
+            LatencyHistogram.Snapshot snapshot = entry.histogram.snapshot();
+            result.put(entry.name, new LatencyData(snapshot.getCount(),
+                    toMicros(snapshot.getValueAtPercentile(50)),
+                    toMicros(snapshot.getValueAtPercentile(99)),
+                    toMicros(snapshot.getValueAtPercentile(99.9)),
+                    toMicros(snapshot.getMaxValue())));
+        }
+        return result;
+    }
+
+    public void clear() {
+        histograms.clear();
+    }
+
+    private static long toMicros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+
+    private static final class Entry {
+
+        private final String name;
+
+        private final LatencyHistogram histogram = new LatencyHistogram();
+
+        private Entry(Method method) {
+            this.name = method.getDeclaringClass().getSimpleName() + "." + method.getName();
+        }
+
+    }
+
+}
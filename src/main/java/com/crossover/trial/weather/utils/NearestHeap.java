@@ -0,0 +1,113 @@
+package com.crossover.trial.weather.utils;
+
+import java.util.Arrays;
+
+/**
+ * The k smallest keys offered so far with an int value each, for top-k queries over a stream of candidates.
+ * <p>
+ * A binary max-heap on primitive columns, the root is the largest key kept, so a candidate that can't make the top k
+ * is rejected with a single comparison. The columns grow lazily up to k, an unbounded heap is only as large as what's
+ * offered. Not thread-safe, a heap belongs to one query.
+ */
+public class NearestHeap {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final int limit;
+
+    private double[] keys;
+    private int[] values;
+    private int size;
+
+    /**
+     * @param limit the number of entries to keep, Integer.MAX_VALUE keeps all
+     */
+    public NearestHeap(int limit) {
+        if (limit <= 0) throw new IllegalArgumentException("Limit must be positive " + limit);
+        this.limit = limit;
+        int capacity = Math.min(limit, INITIAL_CAPACITY);
+        this.keys = new double[capacity];
+        this.values = new int[capacity];
+    }
+
+    /**
+     * @param key   to order by, smaller is nearer
+     * @param value kept with the key
+     * @return true if the entry is among the k smallest so far
+     */
+    public boolean offer(double key, int value) {
+        if (size < limit) {
+            if (size == keys.length) grow();
+            siftUp(size++, key, value);
+            return true;
+        }
+        if (!(key < keys[0])) return false;
+        siftDown(0, key, value);
+        return true;
+    }
+
+    /**
+     * @return the largest key kept, the bound a candidate has to beat once the heap is full
+     */
+    public double peekKey() {
+        if (size == 0) throw new IllegalStateException("The heap is empty");
+        return keys[0];
+    }
+
+    public boolean isFull() {
+        return size == limit;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Empty the heap into the given arrays, in ascending order of the keys
+     *
+     * @param sortedKeys   receives the keys, at least {@link #size()} long, may be null
+     * @param sortedValues receives the values, at least {@link #size()} long
+     */
+    public void drainSorted(double[] sortedKeys, int[] sortedValues) {
+        for (int i = size - 1; i >= 0; i--) {
+            if (sortedKeys != null) sortedKeys[i] = keys[0];
+            sortedValues[i] = values[0];
+            size--;
+            if (size > 0) siftDown(0, keys[size], values[size]);
+        }
+    }
+
+    private void siftUp(int index, double key, int value) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (keys[parent] >= key) break;
+            keys[index] = keys[parent];
+            values[index] = values[parent];
+            index = parent;
+        }
+        keys[index] = key;
+        values[index] = value;
+    }
+
+    private void siftDown(int index, double key, int value) {
+        int half = size >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            int right = child + 1;
+            if (right < size && keys[right] > keys[child]) child = right;
+            if (key >= keys[child]) break;
+            keys[index] = keys[child];
+            values[index] = values[child];
+            index = child;
+        }
+        keys[index] = key;
+        values[index] = value;
+    }
+
+    private void grow() {
+        int capacity = (int) Math.min(limit, keys.length * 2L);
+        keys = Arrays.copyOf(keys, capacity);
+        values = Arrays.copyOf(values, capacity);
+    }
+
+}
@@ -0,0 +1,68 @@
+package com.crossover.trial.weather.utils;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Dense ordinals of the known airports, so per-airport counters can live in plain arrays.
+ * <p>
+ * An IATA code keeps its ordinal for the life of the application, a deleted and added again airport gets the same
+ * ordinal back. Ordinals are local to the node, they are never shared with the cluster.
+ */
+@Component
+public class OrdinalRegistry {
+
+    /**
+     * every IATA code that has ever been registered
+     */
+    private final Map<String, Integer> assigned = new ConcurrentHashMap<>();
+
+    /**
+     * IATA codes of the known airports
+     */
+    private final Map<String, Integer> active = new ConcurrentHashMap<>();
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    /**
+     * Register a known airport
+     *
+     * @param iata the 3 letter airport code
+     * @return ordinal of the airport
+     */
+    public int register(String iata) {
+        Integer ordinal = assigned.computeIfAbsent(iata, k -> next.getAndIncrement());
+        active.put(iata, ordinal);
+        return ordinal;
+    }
+
+    /**
+     * Forget a deleted airport, its ordinal stays reserved
+     *
+     * @param iata the 3 letter airport code
+     */
+    public void unregister(String iata) {
+        active.remove(iata);
+    }
+
+    /**
+     * @param iata the 3 letter airport code
+     * @return ordinal of the airport or -1 if it isn't known
+     */
+    public int ordinalOf(String iata) {
+        if (iata == null) return -1;
+        Integer ordinal = active.get(iata);
+        return ordinal == null ? -1 : ordinal;
+    }
+
+    /**
+     * @return upper bound of all ordinals, exclusive
+     */
+    public int size() {
+        return next.get();
+    }
+
+}
@@ -18,16 +18,39 @@ public interface Paths {
     static final String AIRPORT = "/airport";
     static final String QUERY = "/query";
     static final String EXIT = "/exit";
+    static final String BATCH = "/batch";
+    static final String METRICS = "/metrics";
+    static final String HISTORY = "/history";
+    static final String ROLLUP = "/rollup";
+    static final String NEARBY = "/nearby";
+    static final String NEAREST = "/nearest";
+    static final String NEAR = "/near";
+    static final String BBOX = "/bbox";
+    static final String CACHE = "/cache";
 
     static final String IATA_CODE = "iataCode";
     static final String POINT_TYPE = "pointType";
     static final String LONGITUDE = "longitude";
     static final String LATITUDE = "latitude";
     static final String RADIUS = "radius";
+    static final String RESOLUTION = "resolution";
+    static final String MIN_LATITUDE = "minLatitude";
+    static final String MIN_LONGITUDE = "minLongitude";
+    static final String MAX_LATITUDE = "maxLatitude";
+    static final String MAX_LONGITUDE = "maxLongitude";
     
     static final String IATA="iata";
     static final String LAT="lat";
     static final String LONG="long";
+    static final String FROM="from";
+    static final String TO="to";
+    static final String LIMIT="limit";
+    static final String SORT="sort";
+    static final String K="k";
+    static final String MAX_AGE="maxAge";
+
+    static final String APPLICATION_NDJSON = "application/x-ndjson";
+    static final String TEXT_CSV = "text/csv";
     
     
 }
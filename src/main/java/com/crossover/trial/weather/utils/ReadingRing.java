@@ -0,0 +1,168 @@
+package com.crossover.trial.weather.utils;
+
+import com.crossover.trial.weather.models.DataPoint;
+import com.crossover.trial.weather.models.TimedDataPoint;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fixed-size history of the data points of one airport and point type, the oldest reading is overwritten once it's
+ * full.
+ * <p>
+ * Readings are kept in primitive columns in the order they were added, which is the order of their times since a time
+ * is never stored below the previous one, so a time range is found by binary search. The columns start small and grow
+ * up to the capacity, an airport that is rarely updated doesn't hold a full ring.
+ */
+public class ReadingRing {
+
+    private static final int INITIAL_SIZE = 16;
+
+    private final int capacity;
+
+    private long[] times = new long[0];
+    private double[] means = new double[0];
+    private int[] firsts = new int[0];
+    private int[] seconds = new int[0];
+    private int[] thirds = new int[0];
+    private int[] counts = new int[0];
+
+    /**
+     * position of the oldest reading
+     */
+    private int head;
+
+    private int size;
+
+    /**
+     * @param capacity the maximum number of readings
+     */
+    public ReadingRing(int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("Capacity must be positive " + capacity);
+        this.capacity = capacity;
+    }
+
+    /**
+     * Add a reading, replacing the oldest one if the ring is full
+     *
+     * @param time of the update in milliseconds since UTC epoch, a time before the newest reading is stored as the
+     *             time of the newest reading
+     * @param dp   the data point
+     */
+    public synchronized void add(long time, DataPoint dp) {
+        if (size > 0) time = Math.max(time, times[position(size - 1)]);
+        if (size == times.length && size < capacity) grow();
+
+        int p;
+        if (size < times.length) {
+            p = position(size++);
+        } else {
+            p = head;
+            head = position(1);
+        }
+        times[p] = time;
+        means[p] = dp.getMean();
+        firsts[p] = dp.getFirst();
+        seconds[p] = dp.getSecond();
+        thirds[p] = dp.getThird();
+        counts[p] = dp.getCount();
+    }
+
+    /**
+     * @param from the earliest time, inclusive
+     * @param to   the latest time, inclusive
+     * @return readings of the time range from the oldest to the newest
+     */
+    public synchronized List<TimedDataPoint> find(long from, long to) {
+        int first = indexAfter(from, false);
+        int last = indexAfter(to, true);
+        List<TimedDataPoint> result = new ArrayList<>(Math.max(0, last - first));
+        for (int i = first; i < last; i++) {
+            int p = position(i);
+            DataPoint dp = new DataPoint();
+            dp.setMean(means[p]);
+            dp.setFirst(firsts[p]);
+            dp.setSecond(seconds[p]);
+            dp.setThird(thirds[p]);
+            dp.setCount(counts[p]);
+            result.add(new TimedDataPoint(times[p], dp));
+        }
+        return result;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Drop all readings, the columns are kept
+     */
+    public synchronized void clear() {
+        head = 0;
+        size = 0;
+    }
+
+    /**
+     * @param inclusive whether readings at the time are skipped too
+     * @return the logical index of the first reading after the time, or at it if not inclusive, size if there is none
+     */
+    private int indexAfter(long time, boolean inclusive) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            long t = times[position(mid)];
+            if (t < time || inclusive && t == time) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int position(int index) {
+        int p = head + index;
+        return p < times.length ? p : p - times.length;
+    }
+
+    /**
+     * Grow the columns of a full ring, the readings are moved to the start of the columns
+     */
+    private void grow() {
+        int length = Math.min(capacity, Math.max(INITIAL_SIZE, times.length * 2));
+        times = unwrap(times, length);
+        means = unwrap(means, length);
+        firsts = unwrap(firsts, length);
+        seconds = unwrap(seconds, length);
+        thirds = unwrap(thirds, length);
+        counts = unwrap(counts, length);
+        head = 0;
+    }
+
+    private long[] unwrap(long[] column, int length) {
+        long[] grown = new long[length];
+        System.arraycopy(column, head, grown, 0, column.length - head);
+        System.arraycopy(column, 0, grown, column.length - head, head);
+        return grown;
+    }
+
+    private double[] unwrap(double[] column, int length) {
+        double[] grown = new double[length];
+        System.arraycopy(column, head, grown, 0, column.length - head);
+        System.arraycopy(column, 0, grown, column.length - head, head);
+        return grown;
+    }
+
+    private int[] unwrap(int[] column, int length) {
+        int[] grown = new int[length];
+        System.arraycopy(column, head, grown, 0, column.length - head);
+        System.arraycopy(column, 0, grown, column.length - head, head);
+        return grown;
+    }
+
+}
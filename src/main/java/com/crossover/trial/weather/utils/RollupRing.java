@@ -0,0 +1,155 @@
+package com.crossover.trial.weather.utils;
+
+import com.crossover.trial.weather.models.DataPoint;
+import com.crossover.trial.weather.models.TimedDataPoint;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Aggregates of the data points of one airport and point type over fixed-width time buckets, the last buckets up to
+ * the capacity are kept.
+ * <p>
+ * A bucket lives in the slot of its number modulo the length of the columns, and the start time stored with it tells
+ * whether the slot still holds it or an older bucket that has to be reset first. Folding a reading is a few arithmetic
+ * operations on primitive columns. The columns start small and double up to the capacity when two buckets kept at the
+ * same time would share a slot, an airport that is rarely updated doesn't hold a full ring.
+ * <p>
+ * An aggregate is reported in the shape of a data point: first is the lowest first quartile of the readings, third the
+ * highest third quartile, mean and second the averages of the means and of the medians, and count the number of
+ * readings folded into the bucket.
+ */
+public class RollupRing {
+
+    private static final int INITIAL_SIZE = 8;
+
+    private final long width;
+
+    private final int capacity;
+
+    private long[] starts = new long[0];
+    private int[] mins = new int[0];
+    private int[] maxs = new int[0];
+    private double[] meanSums = new double[0];
+    private double[] secondSums = new double[0];
+    private int[] counts = new int[0];
+
+    /**
+     * @param width    of a bucket in milliseconds
+     * @param capacity the number of buckets
+     */
+    public RollupRing(long width, int capacity) {
+        if (width <= 0) throw new IllegalArgumentException("Width must be positive " + width);
+        if (capacity <= 0) throw new IllegalArgumentException("Capacity must be positive " + capacity);
+        this.width = width;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Fold a reading into the bucket of its time, a reading older than the buckets kept is dropped
+     *
+     * @param time of the update in milliseconds since UTC epoch
+     * @param dp   the data point
+     */
+    public synchronized void add(long time, DataPoint dp) {
+        long bucket = Math.floorDiv(time, width);
+        long start = bucket * width;
+        if (counts.length == 0) grow();
+        int slot = (int) Math.floorMod(bucket, (long) counts.length);
+        while (counts.length < capacity && counts[slot] > 0 && starts[slot] != start
+                && Math.abs(starts[slot] / width - bucket) < capacity) {
+            grow();
+            slot = (int) Math.floorMod(bucket, (long) counts.length);
+        }
+
+        if (counts[slot] > 0 && starts[slot] > start) return;
+        if (counts[slot] == 0 || starts[slot] < start) {
+            starts[slot] = start;
+            mins[slot] = dp.getFirst();
+            maxs[slot] = dp.getThird();
+            meanSums[slot] = dp.getMean();
+            secondSums[slot] = dp.getSecond();
+            counts[slot] = 1;
+            return;
+        }
+        mins[slot] = Math.min(mins[slot], dp.getFirst());
+        maxs[slot] = Math.max(maxs[slot], dp.getThird());
+        meanSums[slot] += dp.getMean();
+        secondSums[slot] += dp.getSecond();
+        counts[slot]++;
+    }
+
+    /**
+     * @param now the current time in milliseconds since UTC epoch
+     * @return the non-empty buckets of the capacity up to the bucket of now, from the oldest to the newest, with the
+     * start time of the bucket
+     */
+    public synchronized List<TimedDataPoint> find(long now) {
+        List<TimedDataPoint> result = new ArrayList<>();
+        if (counts.length == 0) return result;
+
+        long last = Math.floorDiv(now, width);
+        for (long bucket = last - capacity + 1; bucket <= last; bucket++) {
+            int slot = (int) Math.floorMod(bucket, (long) counts.length);
+            if (counts[slot] == 0 || starts[slot] != bucket * width) continue;
+
+            DataPoint dp = new DataPoint();
+            dp.setFirst(mins[slot]);
+            dp.setThird(maxs[slot]);
+            dp.setMean(meanSums[slot] / counts[slot]);
+            dp.setSecond((int) Math.round(secondSums[slot] / counts[slot]));
+            dp.setCount(counts[slot]);
+            result.add(new TimedDataPoint(starts[slot], dp));
+        }
+        return result;
+    }
+
+    public long getWidth() {
+        return width;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Drop all buckets, the columns are kept
+     */
+    public synchronized void clear() {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = 0;
+        }
+    }
+
+    /**
+     * Double the columns up to the capacity and move every bucket to its slot in them, of two buckets meeting in a
+     * slot only the newer one can still be queried
+     */
+    private void grow() {
+        int length = Math.min(capacity, Math.max(INITIAL_SIZE, 2 * counts.length));
+        long[] grownStarts = new long[length];
+        int[] grownMins = new int[length];
+        int[] grownMaxs = new int[length];
+        double[] grownMeanSums = new double[length];
+        double[] grownSecondSums = new double[length];
+        int[] grownCounts = new int[length];
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) continue;
+            int slot = (int) Math.floorMod(starts[i] / width, (long) length);
+            if (grownCounts[slot] > 0 && grownStarts[slot] > starts[i]) continue;
+            grownStarts[slot] = starts[i];
+            grownMins[slot] = mins[i];
+            grownMaxs[slot] = maxs[i];
+            grownMeanSums[slot] = meanSums[i];
+            grownSecondSums[slot] = secondSums[i];
+            grownCounts[slot] = counts[i];
+        }
+        starts = grownStarts;
+        mins = grownMins;
+        maxs = grownMaxs;
+        meanSums = grownMeanSums;
+        secondSums = grownSecondSums;
+        counts = grownCounts;
+    }
+
+}
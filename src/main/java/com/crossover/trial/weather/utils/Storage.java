@@ -1,58 +1,132 @@
 package com.crossover.trial.weather.utils;
 
+import java.util.Collection;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.springframework.stereotype.Component;
 
 import com.crossover.trial.weather.models.Airport;
 import com.crossover.trial.weather.models.Atmosphereinfo;
 
 /**
  * Simple in-memory data storage. Production system has to implement more reliable storage.
+ * <p>
+ * The data lives in a {@link Dataset} that can be replaced as a whole, readers take the current one with a single
+ * volatile read and never block.
  */
+@Component
 public class Storage {
 
+    private final AtomicReference<Dataset> dataset = new AtomicReference<>(new Dataset());
+
+    /**
+     * @return the current dataset
+     */
+    public Dataset getDataset() {
+        return dataset.get();
+    }
+
     /**
-     * All known airports
+     * Replace the whole dataset at once, for example to reload the airports
+     *
+     * @param next the new dataset
+     * @return the replaced dataset
      */
-    private static Map<String, Airport> AIRPORT_DATA = new ConcurrentHashMap<>();
+    public Dataset swap(Dataset next) {
+        return dataset.getAndSet(next);
+    }
 
     /**
-     * Atmospheric information for each airport
+     * Replace the dataset with an empty one
+     *
+     * @return the replaced dataset
      */
-    private static Map<String, Atmosphereinfo> ATMOSPHERIC_INFORMATION = new ConcurrentHashMap<>();
+    public Dataset clear() {
+        return swap(new Dataset());
+    }
 
     /**
-     * Internal performance counters to better understand most requested information, this map can be improved but
-     * for now provides the basis for future performance optimizations. Due to the stateless deployment architecture
-     * we don't want to write this to disk, but will pull it off using a REST request and aggregate with other
-     * performance metrics {@link com.crossover.trial.weather.RestWeatherQueryEndpoint}
+     * All data of the storage, the collections are thread-safe and can be modified in place. The DAO reads the dataset
+     * once per operation, so an operation never writes to the collections of two different datasets.
      */
-    private static Map<Airport, AtomicInteger> REQUEST_FREQUENCY = new ConcurrentHashMap<>();
-    private static Map<Double, AtomicInteger> RADIUS_FREQUENCY = new ConcurrentHashMap<>();
-	public synchronized static Map<Airport, AtomicInteger> getREQUEST_FREQUENCY() {
-		return REQUEST_FREQUENCY;
-	}
-	public synchronized static void setREQUEST_FREQUENCY(Map<Airport, AtomicInteger> rEQUEST_FREQUENCY) {
-		REQUEST_FREQUENCY = rEQUEST_FREQUENCY;
-	}
-	public synchronized static Map<Double, AtomicInteger> getRADIUS_FREQUENCY() {
-		return RADIUS_FREQUENCY;
-	}
-	public synchronized static void setRADIUS_FREQUENCY(Map<Double, AtomicInteger> rADIUS_FREQUENCY) {
-		RADIUS_FREQUENCY = rADIUS_FREQUENCY;
-	}
-	public synchronized static Map<String, Atmosphereinfo> getATMOSPHERIC_INFORMATION() {
-		return ATMOSPHERIC_INFORMATION;
-	}
-	public synchronized static void setATMOSPHERIC_INFORMATION(Map<String, Atmosphereinfo> aTMOSPHERIC_INFORMATION) {
-		ATMOSPHERIC_INFORMATION = aTMOSPHERIC_INFORMATION;
-	}
-	public synchronized static Map<String, Airport> getAIRPORT_DATA() {
-		return AIRPORT_DATA;
-	}
-	public synchronized static void setAIRPORT_DATA(Map<String, Airport> aIRPORT_DATA) {
-		AIRPORT_DATA = aIRPORT_DATA;
-	}
+    public static final class Dataset {
+
+        /**
+         * All known airports
+         */
+        private final Map<String, Airport> airportData;
+
+        /**
+         * Read-only snapshot of all known airports for the queries, maintained together with airportData
+         */
+        private final AirportCatalog airportCatalog;
+
+        /**
+         * Atmospheric information for each airport
+         */
+        private final Map<String, Atmosphereinfo> atmosphericInformation;
+
+        /**
+         * Atmospheric information by the time of the last update, maintained together with atmosphericInformation
+         */
+        private final ExpiryWheel recentUpdates;
+
+        public Dataset() {
+            this(AirportSnapshot.EMPTY);
+        }
+
+        /**
+         * @param airports the airports of the new dataset, it has no atmospheric information
+         */
+        public Dataset(Collection<Airport> airports) {
+            this(AirportSnapshot.of(airports));
+        }
+
+        /**
+         * @param snapshot the airports of the new dataset with their spatial index, it has no atmospheric information
+         */
+        public Dataset(AirportSnapshot snapshot) {
+            this(new ConcurrentHashMap<>(), new AirportCatalog(snapshot), new ConcurrentHashMap<>(), new ExpiryWheel());
+            for (int p = 0; p < snapshot.size(); p++) {
+                airportData.put(snapshot.getIataCode(p), snapshot.getAirport(p));
+            }
+        }
+
+        /**
+         * A dataset over collections kept somewhere else, for example in a cluster
+         *
+         * @param airportData            all known airports
+         * @param airportCatalog         read-only copy of the airports, kept in sync with airportData
+         * @param atmosphericInformation atmospheric information for each airport
+         * @param recentUpdates          atmospheric information by the time of the last update, null if the
+         *                               atmospheric information is also changed by others
+         */
+        public Dataset(Map<String, Airport> airportData, AirportCatalog airportCatalog,
+                       Map<String, Atmosphereinfo> atmosphericInformation, ExpiryWheel recentUpdates) {
+            this.airportData = airportData;
+            this.airportCatalog = airportCatalog;
+            this.atmosphericInformation = atmosphericInformation;
+            this.recentUpdates = recentUpdates;
+        }
+
+        public Map<String, Airport> getAirportData() {
+            return airportData;
+        }
+
+        public AirportCatalog getAirportCatalog() {
+            return airportCatalog;
+        }
+
+        public Map<String, Atmosphereinfo> getAtmosphericInformation() {
+            return atmosphericInformation;
+        }
+
+        public ExpiryWheel getRecentUpdates() {
+            return recentUpdates;
+        }
+
+    }
 
 }
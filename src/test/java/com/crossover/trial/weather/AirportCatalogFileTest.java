@@ -0,0 +1,120 @@
+package com.crossover.trial.weather;
+
+import com.crossover.trial.weather.models.Airport;
+import com.crossover.trial.weather.services.AirportCatalogCompiler;
+import com.crossover.trial.weather.services.AirportDao;
+import com.crossover.trial.weather.utils.AirportCatalogFile;
+import com.crossover.trial.weather.utils.AirportSnapshot;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Binary airport catalog tests
+ */
+public class AirportCatalogFileTest {
+
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("airports", ".bin");
+    }
+
+    @After
+    public void tearDown() {
+        System.clearProperty("weather.catalog");
+        file.delete();
+    }
+
+    @Test
+    public void testCompile() throws Exception {
+        AirportSnapshot compiled;
+        try (InputStream in = getClass().getResourceAsStream("/airports.dat")) {
+            compiled = AirportCatalogCompiler.compile(in);
+        }
+        assertEquals(10, compiled.size());
+        AirportCatalogFile.write(compiled, file);
+
+        AirportSnapshot read = AirportCatalogFile.read(file);
+        assertEquals(compiled.getIataCodes(), read.getIataCodes());
+        Airport bos = read.get("BOS");
+        assertEquals(42.364347, bos.getLatitude(), 0);
+        assertEquals(-71.005181, bos.getLongitude(), 0);
+    }
+
+    @Test
+    public void testSpatialIndex() throws Exception {
+        Random random = new Random(42);
+        List<Airport> airports = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            airports.add(new Airport(String.format("%04d", i), random.nextDouble() * 180 - 90,
+                    random.nextDouble() * 360 - 180));
+        }
+        // outside of the grid, checked by every query
+        airports.add(new Airport("NAN", Double.NaN, 0));
+        AirportSnapshot snapshot = AirportSnapshot.of(airports);
+        AirportCatalogFile.write(snapshot, file);
+        AirportSnapshot read = AirportCatalogFile.read(file);
+
+        for (int i = 0; i < 200; i++) {
+            double latitude = random.nextDouble() * 180 - 90;
+            double longitude = random.nextDouble() * 360 - 180;
+            double radius = random.nextDouble() * 3000;
+            Set<String> expected = new HashSet<>();
+            snapshot.forEachWithin(latitude, longitude, radius, a -> expected.add(a.getIata()));
+            Set<String> actual = new HashSet<>();
+            read.forEachWithin(latitude, longitude, radius, a -> actual.add(a.getIata()));
+            assertEquals(expected, actual);
+        }
+        assertNotNull(read.get("NAN"));
+    }
+
+    @Test(expected = IOException.class)
+    public void testCorrupt() throws Exception {
+        AirportCatalogFile.write(AirportSnapshot.of(Collections.singletonList(new Airport("BOS", 42, -71))), file);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(raf.length() - 12);
+            raf.writeInt(12345);
+        }
+        AirportCatalogFile.read(file);
+    }
+
+    @Test
+    public void testBootstrap() throws Exception {
+        try (InputStream in = getClass().getResourceAsStream("/airports.dat")) {
+            AirportCatalogFile.write(AirportCatalogCompiler.compile(in), file);
+        }
+        System.setProperty("weather.catalog", file.getPath());
+
+        try (ClassPathXmlApplicationContext context = new ClassPathXmlApplicationContext("beansContext.xml")) {
+            AirportDao airportDao = context.getBean(AirportDao.class);
+            assertEquals(10, airportDao.getAllAirportCodes().size());
+            assertTrue(airportDao.findNearbyAirports("JFK", 50).size() > 1);
+            assertNull(airportDao.findAtmosphericInformation("JFK"));
+        }
+
+        try (ClassPathXmlApplicationContext context = new ClassPathXmlApplicationContext("offHeapContext.xml")) {
+            AirportDao airportDao = context.getBean("airportDao", AirportDao.class);
+            assertEquals(10, airportDao.getAllAirportCodes().size());
+        }
+    }
+
+}
@@ -2,8 +2,12 @@ package com.crossover.trial.weather;
 
 import com.crossover.trial.weather.endpoints.WeatherCollectorEndpoint;
 import com.crossover.trial.weather.models.Airport;
+import com.crossover.trial.weather.models.ImportStatus;
+import com.crossover.trial.weather.services.AirportDao;
+import com.crossover.trial.weather.services.PerformanceDao;
 import com.crossover.trial.weather.utils.Storage;
 
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -11,6 +15,9 @@ import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 
 import javax.annotation.Resource;
+import javax.ws.rs.core.Response;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Set;
 
 import static org.junit.Assert.*;
@@ -24,13 +31,18 @@ public class AirportEPTest {
 
     @Resource
     private WeatherCollectorEndpoint endpoint;
+    @Resource
+    private AirportDao airportDao;
+    @Resource
+    private PerformanceDao performanceDao;
+    @Resource
+    private Storage storage;
 
     @Before
     public void setUp() {
-        Storage.getAIRPORT_DATA().clear();
-        Storage.getATMOSPHERIC_INFORMATION().clear();
-        Storage.getREQUEST_FREQUENCY().clear();
-        Storage.getRADIUS_FREQUENCY().clear();
+        airportDao.getAllAirportCodes().forEach(airportDao::deleteAirport);
+        storage.clear();
+        performanceDao.clear();
 
         endpoint.addAirport("BOS", "42.364347", "-71.005181");
         endpoint.addAirport("EWR", "40.6925", "-74.168667");
@@ -60,6 +72,61 @@ public class AirportEPTest {
         assertEquals(airports.size(), 6);
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testAddAirportsCsv() {
+        Response response = endpoint.addAirportsCsv(stream("AAA,1,2\nBBB,-1000,100\n\"CCC\",\"3.5\",\"-4\"\nDD,1,1\nEEE\n"));
+        assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
+        ImportStatus status = (ImportStatus) response.getEntity();
+        assertEquals(2, status.getSaved());
+        assertEquals(3, status.getRejected());
+        assertEquals(3.5, ((Airport) endpoint.getAirport("CCC").getEntity()).getLatitude(), 0);
+        Set<String> airports = (Set<String>) endpoint.getAirports().getEntity();
+        assertEquals(7, airports.size());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testAddAirportsJson() {
+        Response response = endpoint.addAirportsJson(stream("[{\"iata\":\"AAA\",\"latitude\":1,\"longitude\":2}," +
+                "{\"iata\":\"BBB\",\"latitude\":1,\"longitude\":200},{\"latitude\":1,\"longitude\":2}]"));
+        assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
+        ImportStatus status = (ImportStatus) response.getEntity();
+        assertEquals(1, status.getSaved());
+        assertEquals(2, status.getRejected());
+        Set<String> airports = (Set<String>) endpoint.getAirports().getEntity();
+        assertEquals(6, airports.size());
+
+        response = endpoint.addAirportsJson(stream("[{\"iata\":"));
+        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), response.getStatus());
+        status = (ImportStatus) response.getEntity();
+        assertEquals(0, status.getSaved());
+        assertNotNull(status.getError());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testAddAirportsMalformed() {
+        // a full batch is saved before the unterminated quote is read
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 1500; i++) {
+            body.append((char) ('X' + i / 676)).append((char) ('A' + i / 26 % 26)).append((char) ('A' + i % 26))
+                    .append(",1,1\n");
+        }
+        body.append("\"QQQ,1,1\n");
+        Response response = endpoint.addAirportsCsv(stream(body.toString()));
+        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), response.getStatus());
+        ImportStatus status = (ImportStatus) response.getEntity();
+        assertEquals(1000, status.getSaved());
+        assertEquals(0, status.getRejected());
+        assertNotNull(status.getError());
+        assertEquals(1005, ((Set<String>) endpoint.getAirports().getEntity()).size());
+    }
+
+    private static ByteArrayInputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+
     @Test
     public void testGetAirport() {
         Airport ad = (Airport) endpoint.getAirport("BOS").getEntity();
@@ -84,4 +151,10 @@ public class AirportEPTest {
         endpoint.deleteAirport(null);
     }
 
+    @After
+    public void tearDown() {
+        airportDao.getAllAirportCodes().forEach(airportDao::deleteAirport);
+        performanceDao.clear();
+    }
+
 }
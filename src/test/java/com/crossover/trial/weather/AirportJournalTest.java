@@ -0,0 +1,287 @@
+package com.crossover.trial.weather;
+
+import com.crossover.trial.weather.models.Airport;
+import com.crossover.trial.weather.models.Atmosphereinfo;
+import com.crossover.trial.weather.models.DataPoint;
+import com.crossover.trial.weather.models.DataPointType;
+import com.crossover.trial.weather.models.Resolution;
+import com.crossover.trial.weather.models.TimedDataPoint;
+import com.crossover.trial.weather.services.HistoryDao;
+import com.crossover.trial.weather.services.RollupDao;
+import com.crossover.trial.weather.services.SimpleAirportDaoImpl;
+import com.crossover.trial.weather.services.wal.WriteAheadLog;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.BeanCreationException;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Recovery of the simple airport DAO from its journal after a restart
+ */
+public class AirportJournalTest {
+
+    private File dir;
+
+    private ClassPathXmlApplicationContext context;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("wal").toFile();
+        System.setProperty("weather.wal.dir", dir.getPath());
+        System.setProperty("weather.wal.segmentBytes", "65536");
+    }
+
+    @After
+    public void tearDown() {
+        if (context != null) context.close();
+        System.clearProperty("weather.wal.dir");
+        System.clearProperty("weather.wal.segmentBytes");
+        File[] files = dir.listFiles();
+        if (files != null) Arrays.stream(files).forEach(File::delete);
+        dir.delete();
+    }
+
+    private String[] snapshots() {
+        String[] names = dir.list((d, name) -> name.matches("snapshot-\\d+\\.bin"));
+        Arrays.sort(names);
+        return names;
+    }
+
+    /**
+     * Overwrite a few bytes in the middle of the snapshot
+     */
+    private void damage(String snapshot) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(new File(dir, snapshot), "rw")) {
+            file.seek(file.length() / 2);
+            file.writeLong(-1);
+        }
+    }
+
+    private SimpleAirportDaoImpl checkpoints(int count) throws IOException {
+        SimpleAirportDaoImpl dao = restart();
+        dao.saveAirport(new Airport("BOS", 42.364347, -71.005181));
+        for (int i = 0; i < count; i++) {
+            dao.updateAtmosphericInformation("BOS", "wind", new DataPoint(i, i, i, i, i));
+            dao.checkpoint();
+        }
+        dao.updateAtmosphericInformation("BOS", "wind", new DataPoint(9, 9, 9, 9, count));
+        return dao;
+    }
+
+    private String firstSegment() {
+        return Arrays.stream(dir.list((d, name) -> name.startsWith("wal-"))).sorted().findFirst().orElse(null);
+    }
+
+    private SimpleAirportDaoImpl restart() {
+        if (context != null) context.close();
+        context = new ClassPathXmlApplicationContext("beansContext.xml");
+        return context.getBean(SimpleAirportDaoImpl.class);
+    }
+
+    @Test
+    public void testReplay() throws Exception {
+        SimpleAirportDaoImpl dao = restart();
+        dao.saveAirports(Arrays.asList(new Airport("BOS", 42.364347, -71.005181),
+                new Airport("EWR", 40.6925, -74.168667), new Airport("JFK", 40.639751, -73.778925)));
+        dao.updateAtmosphericInformation("BOS", "wind", new DataPoint(10, 20, 30, 40, 50));
+        dao.updateAtmosphericInformation("BOS", "temperature", new DataPoint(1, 2, 3, 4, 5));
+        dao.updateAtmosphericInformation("JFK", "wind", new DataPoint(5, 6, 7, 8, 9));
+        dao.deleteAirport("EWR");
+        dao.deleteAtmosphericInformation("JFK");
+        Atmosphereinfo bos = dao.findAtmosphericInformation("BOS");
+
+        dao = restart();
+        assertEquals(new HashSet<>(Arrays.asList("BOS", "JFK")), dao.getAllAirportCodes());
+        assertEquals(-71.005181, dao.findAirportData("BOS").getLongitude(), 0);
+        assertEquals(bos, dao.findAtmosphericInformation("BOS"));
+        assertEquals(bos.getLastUpdateTime(), dao.findAtmosphericInformation("BOS").getLastUpdateTime());
+        assertNull(dao.findAtmosphericInformation("JFK"));
+        assertEquals(1, dao.countRecentAtmosphericInformation());
+
+        // the recovered changes aren't new readings
+        assertTrue(context.getBean(HistoryDao.class)
+                .findHistory("BOS", DataPointType.TEMPERATURE, 0, Long.MAX_VALUE).isEmpty());
+    }
+
+    @Test
+    public void testRecoveredChangesNotCounted() throws Exception {
+        // the last update before the checkpoint is in both the snapshot and the log
+        checkpoints(1);
+
+        SimpleAirportDaoImpl dao = restart();
+        dao.updateAtmosphericInformation("BOS", "wind", new DataPoint(1, 1, 1, 1, 1));
+        List<TimedDataPoint> history = context.getBean(HistoryDao.class)
+                .findHistory("BOS", DataPointType.WIND, 0, Long.MAX_VALUE);
+        assertEquals(1, history.size());
+        List<TimedDataPoint> rollup = context.getBean(RollupDao.class)
+                .findRollup("BOS", DataPointType.WIND, Resolution.DAY);
+        assertEquals(1, rollup.size());
+        assertEquals(1, rollup.get(0).getDataPoint().getCount());
+    }
+
+    @Test
+    public void testFailedAppend() throws Exception {
+        SimpleAirportDaoImpl dao = restart();
+        dao.saveAirport(new Airport("BOS", 42.364347, -71.005181));
+        // the next segments can't be created
+        Arrays.stream(dir.listFiles()).forEach(File::delete);
+        assertTrue(dir.delete());
+
+        try {
+            for (int i = 0; i < 5000; i++) {
+                dao.updateAtmosphericInformation("BOS", "wind", new DataPoint(i, i, i, i, i));
+            }
+            fail("The updates were not journaled");
+        } catch (UncheckedIOException e) {
+            // the update that couldn't be journaled fails
+        }
+    }
+
+    @Test
+    public void testCheckpoint() throws Exception {
+        SimpleAirportDaoImpl dao = restart();
+        List<Airport> airports = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            airports.add(new Airport(String.format("X%04d", i), i % 180 - 90, i % 360 - 180));
+        }
+        dao.saveAirports(airports);
+        for (int i = 0; i < 2000; i += 2) {
+            dao.updateAtmosphericInformation(String.format("X%04d", i), "pressure", new DataPoint(700, 710, 720, 730, i));
+        }
+        dao.checkpoint();
+        dao.updateAtmosphericInformation("X0001", "wind", new DataPoint(1, 1, 1, 1, 1));
+        dao.checkpoint();
+        dao.deleteAirport("X0002");
+
+        // the log before the previous snapshot is gone, the previous snapshot is kept as a fallback
+        String[] snapshots = snapshots();
+        assertEquals(2, snapshots.length);
+        assertEquals(snapshots[0].substring(9, 25), firstSegment().substring(4, 20));
+
+        dao = restart();
+        assertEquals(1999, dao.getAllAirportCodes().size());
+        assertNull(dao.findAirportData("X0002"));
+        assertEquals(1998, dao.findAtmosphericInformation("X1998").getPressure().getCount());
+        assertNotNull(dao.findAtmosphericInformation("X0001").getWind());
+        assertEquals(1000, dao.countRecentAtmosphericInformation());
+    }
+
+    @Test
+    public void testDamagedSnapshot() throws Exception {
+        checkpoints(2);
+        String[] snapshots = snapshots();
+        damage(snapshots[1]);
+
+        // the previous snapshot and the log after it
+        SimpleAirportDaoImpl dao = restart();
+        assertEquals(2, dao.findAtmosphericInformation("BOS").getWind().getCount());
+        assertTrue(new File(dir, snapshots[1] + ".damaged").isFile());
+        assertEquals(1, snapshots().length);
+    }
+
+    @Test
+    public void testDamagedFirstSnapshot() throws Exception {
+        checkpoints(1);
+        damage(snapshots()[0]);
+
+        // the log goes back to the start
+        assertEquals(1, restart().findAtmosphericInformation("BOS").getWind().getCount());
+    }
+
+    @Test(expected = BeanCreationException.class)
+    public void testNoReadableSnapshot() throws Exception {
+        checkpoints(3);
+        for (String snapshot : snapshots()) {
+            damage(snapshot);
+        }
+        restart();
+    }
+
+    @Test
+    public void testTornTail() throws Exception {
+        WriteAheadLog log = new WriteAheadLog(dir, 65536);
+        log.open(0);
+        for (int i = 0; i < 10; i++) {
+            int value = i;
+            log.append(buffer -> buffer.putInt(value));
+        }
+        log.close();
+
+        // damage the payload of the 8th record, 12 bytes each
+        try (RandomAccessFile file = new RandomAccessFile(new File(dir, "wal-0000000000000000.log"), "rw")) {
+            file.seek(7 * 12 + 8);
+            file.writeInt(-1);
+        }
+
+        List<Integer> values = new ArrayList<>();
+        assertEquals(0, new WriteAheadLog(dir, 65536).replay(0, buffer -> values.add(buffer.getInt())));
+        assertEquals(Arrays.asList(0, 1, 2, 3, 4, 5, 6), values);
+    }
+
+    @Test
+    public void testConcurrentAppends() throws Exception {
+        WriteAheadLog log = new WriteAheadLog(dir, 8192);
+        log.open(0);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int thread = t;
+            threads.add(new Thread(() -> {
+                try {
+                    // records of 8 to 1000 bytes, so the segments of 8KB roll over and over
+                    for (int i = 0; i < 2000; i++) {
+                        int value = thread * 2000 + i;
+                        log.append(buffer -> {
+                            buffer.putInt(value);
+                            buffer.position(buffer.position() + value % 1000);
+                        });
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        log.close();
+
+        Set<Integer> values = new HashSet<>();
+        long last = new WriteAheadLog(dir, 8192).replay(0, buffer -> assertTrue(values.add(buffer.getInt())));
+        assertEquals(8000, values.size());
+        assertEquals(last + 1, dir.list((d, name) -> name.startsWith("wal-")).length);
+    }
+
+    @Test
+    public void testRoll() throws Exception {
+        SimpleAirportDaoImpl dao = restart();
+        dao.saveAirport(new Airport("BOS", 42.364347, -71.005181));
+        // far more than a segment of 64KB
+        for (int i = 0; i < 5000; i++) {
+            dao.updateAtmosphericInformation("BOS", "wind", new DataPoint(i, i, i, i, i));
+        }
+        assertTrue(dir.list((d, name) -> name.startsWith("wal-")).length > 1);
+
+        dao = restart();
+        assertEquals(4999, dao.findAtmosphericInformation("BOS").getWind().getCount());
+    }
+
+}
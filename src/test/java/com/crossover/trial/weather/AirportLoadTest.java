@@ -5,6 +5,7 @@ import org.junit.runner.RunWith;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 
+import com.crossover.trial.weather.models.ImportStatus;
 import com.crossover.trial.weather.server.WeatherServer;
 import com.crossover.trial.weather.services.AirportDao;
 import com.crossover.trial.weather.services.AirportLoader;
@@ -18,6 +19,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.PrintStream;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertTrue;
 
@@ -75,6 +77,17 @@ public class AirportLoadTest {
         assertNotEquals(a.indexOf("BOS"), -1);
     }
 
+    @Test
+    public void testBulk() throws IOException {
+        ImportStatus status = new AirportLoader(WEATHER_SERVER_URL)
+                .uploadBulk(AirportLoader.class.getResourceAsStream("/airports_1000.dat"), 100, 3);
+
+        assertEquals(1000, status.getSaved() + status.getRejected());
+        assertTrue(status.getSaved() > 900);
+        assertNotEquals(collect.path("/airport/BOS").request().get().readEntity(String.class).indexOf("BOS"), -1);
+        assertNotEquals(collect.path("/airport/JFK").request().get().readEntity(String.class).indexOf("JFK"), -1);
+    }
+
     @After
     public void tearDown() {
         airportDao.getAllAirportCodes().forEach(airportDao::deleteAirport);
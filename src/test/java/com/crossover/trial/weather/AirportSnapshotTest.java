@@ -0,0 +1,192 @@
+package com.crossover.trial.weather;
+
+import com.crossover.trial.weather.models.Airport;
+import com.crossover.trial.weather.utils.AirportCatalog;
+import com.crossover.trial.weather.utils.AirportSnapshot;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Airport snapshot tests
+ */
+public class AirportSnapshotTest {
+
+    @Test
+    public void testChanges() {
+        Airport bos = new Airport("BOS", 42.364347, -71.005181);
+        AirportSnapshot first = AirportSnapshot.of(Arrays.asList(bos, new Airport("JFK", 40.639751, -73.778925)));
+        assertEquals(1, first.getVersion());
+        assertEquals(2, first.size());
+        assertSame(bos, first.get("BOS"));
+        assertEquals("BOS", first.getIataCode(first.indexOf("BOS")));
+
+        Map<String, Airport> changes = new HashMap<>();
+        changes.put("BOS", null);
+        changes.put("LGA", new Airport("LGA", 40.777245, -73.872608));
+        AirportSnapshot second = first.apply(changes);
+        assertEquals(2, second.getVersion());
+        assertEquals(new HashSet<>(Arrays.asList("JFK", "LGA")), second.getIataCodes());
+        assertNull(second.get("BOS"));
+        assertSame(bos, first.get("BOS"));
+        assertEquals(-1, second.indexOf(null));
+    }
+
+    @Test
+    public void testWithin() {
+        AirportSnapshot snapshot = AirportSnapshot.of(Arrays.asList(
+                new Airport("AAA", 0, 179.9),
+                new Airport("BBB", 0, -179.9),
+                new Airport("CCC", 89.9, 0),
+                new Airport("DDD", 89.9, 180),
+                new Airport("EEE", 0, 0),
+                new Airport("FFF", 100, 0)));
+
+        assertEquals(set("AAA", "BBB"), within(snapshot, 0, 180, 50));
+        assertEquals(set("CCC", "DDD"), within(snapshot, 90, 0, 50));
+        assertEquals(set("EEE"), within(snapshot, 0, 0, 0));
+        // out of the grid, found through the overflow range
+        assertEquals(set("FFF"), within(snapshot, 80, 180, 50));
+        assertEquals(6, within(snapshot, 0, 0, 30000).size());
+        assertEquals(0, within(snapshot, 0, 0, -1).size());
+    }
+
+    @Test
+    public void testInBox() {
+        AirportSnapshot snapshot = AirportSnapshot.of(Arrays.asList(
+                new Airport("AAA", 0, 179.9),
+                new Airport("BBB", 0, -179.9),
+                new Airport("CCC", 89.9, 0),
+                new Airport("DDD", 89.9, 180),
+                new Airport("EEE", 0, 0),
+                new Airport("FFF", 100, 0)));
+
+        // over the antimeridian, either way round
+        assertEquals(set("AAA", "BBB"), inBox(snapshot, -1, 179, 1, -179));
+        assertEquals(set("AAA", "BBB"), inBox(snapshot, -1, 179, 1, 181));
+        assertEquals(set("AAA"), inBox(snapshot, -1, 179, 1, 180));
+        assertEquals(set("CCC", "DDD"), inBox(snapshot, 89, -180, 90, 180));
+        assertEquals(set("DDD"), inBox(snapshot, 89, 90, 90, -90));
+        assertEquals(set("EEE"), inBox(snapshot, 0, 0, 0, 0));
+        assertEquals(5, inBox(snapshot, -90, -180, 90, 180).size());
+        assertEquals(5, inBox(snapshot, -90, 0, 90, 720).size());
+        assertEquals(0, inBox(snapshot, 1, -180, -1, 180).size());
+
+        Random random = new Random(42);
+        List<Airport> airports = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            airports.add(new Airport("X" + i, random.nextDouble() * 180 - 90, random.nextDouble() * 360 - 180));
+        }
+        snapshot = AirportSnapshot.of(airports);
+        for (int i = 0; i < 200; i++) {
+            double south = random.nextDouble() * 180 - 90;
+            double north = south + random.nextDouble() * (90 - south);
+            double west = random.nextDouble() * 360 - 180;
+            double east = random.nextDouble() * 360 - 180;
+            Set<String> expected = new HashSet<>();
+            for (Airport a : airports) {
+                boolean inLongitude = west <= east ? a.getLongitude() >= west && a.getLongitude() <= east
+                        : a.getLongitude() >= west || a.getLongitude() <= east;
+                if (a.getLatitude() >= south && a.getLatitude() <= north && inLongitude) expected.add(a.getIata());
+            }
+            assertEquals(expected, inBox(snapshot, south, west, north, east));
+        }
+    }
+
+    @Test
+    public void testCatalog() {
+        AirportCatalog catalog = new AirportCatalog(Collections.singletonList(new Airport("AAA", 1, 1)));
+        AirportSnapshot snapshot = catalog.getSnapshot();
+        catalog.remove("BBB");
+        assertSame(snapshot, catalog.getSnapshot());
+
+        catalog.add(new Airport("AAA", 2, 2));
+        assertEquals(2, catalog.getSnapshot().get("AAA").getLatitude(), 0);
+        assertEquals(1, snapshot.get("AAA").getLatitude(), 0);
+
+        catalog.remove("AAA");
+        assertEquals(0, catalog.getSnapshot().size());
+    }
+
+    @Test
+    public void testSingleAdds() {
+        Random random = new Random(7);
+        List<Airport> airports = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            airports.add(new Airport(String.format("A%03d", i), random.nextDouble() * 180 - 90,
+                    random.nextDouble() * 360 - 180));
+        }
+        AirportSnapshot snapshot = AirportSnapshot.of(airports.subList(0, 100));
+        AirportSnapshot first = snapshot;
+        for (Airport a : airports.subList(100, 500)) {
+            snapshot = snapshot.with(Collections.singletonList(a));
+        }
+        assertEquals(401, snapshot.getVersion());
+        assertEquals(500, snapshot.size());
+        assertEquals(100, first.size());
+        assertNull(first.get("A100"));
+
+        AirportSnapshot rebuilt = AirportSnapshot.of(airports);
+        assertEquals(rebuilt.getIataCodes(), snapshot.getIataCodes());
+        for (Airport a : airports) {
+            assertSame(a, snapshot.get(a.getIata()));
+        }
+        for (int i = 0; i < 50; i++) {
+            double latitude = random.nextDouble() * 180 - 90;
+            double longitude = random.nextDouble() * 360 - 180;
+            assertEquals(within(rebuilt, latitude, longitude, 2000), within(snapshot, latitude, longitude, 2000));
+            assertEquals(inBox(rebuilt, latitude - 10, longitude, latitude + 10, longitude + 20),
+                    inBox(snapshot, latitude - 10, longitude, latitude + 10, longitude + 20));
+        }
+    }
+
+    @Test
+    public void testAddsToTheSameSnapshot() {
+        AirportSnapshot base = AirportSnapshot.of(Collections.singletonList(new Airport("AAA", 1, 1)));
+        AirportSnapshot left = base.with(Collections.singletonList(new Airport("BBB", 2, 2)));
+        AirportSnapshot right = base.with(Collections.singletonList(new Airport("CCC", 3, 3)));
+        AirportSnapshot next = left.with(Collections.singletonList(new Airport("DDD", 4, 4)));
+
+        assertEquals(set("AAA"), base.getIataCodes());
+        assertEquals(set("AAA", "BBB"), left.getIataCodes());
+        assertEquals(set("AAA", "CCC"), right.getIataCodes());
+        assertEquals(set("AAA", "BBB", "DDD"), next.getIataCodes());
+        assertEquals(set("AAA", "CCC"), within(right, 2, 2, 500));
+        assertEquals(-1, right.indexOf("BBB"));
+
+        Map<String, Airport> changes = new HashMap<>();
+        changes.put("BBB", null);
+        assertEquals(set("AAA", "DDD"), next.apply(changes).getIataCodes());
+    }
+
+    private static Set<String> within(AirportSnapshot snapshot, double latitude, double longitude, double radius) {
+        Set<String> result = new HashSet<>();
+        snapshot.forEachWithin(latitude, longitude, radius, a -> result.add(a.getIata()));
+        return result;
+    }
+
+    private static Set<String> set(String... codes) {
+        return new HashSet<>(Arrays.asList(codes));
+    }
+
+    private static Set<String> inBox(AirportSnapshot snapshot, double minLatitude, double minLongitude,
+                                     double maxLatitude, double maxLongitude) {
+        Set<String> result = new HashSet<>();
+        snapshot.forEachInBox(minLatitude, minLongitude, maxLatitude, maxLongitude,
+                (position, squaredChord) -> result.add(snapshot.getIataCode(position)));
+        return result;
+    }
+
+}
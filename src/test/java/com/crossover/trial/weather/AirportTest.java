@@ -6,12 +6,23 @@ import com.crossover.trial.weather.models.Airport;
 import com.crossover.trial.weather.models.Atmosphereinfo;
 import com.crossover.trial.weather.models.DataPoint;
 import com.crossover.trial.weather.models.DataPointType;
+import com.crossover.trial.weather.models.NearbyAtmosphere;
 import com.crossover.trial.weather.services.AirportDao;
 import com.crossover.trial.weather.services.PerformanceDao;
+import com.crossover.trial.weather.utils.GeoUtils;
 
 import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Predicate;
 
 import static org.junit.Assert.*;
 
@@ -63,6 +74,109 @@ public class AirportTest {
         assertTrue(result.size() == 2);
     }
 
+    public void testFindNearbyAirportsMatchesFullScan() {
+        Random random = new Random(42);
+        List<Airport> airports = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            airports.add(new Airport("X" + i, random.nextDouble() * 180 - 90, random.nextDouble() * 360 - 180));
+        }
+        // corner cases: poles and both sides of the antimeridian
+        airports.add(new Airport("XNP", 90, 0));
+        airports.add(new Airport("XSP", -89.9, 45));
+        airports.add(new Airport("XE", 10, 179.9));
+        airports.add(new Airport("XW", 10, -179.9));
+        airports.forEach(airportDao::saveAirport);
+
+        try {
+            List<Airport> stored = new ArrayList<>();
+            airportDao.getAllAirportCodes().forEach(iata -> stored.add(airportDao.findAirportData(iata)));
+
+            double[] radii = {0, 1, 50, 500, 2000, 7500, 15000, 25000};
+            for (Airport center : airports) {
+                for (double radius : radii) {
+                    Set<Airport> expected = new HashSet<>();
+                    for (Airport a : stored) {
+                        if (GeoUtils.distance(center.getLatitude(), center.getLongitude(),
+                                a.getLatitude(), a.getLongitude()) <= radius) {
+                            expected.add(a);
+                        }
+                    }
+                    assertEquals(center.getIata() + " " + radius, expected,
+                            airportDao.findNearbyAirports(center.getIata(), radius));
+                }
+            }
+            assertTrue(airportDao.findNearbyAirports("XE", 50).contains(new Airport("XW", 10, -179.9)));
+        } finally {
+            airports.forEach(a -> airportDao.deleteAirport(a.getIata()));
+        }
+    }
+
+    public void testFindKNearestMatchesFullScan() {
+        Random random = new Random(7);
+        List<Airport> airports = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            airports.add(new Airport("K" + i, random.nextDouble() * 180 - 90, random.nextDouble() * 360 - 180));
+        }
+        // corner cases: poles and both sides of the antimeridian
+        airports.add(new Airport("KNP", 90, 0));
+        airports.add(new Airport("KSP", -89.9, 45));
+        airports.add(new Airport("KE", 10, 179.9));
+        airports.add(new Airport("KW", 10, -179.9));
+        airports.forEach(airportDao::saveAirport);
+        for (int i = 0; i < airports.size(); i += 3) {
+            airportDao.updateAtmosphericInformation(airports.get(i).getIata(), "wind", new DataPoint(10, 20, 30, 40, 50));
+        }
+
+        try {
+            List<Airport> stored = new ArrayList<>();
+            airportDao.getAllAirportCodes().forEach(iata -> stored.add(airportDao.findAirportData(iata)));
+            Predicate<Atmosphereinfo> windy = ai -> ai.getWind() != null;
+
+            for (Airport center : airports) {
+                // the centre itself and the airports without atmospheric information are skipped
+                List<Double> withWeather = new ArrayList<>();
+                List<Double> withWind = new ArrayList<>();
+                for (Airport a : stored) {
+                    Atmosphereinfo ai = airportDao.findAtmosphericInformation(a.getIata());
+                    if (ai == null || a.getIata().equals(center.getIata())) continue;
+                    double d = GeoUtils.distance(center.getLatitude(), center.getLongitude(),
+                            a.getLatitude(), a.getLongitude());
+                    withWeather.add(d);
+                    if (windy.test(ai)) withWind.add(d);
+                }
+                Collections.sort(withWeather);
+                Collections.sort(withWind);
+
+                for (int k : new int[]{1, 5, 20, 1000}) {
+                    List<NearbyAtmosphere> nearest = airportDao.findKNearest(center.getIata(), k, null);
+                    assertDistances(center.getIata() + " " + k,
+                            withWeather.subList(0, Math.min(k, withWeather.size())), nearest);
+                    nearest.forEach(n -> assertNotNull(n.getAtmosphere()));
+                    nearest = airportDao.findKNearest(center.getIata(), k, windy);
+                    assertDistances(center.getIata() + " wind " + k,
+                            withWind.subList(0, Math.min(k, withWind.size())), nearest);
+                    nearest.forEach(n -> assertNotNull(n.getAtmosphere().getWind()));
+                }
+            }
+            // across the antimeridian, KW has no atmospheric information but KE has
+            assertEquals("KE", airportDao.findKNearest("KW", 1, null).get(0).getIata());
+            assertTrue(airportDao.findKNearest("KE", 1000, null).stream()
+                    .noneMatch(n -> n.getIata().equals("KE") || n.getIata().equals("KW")));
+            assertTrue(airportDao.findKNearest("KE", 0, null).isEmpty());
+            assertTrue(airportDao.findKNearest(null, 1, null).isEmpty());
+            assertTrue(airportDao.findKNearest("AAA", 1, null).isEmpty());
+        } finally {
+            airports.forEach(a -> airportDao.deleteAirport(a.getIata()));
+        }
+    }
+
+    private static void assertDistances(String message, List<Double> expected, List<NearbyAtmosphere> actual) {
+        assertEquals(message, expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(message, expected.get(i), actual.get(i).getDistanceKm(), 1e-6);
+        }
+    }
+
     public void testFindNearbyAirportsNull() {
         Set<Airport> result = airportDao.findNearbyAirports(null, 1);
         assertTrue(0 == result.size());
@@ -166,6 +280,35 @@ public class AirportTest {
         assertTrue(ai.getWind().getCount() == 10);
     }
 
+    public void testUpdateAtmosphericInformationConcurrently() throws Exception {
+        airportDao.saveAirport(new Airport("AAA", 1, 1));
+
+        DataPointType[] types = {DataPointType.WIND, DataPointType.TEMPERATURE, DataPointType.HUMIDTY,
+                DataPointType.CLOUDCOVER, DataPointType.PRECIPITATION};
+        ExecutorService executor = Executors.newFixedThreadPool(types.length);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (DataPointType type : types) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 1; i <= 50; i++) {
+                        airportDao.updateAtmosphericInformation("AAA", type.name(), new DataPoint(i, i, 10, i, i));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        Atmosphereinfo ai = airportDao.findAtmosphericInformation("AAA");
+        for (DataPointType type : types) {
+            assertEquals(new DataPoint(50, 50, 10, 50, 50), ai.getDataPoint(type));
+        }
+        assertNull(ai.getPressure());
+    }
+
     public void testUpdateAtmosphericInformationNull() {
         Airport ad = new Airport("AAA", 1, 1);
         airportDao.saveAirport(ad);
@@ -215,6 +358,17 @@ public class AirportTest {
         assertNotNull(airportDao.findAirportData("AAA"));
     }
 
+    public void testSaveAirports() {
+        airportDao.saveAirports(Arrays.asList(new Airport("AAA", 1, 1), new Airport("BBB", 1, 1.1), null,
+                new Airport(null, 1, 1)));
+        assertNotNull(airportDao.findAirportData("AAA"));
+        assertNotNull(airportDao.findAirportData("BBB"));
+        assertEquals(2, airportDao.findNearbyAirports("AAA", 20).size());
+
+        airportDao.saveAirports(null);
+        airportDao.saveAirports(Collections.emptyList());
+    }
+
     public void testSaveAirportNull() {
         airportDao.saveAirport(null);
         airportDao.saveAirport(new Airport(null, 1, 1));
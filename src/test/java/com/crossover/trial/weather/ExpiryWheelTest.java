@@ -0,0 +1,65 @@
+package com.crossover.trial.weather;
+
+import com.crossover.trial.weather.utils.ExpiryWheel;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Expiry wheel tests
+ */
+public class ExpiryWheelTest {
+
+    private static final long MINUTE = ExpiryWheel.BUCKET_MILLIS;
+    private static final long DAY = ExpiryWheel.BUCKETS * MINUTE;
+
+    private final ExpiryWheel wheel = new ExpiryWheel();
+    private final long now = 1000 * DAY;
+
+    @Test
+    public void testCount() {
+        wheel.moved(0, now);
+        wheel.moved(0, now - DAY / 2);
+        wheel.moved(0, now - DAY / 2 + 1);
+        assertEquals(3, wheel.count(now));
+
+        wheel.moved(now - DAY / 2, now);
+        assertEquals(3, wheel.count(now));
+
+        wheel.remove(now);
+        assertEquals(2, wheel.count(now));
+    }
+
+    @Test
+    public void testExpiry() {
+        wheel.moved(0, now - DAY + MINUTE);
+        wheel.moved(0, now);
+        assertEquals(2, wheel.count(now));
+        assertEquals(1, wheel.count(now + MINUTE));
+        assertEquals(0, wheel.count(now + DAY));
+    }
+
+    @Test
+    public void testReuseBucket() {
+        wheel.moved(0, now);
+        // the same bucket a day later, the old record is out of the window
+        wheel.moved(0, now + DAY);
+        assertEquals(1, wheel.count(now + DAY));
+
+        // the old record can't be removed from the reused bucket
+        wheel.remove(now);
+        assertEquals(1, wheel.count(now + DAY));
+
+        // an old record can't take the bucket back
+        wheel.add(now);
+        assertEquals(1, wheel.count(now + DAY));
+    }
+
+    @Test
+    public void testClear() {
+        wheel.moved(0, now);
+        wheel.clear();
+        assertEquals(0, wheel.count(now));
+    }
+
+}
@@ -32,6 +32,16 @@ public class HazelcastAirportTest extends AirportTest {
         super.testFindNearbyAirports();
     }
 
+    @Test
+    public void testFindNearbyAirportsMatchesFullScan() {
+        super.testFindNearbyAirportsMatchesFullScan();
+    }
+
+    @Test
+    public void testFindKNearestMatchesFullScan() {
+        super.testFindKNearestMatchesFullScan();
+    }
+
     @Test
     public void testFindNearbyAirportsNull() {
         super.testFindNearbyAirportsNull();
@@ -82,6 +92,11 @@ public class HazelcastAirportTest extends AirportTest {
         super.testUpdateAtmosphericInformation();
     }
 
+    @Test
+    public void testUpdateAtmosphericInformationConcurrently() throws Exception {
+        super.testUpdateAtmosphericInformationConcurrently();
+    }
+
     @Test
     public void testUpdateAtmosphericInformationNull() {
         super.testUpdateAtmosphericInformationNull();
@@ -97,6 +112,11 @@ public class HazelcastAirportTest extends AirportTest {
         super.testSaveAirport();
     }
 
+    @Test
+    public void testSaveAirports() {
+        super.testSaveAirports();
+    }
+
     @Test
     public void testSaveAirportNull() {
         super.testSaveAirportNull();
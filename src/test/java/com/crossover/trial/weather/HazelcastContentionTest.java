@@ -0,0 +1,128 @@
+package com.crossover.trial.weather;
+
+import com.crossover.trial.weather.models.Airport;
+import com.crossover.trial.weather.models.Atmosphereinfo;
+import com.crossover.trial.weather.models.DataPoint;
+import com.crossover.trial.weather.models.DataPointType;
+import com.crossover.trial.weather.services.AirportDao;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+/**
+ * Collectors on two members of a cluster writing the same airport at the same time
+ */
+public class HazelcastContentionTest {
+
+    private static final String IATA = "QQQ";
+
+    private static final int UPDATES = 200;
+
+    private final List<ClassPathXmlApplicationContext> contexts = new ArrayList<>();
+    private final List<AirportDao> daos = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        for (int i = 0; i < 2; i++) {
+            ClassPathXmlApplicationContext context = new ClassPathXmlApplicationContext("weatherCastContext.xml");
+            contexts.add(context);
+            daos.add(context.getBean("airportDao", AirportDao.class));
+        }
+        daos.get(0).saveAirport(new Airport(IATA, 10, 10));
+    }
+
+    @After
+    public void tearDown() {
+        if (!daos.isEmpty()) daos.get(0).deleteAirport(IATA);
+        contexts.forEach(ClassPathXmlApplicationContext::close);
+    }
+
+    /**
+     * Every point type is written by its own collector through alternating members, no update of one point type may
+     * be lost because of an update of another one
+     */
+    @Test
+    public void testConcurrentUpdates() throws Exception {
+        awaitAirport(daos.get(1));
+
+        DataPointType[] types = DataPointType.values();
+        ExecutorService executor = Executors.newFixedThreadPool(types.length);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < types.length; t++) {
+            DataPointType type = types[t];
+            AirportDao dao = daos.get(t % daos.size());
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 1; i <= UPDATES; i++) {
+                    dao.updateAtmosphericInformation(IATA, type.name(), dataPoint(type, i));
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        for (AirportDao dao : daos) {
+            Atmosphereinfo ai = awaitComplete(dao);
+            for (DataPointType type : types) {
+                assertEquals(type.name(), dataPoint(type, UPDATES), ai.getDataPoint(type));
+            }
+        }
+    }
+
+    /**
+     * a valid data point of the type, the count tells the updates apart
+     */
+    private static DataPoint dataPoint(DataPointType type, int count) {
+        int mean = type == DataPointType.PRESSURE ? 700 : 50;
+        return new DataPoint(10, 20, mean, 40, count);
+    }
+
+    private static void awaitAirport(AirportDao dao) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (dao.findAirportData(IATA) == null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertNotNull(dao.findAirportData(IATA));
+    }
+
+    /**
+     * near caches of the other member are invalidated asynchronously
+     */
+    private static Atmosphereinfo awaitComplete(AirportDao dao) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        Atmosphereinfo ai = dao.findAtmosphericInformation(IATA);
+        while (!isComplete(ai) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            ai = dao.findAtmosphericInformation(IATA);
+        }
+        assertNotNull(ai);
+        return ai;
+    }
+
+    private static boolean isComplete(Atmosphereinfo ai) {
+        if (ai == null) return false;
+        for (DataPointType type : DataPointType.values()) {
+            DataPoint dp = ai.getDataPoint(type);
+            if (dp == null || dp.getCount() != UPDATES) return false;
+        }
+        return true;
+    }
+
+}
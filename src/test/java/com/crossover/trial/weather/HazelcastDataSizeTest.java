@@ -0,0 +1,85 @@
+package com.crossover.trial.weather;
+
+import com.crossover.trial.weather.models.Airport;
+import com.crossover.trial.weather.models.DataPoint;
+import com.crossover.trial.weather.services.AirportDao;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+/**
+ * The count of the recently updated airports on two members of a cluster updating and deleting each other's records
+ */
+public class HazelcastDataSizeTest {
+
+    private static final List<String> CODES = Arrays.asList("QQA", "QQB", "QQC");
+
+    private final List<ClassPathXmlApplicationContext> contexts = new ArrayList<>();
+    private final List<AirportDao> daos = new ArrayList<>();
+
+    /**
+     * records of other tests sharing the cluster
+     */
+    private long initial;
+
+    @Before
+    public void setUp() throws InterruptedException {
+        for (int i = 0; i < 2; i++) {
+            ClassPathXmlApplicationContext context = new ClassPathXmlApplicationContext("weatherCastContext.xml");
+            contexts.add(context);
+            daos.add(context.getBean("airportDao", AirportDao.class));
+        }
+        daos.get(0).saveAirports(Arrays.asList(new Airport("QQA", 10, 10), new Airport("QQB", 11, 11),
+                new Airport("QQC", 12, 12)));
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (daos.get(1).findAirportData("QQC") == null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertNotNull(daos.get(1).findAirportData("QQC"));
+    }
+
+    @After
+    public void tearDown() {
+        if (!daos.isEmpty()) CODES.forEach(daos.get(0)::deleteAirport);
+        contexts.forEach(ClassPathXmlApplicationContext::close);
+    }
+
+    private void assertDataSize(long expected) {
+        for (AirportDao dao : daos) {
+            assertEquals(initial + expected, dao.countRecentAtmosphericInformation());
+        }
+    }
+
+    @Test
+    public void testCrossNodeUpdatesAndDeletes() {
+        initial = daos.get(0).countRecentAtmosphericInformation();
+        assertDataSize(0);
+
+        daos.get(0).updateAtmosphericInformation("QQA", "wind", new DataPoint(1, 2, 3, 4, 5));
+        daos.get(1).updateAtmosphericInformation("QQB", "wind", new DataPoint(1, 2, 3, 4, 5));
+        assertDataSize(2);
+
+        // updates of a record written by the other member
+        daos.get(1).updateAtmosphericInformation("QQA", "temperature", new DataPoint(1, 2, 3, 4, 5));
+        daos.get(0).updateAtmosphericInformation("QQB", "temperature", new DataPoint(1, 2, 3, 4, 5));
+        daos.get(0).updateAtmosphericInformation("QQC", "wind", new DataPoint(1, 2, 3, 4, 5));
+        assertDataSize(3);
+
+        // deletes of records the deleting member never wrote
+        daos.get(0).deleteAtmosphericInformation("QQC");
+        daos.get(1).deleteAtmosphericInformation("QQA");
+        assertDataSize(1);
+        daos.get(0).deleteAirport("QQB");
+        daos.get(1).deleteAtmosphericInformation("QQB");
+        assertDataSize(0);
+    }
+
+}
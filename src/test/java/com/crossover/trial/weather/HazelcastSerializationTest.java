@@ -0,0 +1,77 @@
+package com.crossover.trial.weather;
+
+import com.crossover.trial.weather.models.Airport;
+import com.crossover.trial.weather.models.Atmosphereinfo;
+import com.crossover.trial.weather.models.DataPoint;
+import com.crossover.trial.weather.models.DataPointType;
+import com.crossover.trial.weather.services.hazelcast.AtmosphereUpdateProcessor;
+import com.crossover.trial.weather.services.hazelcast.WeatherSerialization;
+import com.hazelcast.config.SerializationConfig;
+import com.hazelcast.internal.serialization.SerializationService;
+import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+import com.hazelcast.nio.serialization.Data;
+import org.junit.Test;
+
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compact serialization of the models in the cluster
+ */
+public class HazelcastSerializationTest {
+
+    private final SerializationService serializationService = new DefaultSerializationServiceBuilder()
+            .setConfig(WeatherSerialization.configure(new SerializationConfig())).build();
+
+    private final SerializationService javaSerializationService = new DefaultSerializationServiceBuilder().build();
+
+    @Test
+    public void testDataPoint() {
+        DataPoint dp = new DataPoint(10, 20, 30, 40, 50);
+        assertEquals(dp, roundTrip(dp));
+    }
+
+    @Test
+    public void testAirport() {
+        Airport airport = new Airport("BOS", 42.364347, -71.005181);
+        Airport copy = roundTrip(airport);
+        assertEquals(airport, copy);
+        assertEquals(0, airport.distanceTo(copy), 0);
+    }
+
+    @Test
+    public void testAtmosphereinfo() {
+        Atmosphereinfo ai = new Atmosphereinfo();
+        ai.update(DataPointType.PRESSURE, new DataPoint(690, 700, 710, 720, 50), 1234);
+        Atmosphereinfo copy = roundTrip(ai);
+        assertEquals(ai.getPressure(), copy.getPressure());
+        assertNull(copy.getWind());
+        assertEquals(1234, copy.getLastUpdateTime());
+
+        DataPoint dp = new DataPoint(10, 20, 30, 40, 50);
+        ai = new Atmosphereinfo(dp, dp, dp, dp, dp, dp);
+        assertEquals(ai, roundTrip(ai));
+        assertTrue(serializationService.toData(ai).totalSize() < javaSerializationService.toData(ai).totalSize() / 3);
+    }
+
+    @Test
+    public void testAtmosphereUpdateProcessor() {
+        AtmosphereUpdateProcessor processor = roundTrip(new AtmosphereUpdateProcessor(
+                Collections.singletonMap(DataPointType.WIND, new DataPoint(10, 20, 30, 40, 50)), 1234));
+        Map.Entry<String, Atmosphereinfo> entry = new AbstractMap.SimpleEntry<>("BOS", null);
+        assertEquals(0L, processor.process(entry));
+        assertEquals(new DataPoint(10, 20, 30, 40, 50), entry.getValue().getWind());
+        assertEquals(1234, entry.getValue().getLastUpdateTime());
+    }
+
+    private <T> T roundTrip(T object) {
+        Data data = serializationService.toData(object);
+        return serializationService.toObject(data);
+    }
+
+}
@@ -0,0 +1,62 @@
+package com.crossover.trial.weather;
+
+import com.crossover.trial.weather.utils.LatencyHistogram;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Latency histogram tests
+ */
+public class LatencyHistogramTest {
+
+    private final LatencyHistogram histogram = new LatencyHistogram();
+
+    @Test
+    public void testPercentiles() {
+        for (long i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000);
+        }
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(1000, snapshot.getCount());
+        assertWithin(500_000, snapshot.getValueAtPercentile(50));
+        assertWithin(990_000, snapshot.getValueAtPercentile(99));
+        assertWithin(999_000, snapshot.getValueAtPercentile(99.9));
+        assertWithin(1_000_000, snapshot.getMaxValue());
+    }
+
+    @Test
+    public void testSmallValues() {
+        for (long i = 0; i < 32; i++) {
+            histogram.record(i);
+        }
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(15, snapshot.getValueAtPercentile(50));
+        assertEquals(31, snapshot.getMaxValue());
+    }
+
+    @Test
+    public void testBounds() {
+        assertEquals(0, histogram.snapshot().getValueAtPercentile(50));
+        assertEquals(0, histogram.snapshot().getMaxValue());
+
+        histogram.record(-1);
+        histogram.record(Long.MAX_VALUE);
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(0, snapshot.getValueAtPercentile(50));
+        assertEquals(LatencyHistogram.MAX_VALUE, snapshot.getMaxValue());
+
+        histogram.clear();
+        assertEquals(0, histogram.snapshot().getCount());
+    }
+
+    /**
+     * the reported value is the highest of its bucket, at most 1/16 above the recorded one
+     */
+    private static void assertWithin(long expected, long actual) {
+        assertTrue(actual + " < " + expected, actual >= expected);
+        assertTrue(actual + " > " + expected, actual <= expected + expected / 16);
+    }
+
+}
@@ -0,0 +1,195 @@
+package com.crossover.trial.weather;
+
+import com.crossover.trial.weather.models.Airport;
+import com.crossover.trial.weather.models.Atmosphereinfo;
+import com.crossover.trial.weather.models.CacheStats;
+import com.crossover.trial.weather.models.DataPoint;
+import com.crossover.trial.weather.services.SimpleAirportDaoImpl;
+import com.crossover.trial.weather.utils.Storage;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Cache of the radius queries of the airport DAO
+ */
+public class NearbyWeatherCacheTest {
+
+    private ClassPathXmlApplicationContext context;
+
+    private SimpleAirportDaoImpl dao;
+
+    @Before
+    public void setUp() {
+        System.setProperty("weather.nearbyCache.size", "4");
+        System.setProperty("weather.nearbyCache.maxResults", "100");
+        context = new ClassPathXmlApplicationContext("beansContext.xml");
+        dao = context.getBean(SimpleAirportDaoImpl.class);
+        dao.saveAirports(Arrays.asList(new Airport("BOS", 42.364347, -71.005181),
+                new Airport("EWR", 40.6925, -74.168667), new Airport("JFK", 40.639751, -73.778925),
+                new Airport("LGA", 40.777245, -73.872608), new Airport("MMU", 40.79935, -74.4148747)));
+        for (String iata : Arrays.asList("BOS", "EWR", "JFK", "LGA")) {
+            dao.updateAtmosphericInformation(iata, "wind", new DataPoint(10, 20, 30, 40, 50));
+        }
+    }
+
+    @After
+    public void tearDown() {
+        context.close();
+        System.clearProperty("weather.nearbyCache.size");
+        System.clearProperty("weather.nearbyCache.maxResults");
+    }
+
+    private Set<Atmosphereinfo> uncached(String iata, double radius) {
+        Set<Atmosphereinfo> result = new HashSet<>();
+        dao.forEachAtmosphericInformationNearbyAirport(iata, radius, result::add);
+        return result;
+    }
+
+    /**
+     * Query twice, a query is only cached on its second miss
+     */
+    private void warm(String iata, double radius) {
+        dao.findAtmosphericInformationNearbyAirport(iata, radius);
+        dao.findAtmosphericInformationNearbyAirport(iata, radius);
+    }
+
+    @Test
+    public void testHit() {
+        // JFK-EWR is 33.4 KM, JFK-LGA is 17.2 KM, both radii fall into the bucket of 34 KM
+        assertEquals(uncached("JFK", 33.9), new HashSet<>(dao.findAtmosphericInformationNearbyAirport("JFK", 33.9)));
+        assertEquals(0, dao.getNearbyCacheStats().getSize());
+        assertEquals(3, dao.findAtmosphericInformationNearbyAirport("JFK", 33.9).size());
+        assertEquals(1, dao.getNearbyCacheStats().getSize());
+        assertEquals(2, dao.findAtmosphericInformationNearbyAirport("JFK", 33.1).size());
+        assertEquals(uncached("JFK", 33.1), new HashSet<>(dao.findAtmosphericInformationNearbyAirport("JFK", 33.1)));
+        assertEquals(uncached("JFK", 33.9), new HashSet<>(dao.findAtmosphericInformationNearbyAirport("JFK", 33.9)));
+
+        CacheStats stats = dao.getNearbyCacheStats();
+        assertEquals(4, stats.getCapacity());
+        assertEquals(1, stats.getSize());
+        assertEquals(2, stats.getMisses());
+        assertEquals(3, stats.getHits());
+    }
+
+    @Test
+    public void testUpdateInsideRegion() {
+        // MMU is 56.5 KM from JFK
+        warm("JFK", 60);
+        dao.updateAtmosphericInformation("MMU", "wind", new DataPoint(1, 2, 3, 4, 5));
+        assertEquals(1, dao.getNearbyCacheStats().getInvalidations());
+        assertEquals(4, dao.findAtmosphericInformationNearbyAirport("JFK", 60).size());
+
+        dao.deleteAtmosphericInformation("EWR");
+        assertEquals(2, dao.getNearbyCacheStats().getInvalidations());
+        assertEquals(uncached("JFK", 60), new HashSet<>(dao.findAtmosphericInformationNearbyAirport("JFK", 60)));
+        assertEquals(4, dao.getNearbyCacheStats().getMisses());
+    }
+
+    @Test
+    public void testUpdateOutsideRegion() {
+        warm("JFK", 50);
+        dao.updateAtmosphericInformation("BOS", "wind", new DataPoint(1, 2, 3, 4, 5));
+        dao.findAtmosphericInformationNearbyAirport("JFK", 50);
+
+        CacheStats stats = dao.getNearbyCacheStats();
+        assertEquals(0, stats.getInvalidations());
+        assertEquals(1, stats.getHits());
+    }
+
+    @Test
+    public void testAirportChanges() {
+        warm("JFK", 50);
+        warm("BOS", 50);
+        assertEquals(2, dao.getNearbyCacheStats().getSize());
+        dao.saveAirport(new Airport("HPN", 41.066959, -73.707575));
+        assertEquals(0, dao.getNearbyCacheStats().getSize());
+
+        dao.updateAtmosphericInformation("HPN", "wind", new DataPoint(1, 2, 3, 4, 5));
+        assertEquals(uncached("JFK", 50), new HashSet<>(dao.findAtmosphericInformationNearbyAirport("JFK", 50)));
+        dao.deleteAirport("LGA");
+        assertEquals(uncached("JFK", 50), new HashSet<>(dao.findAtmosphericInformationNearbyAirport("JFK", 50)));
+        assertEquals(0, dao.getNearbyCacheStats().getHits());
+    }
+
+    @Test
+    public void testStorageSwap() {
+        warm("JFK", 50);
+        Storage storage = context.getBean(Storage.class);
+        storage.swap(new Storage.Dataset(storage.getDataset().getAirportCatalog().getSnapshot()));
+        assertTrue(dao.findAtmosphericInformationNearbyAirport("JFK", 50).isEmpty());
+        assertEquals(0, dao.getNearbyCacheStats().getHits());
+    }
+
+    @Test
+    public void testEviction() {
+        for (String iata : Arrays.asList("BOS", "EWR", "JFK", "LGA")) {
+            warm(iata, 10);
+        }
+        // the hot entry survives the sweeps
+        for (int radius = 20; radius < 30; radius++) {
+            dao.findAtmosphericInformationNearbyAirport("JFK", 10);
+            warm("EWR", radius);
+        }
+        dao.findAtmosphericInformationNearbyAirport("JFK", 10);
+
+        CacheStats stats = dao.getNearbyCacheStats();
+        assertEquals(4, stats.getSize());
+        assertEquals(10, stats.getEvictions());
+        assertEquals(11, stats.getHits());
+    }
+
+    /**
+     * 200 airports with weather around New York, more than an entry keeps
+     */
+    private void addCrowd() {
+        List<Airport> airports = new ArrayList<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 200; i++) {
+            airports.add(new Airport(String.format("X%03d", i), 40 + random.nextDouble(), -74 + random.nextDouble()));
+        }
+        dao.saveAirports(airports);
+        airports.forEach(ad -> dao.updateAtmosphericInformation(ad.getIata(), "wind", new DataPoint(1, 2, 3, 4, 5)));
+    }
+
+    @Test
+    public void testLargeResults() {
+        addCrowd();
+        dao.findAtmosphericInformationNearbyAirport("X000", 500);
+        List<Atmosphereinfo> result = dao.findAtmosphericInformationNearbyAirport("X000", 500);
+        assertEquals(uncached("X000", 500), new HashSet<>(result));
+        assertTrue(result.size() > 100);
+        assertEquals(0, dao.getNearbyCacheStats().getSize());
+    }
+
+    @Test
+    public void testLargeResultsDoNotEvict() {
+        addCrowd();
+        for (String iata : Arrays.asList("BOS", "EWR", "JFK", "LGA")) {
+            warm(iata, 1);
+        }
+        assertEquals(4, dao.getNearbyCacheStats().getSize());
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(dao.findAtmosphericInformationNearbyAirport("X000", 500).size() > 100);
+        }
+        dao.findAtmosphericInformationNearbyAirport("JFK", 1);
+
+        CacheStats stats = dao.getNearbyCacheStats();
+        assertEquals(4, stats.getSize());
+        assertEquals(0, stats.getEvictions());
+        assertEquals(1, stats.getHits());
+    }
+
+}
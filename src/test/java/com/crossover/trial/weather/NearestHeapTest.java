@@ -0,0 +1,79 @@
+package com.crossover.trial.weather;
+
+import com.crossover.trial.weather.utils.NearestHeap;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Nearest heap tests
+ */
+public class NearestHeapTest {
+
+    @Test
+    public void testTopK() {
+        Random random = new Random(7);
+        double[] all = new double[1000];
+        NearestHeap heap = new NearestHeap(10);
+        for (int i = 0; i < all.length; i++) {
+            all[i] = random.nextDouble();
+            heap.offer(all[i], i);
+        }
+        assertTrue(heap.isFull());
+
+        double[] keys = new double[10];
+        int[] values = new int[10];
+        heap.drainSorted(keys, values);
+        assertEquals(0, heap.size());
+
+        double[] expected = all.clone();
+        Arrays.sort(expected);
+        assertArrayEquals(Arrays.copyOf(expected, 10), keys, 0);
+        for (int i = 0; i < 10; i++) {
+            assertEquals(keys[i], all[values[i]], 0);
+        }
+    }
+
+    @Test
+    public void testBound() {
+        NearestHeap heap = new NearestHeap(2);
+        assertTrue(heap.offer(5, 0));
+        assertTrue(heap.offer(3, 1));
+        assertEquals(5, heap.peekKey(), 0);
+        assertFalse(heap.offer(5, 2));
+        assertTrue(heap.offer(1, 3));
+        assertEquals(3, heap.peekKey(), 0);
+
+        int[] values = new int[2];
+        heap.drainSorted(null, values);
+        assertArrayEquals(new int[]{3, 1}, values);
+    }
+
+    @Test
+    public void testUnbounded() {
+        NearestHeap heap = new NearestHeap(Integer.MAX_VALUE);
+        for (int i = 100; i > 0; i--) {
+            heap.offer(i, i);
+        }
+        assertEquals(100, heap.size());
+        assertFalse(heap.isFull());
+
+        int[] values = new int[100];
+        heap.drainSorted(null, values);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i + 1, values[i]);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNoLimit() {
+        new NearestHeap(0);
+    }
+
+}
@@ -0,0 +1,192 @@
+package com.crossover.trial.weather;
+
+import com.crossover.trial.weather.models.Airport;
+import com.crossover.trial.weather.models.Atmosphereinfo;
+import com.crossover.trial.weather.models.DataPoint;
+import com.crossover.trial.weather.services.AirportDao;
+import com.crossover.trial.weather.services.offheap.OffHeapAtmosphereStore;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Tests for an implementation of DAO keeping the atmospheric information off the heap
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(locations = "/offHeapContext.xml")
+public class OffHeapAirportTest extends AirportTest {
+
+    @Resource
+    private AirportDao airportDao;
+
+    @Test
+    public void testFindAirportData() {
+        super.testFindAirportData();
+    }
+
+    @Test
+    public void testFindAirportDataNull() {
+        super.testFindAirportDataNull();
+    }
+
+    @Test
+    public void testFindAirportDataUnknown() {
+        super.testFindAirportDataUnknown();
+    }
+
+    @Test
+    public void testFindNearbyAirports() {
+        super.testFindNearbyAirports();
+    }
+
+    @Test
+    public void testFindNearbyAirportsMatchesFullScan() {
+        super.testFindNearbyAirportsMatchesFullScan();
+    }
+
+    @Test
+    public void testFindKNearestMatchesFullScan() {
+        super.testFindKNearestMatchesFullScan();
+    }
+
+    @Test
+    public void testFindNearbyAirportsNull() {
+        super.testFindNearbyAirportsNull();
+    }
+
+    @Test
+    public void testFindNearbyAirportsUnknown() {
+        super.testFindNearbyAirportsUnknown();
+    }
+
+    @Test
+    public void testGetAllAirportCodes() {
+        super.testGetAllAirportCodes();
+    }
+
+    @Test
+    public void testFindAtmosphericInformation() {
+        super.testFindAtmosphericInformation();
+    }
+
+    @Test
+    public void testFindAtmosphericInformationNull() {
+        super.testFindAtmosphericInformationNull();
+    }
+
+    @Test
+    public void testFindAtmosphericInformationUnknown() {
+        super.testFindAtmosphericInformationUnknown();
+    }
+
+    @Test
+    public void testFindAtmosphericInformationNearbyAirport() {
+        super.testFindAtmosphericInformationNearbyAirport();
+    }
+
+    @Test
+    public void testFindAtmosphericInformationNearbyAirportNull() {
+        super.testFindAtmosphericInformationNearbyAirportNull();
+    }
+
+    @Test
+    public void testFindAtmosphericInformationNearbyAirportUnknown() {
+        super.testFindAtmosphericInformationNearbyAirportUnknown();
+    }
+
+    @Test
+    public void testUpdateAtmosphericInformation() {
+        super.testUpdateAtmosphericInformation();
+    }
+
+    @Test
+    public void testUpdateAtmosphericInformationConcurrently() throws Exception {
+        super.testUpdateAtmosphericInformationConcurrently();
+    }
+
+    @Test
+    public void testUpdateAtmosphericInformationNull() {
+        super.testUpdateAtmosphericInformationNull();
+    }
+
+    @Test
+    public void testUpdateAtmosphericInformationUnknown() {
+        super.testUpdateAtmosphericInformationUnknown();
+    }
+
+    @Test
+    public void testSaveAirport() {
+        super.testSaveAirport();
+    }
+
+    @Test
+    public void testSaveAirports() {
+        super.testSaveAirports();
+    }
+
+    @Test
+    public void testSaveAirportNull() {
+        super.testSaveAirportNull();
+    }
+
+    @Test
+    public void testDeleteAirport() {
+        super.testDeleteAirport();
+    }
+
+    @Test
+    public void testDeleteAirportNull() {
+        super.testDeleteAirportNull();
+    }
+
+    @Test
+    public void testDeleteAtmosphericInformation() {
+        super.testDeleteAtmosphericInformation();
+    }
+
+    @Test
+    public void testDeleteAtmosphericInformationNull() {
+        super.testDeleteAtmosphericInformationNull();
+    }
+
+    @Test
+    public void testDeleteAtmosphericInformationUnknown() {
+        super.testDeleteAtmosphericInformationUnknown();
+    }
+
+    /**
+     * airports spread over several segments of the store
+     */
+    @Test
+    public void testManyAirports() {
+        int count = 2 * OffHeapAtmosphereStore.SEGMENT_SIZE + 1;
+        List<Airport> airports = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            airports.add(new Airport(String.format("X%04d", i), i % 90, i % 180));
+        }
+        airportDao.saveAirports(airports);
+        try {
+            for (int i = 0; i < count; i++) {
+                airportDao.updateAtmosphericInformation(String.format("X%04d", i), "wind", new DataPoint(1, 2, 3, 4, i));
+            }
+            for (int i = 0; i < count; i += 97) {
+                Atmosphereinfo ai = airportDao.findAtmosphericInformation(String.format("X%04d", i));
+                assertEquals(new DataPoint(1, 2, 3, 4, i), ai.getWind());
+                assertNull(ai.getTemperature());
+            }
+            assertEquals(count, airportDao.countRecentAtmosphericInformation());
+        } finally {
+            airports.forEach(a -> airportDao.deleteAirport(a.getIata()));
+        }
+        assertEquals(0, airportDao.countRecentAtmosphericInformation());
+    }
+
+}
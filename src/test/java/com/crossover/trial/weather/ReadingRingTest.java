@@ -0,0 +1,92 @@
+package com.crossover.trial.weather;
+
+import com.crossover.trial.weather.models.DataPoint;
+import com.crossover.trial.weather.models.TimedDataPoint;
+import com.crossover.trial.weather.utils.ReadingRing;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Reading ring tests
+ */
+public class ReadingRingTest {
+
+    private static DataPoint dataPoint(int mean) {
+        return new DataPoint(mean - 1, mean, mean, mean + 1, 10);
+    }
+
+    @Test
+    public void testRange() {
+        ReadingRing ring = new ReadingRing(100);
+        for (int i = 0; i < 10; i++) {
+            ring.add(1000 + i * 10, dataPoint(i));
+        }
+
+        List<TimedDataPoint> result = ring.find(1020, 1050);
+        assertEquals(4, result.size());
+        assertEquals(1020, result.get(0).getTime());
+        assertEquals(1050, result.get(3).getTime());
+        assertEquals(dataPoint(2), result.get(0).getDataPoint());
+
+        assertEquals(2, ring.find(1015, 1035).size());
+        assertEquals(10, ring.find(0, Long.MAX_VALUE).size());
+        assertTrue(ring.find(1091, Long.MAX_VALUE).isEmpty());
+        assertTrue(ring.find(1050, 1040).isEmpty());
+    }
+
+    @Test
+    public void testWrapAround() {
+        ReadingRing ring = new ReadingRing(50);
+        for (int i = 0; i < 120; i++) {
+            ring.add(i, dataPoint(i));
+        }
+        assertEquals(50, ring.size());
+
+        List<TimedDataPoint> result = ring.find(0, Long.MAX_VALUE);
+        assertEquals(50, result.size());
+        for (int i = 0; i < 50; i++) {
+            assertEquals(70 + i, result.get(i).getTime());
+            assertEquals(dataPoint(70 + i), result.get(i).getDataPoint());
+        }
+
+        result = ring.find(95, 105);
+        assertEquals(11, result.size());
+        assertEquals(95, result.get(0).getTime());
+    }
+
+    @Test
+    public void testOutOfOrder() {
+        ReadingRing ring = new ReadingRing(10);
+        ring.add(100, dataPoint(1));
+        ring.add(90, dataPoint(2));
+        ring.add(100, dataPoint(3));
+
+        List<TimedDataPoint> result = ring.find(100, 100);
+        assertEquals(3, result.size());
+        assertEquals(dataPoint(2), result.get(1).getDataPoint());
+    }
+
+    @Test
+    public void testClear() {
+        ReadingRing ring = new ReadingRing(20);
+        for (int i = 0; i < 30; i++) {
+            ring.add(i, dataPoint(i));
+        }
+        ring.clear();
+        assertEquals(0, ring.size());
+        assertTrue(ring.find(0, Long.MAX_VALUE).isEmpty());
+
+        ring.add(5, dataPoint(5));
+        assertEquals(1, ring.find(0, 10).size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCapacity() {
+        new ReadingRing(0);
+    }
+
+}
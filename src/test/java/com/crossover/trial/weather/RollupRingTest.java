@@ -0,0 +1,100 @@
+package com.crossover.trial.weather;
+
+import com.crossover.trial.weather.models.DataPoint;
+import com.crossover.trial.weather.models.TimedDataPoint;
+import com.crossover.trial.weather.utils.RollupRing;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Rollup ring tests
+ */
+public class RollupRingTest {
+
+    private static final long HOUR = 3600000;
+
+    private final long now = 1000 * HOUR;
+
+    @Test
+    public void testAggregate() {
+        RollupRing ring = new RollupRing(HOUR, 24);
+        ring.add(now, new DataPoint(10, 20, 30, 40, 5));
+        ring.add(now + 1000, new DataPoint(5, 30, 20, 35, 7));
+        ring.add(now + HOUR - 1, new DataPoint(15, 26, 40, 50, 9));
+
+        List<TimedDataPoint> result = ring.find(now + HOUR - 1);
+        assertEquals(1, result.size());
+        assertEquals(now, result.get(0).getTime());
+        DataPoint dp = result.get(0).getDataPoint();
+        assertEquals(5, dp.getFirst());
+        assertEquals(25, dp.getSecond());
+        assertEquals(30, dp.getMean(), 1e-9);
+        assertEquals(50, dp.getThird());
+        assertEquals(3, dp.getCount());
+    }
+
+    @Test
+    public void testBuckets() {
+        RollupRing ring = new RollupRing(HOUR, 24);
+        for (int i = 0; i < 30; i++) {
+            ring.add(now + i * HOUR + 1, new DataPoint(i, i, i, i, 1));
+        }
+
+        long last = now + 29 * HOUR;
+        List<TimedDataPoint> result = ring.find(last);
+        assertEquals(24, result.size());
+        for (int i = 0; i < 24; i++) {
+            assertEquals(now + (6 + i) * HOUR, result.get(i).getTime());
+            assertEquals(6 + i, result.get(i).getDataPoint().getMean(), 1e-9);
+        }
+
+        // buckets out of the window of the query time are left out
+        assertEquals(14, ring.find(last + 10 * HOUR).size());
+        assertTrue(ring.find(last + 24 * HOUR).isEmpty());
+
+        // a reading older than the kept buckets is dropped
+        ring.add(now, new DataPoint(100, 100, 100, 100, 1));
+        assertEquals(6, ring.find(last).get(0).getDataPoint().getMean(), 1e-9);
+    }
+
+    @Test
+    public void testSparseReadings() {
+        // the columns grow while the readings come in, with gaps from a minute to a few days
+        Random random = new Random(11);
+        RollupRing ring = new RollupRing(HOUR, 50);
+        List<Long> times = new ArrayList<>();
+        long time = now;
+        for (int i = 0; i < 500; i++) {
+            time += random.nextInt(4) == 0 ? random.nextInt(100) * HOUR : random.nextInt(60) * 60000;
+            times.add(time);
+            ring.add(time, new DataPoint(1, 2, 3, 4, 5));
+
+            long last = time / HOUR;
+            Map<Long, Integer> expected = new TreeMap<>();
+            for (long t : times) {
+                if (t / HOUR > last - 50) expected.merge(t / HOUR * HOUR, 1, Integer::sum);
+            }
+            Map<Long, Integer> actual = new TreeMap<>();
+            ring.find(time).forEach(b -> actual.put(b.getTime(), b.getDataPoint().getCount()));
+            assertEquals(expected, actual);
+        }
+    }
+
+    @Test
+    public void testClear() {
+        RollupRing ring = new RollupRing(HOUR, 24);
+        assertTrue(ring.find(now).isEmpty());
+        ring.add(now, new DataPoint(1, 2, 3, 4, 5));
+        ring.clear();
+        assertTrue(ring.find(now).isEmpty());
+    }
+
+}
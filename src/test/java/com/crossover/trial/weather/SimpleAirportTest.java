@@ -5,6 +5,18 @@ import org.junit.runner.RunWith;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 
+import com.crossover.trial.weather.models.Airport;
+import com.crossover.trial.weather.models.DataPoint;
+import com.crossover.trial.weather.services.SimpleAirportDaoImpl;
+
+import javax.annotation.Resource;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
 /**
  * Simple airport DAO tests
  */
@@ -12,6 +24,9 @@ import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 @ContextConfiguration(locations = "/beansContext.xml")
 public class SimpleAirportTest extends AirportTest {
 
+    @Resource
+    private SimpleAirportDaoImpl simpleAirportDao;
+
     @Test
     public void testFindAirportData() {
         super.testFindAirportData();
@@ -32,6 +47,16 @@ public class SimpleAirportTest extends AirportTest {
         super.testFindNearbyAirports();
     }
 
+    @Test
+    public void testFindNearbyAirportsMatchesFullScan() {
+        super.testFindNearbyAirportsMatchesFullScan();
+    }
+
+    @Test
+    public void testFindKNearestMatchesFullScan() {
+        super.testFindKNearestMatchesFullScan();
+    }
+
     @Test
     public void testFindNearbyAirportsNull() {
         super.testFindNearbyAirportsNull();
@@ -82,6 +107,11 @@ public class SimpleAirportTest extends AirportTest {
         super.testUpdateAtmosphericInformation();
     }
 
+    @Test
+    public void testUpdateAtmosphericInformationConcurrently() throws Exception {
+        super.testUpdateAtmosphericInformationConcurrently();
+    }
+
     @Test
     public void testUpdateAtmosphericInformationNull() {
         super.testUpdateAtmosphericInformationNull();
@@ -97,6 +127,11 @@ public class SimpleAirportTest extends AirportTest {
         super.testSaveAirport();
     }
 
+    @Test
+    public void testSaveAirports() {
+        super.testSaveAirports();
+    }
+
     @Test
     public void testSaveAirportNull() {
         super.testSaveAirportNull();
@@ -127,4 +162,20 @@ public class SimpleAirportTest extends AirportTest {
         super.testDeleteAtmosphericInformationUnknown();
     }
 
+    @Test
+    public void testReload() {
+        simpleAirportDao.saveAirport(new Airport("AAA", 1, 1));
+        simpleAirportDao.updateAtmosphericInformation("AAA", "wind", new DataPoint(10, 20, 30, 40, 50));
+
+        simpleAirportDao.reload(Arrays.asList(new Airport("BBB", 1, 1), new Airport("CCC", 1, 1.1), null));
+        assertNull(simpleAirportDao.findAirportData("AAA"));
+        assertNull(simpleAirportDao.findAtmosphericInformation("AAA"));
+        assertNotNull(simpleAirportDao.findAirportData("BBB"));
+        assertEquals(2, simpleAirportDao.findNearbyAirports("BBB", 20).size());
+        assertEquals(0, simpleAirportDao.countRecentAtmosphericInformation());
+
+        simpleAirportDao.reload(Collections.emptyList());
+        assertEquals(0, simpleAirportDao.getAllAirportCodes().size());
+    }
+
 }
@@ -13,7 +13,15 @@ import com.crossover.trial.weather.services.AirportDao;
 import com.crossover.trial.weather.services.PerformanceDao;
 
 import javax.annotation.Resource;
-
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -100,6 +108,68 @@ public class SimplePerformanceTest {
         assertTrue(rfd.getAirportFrequency().get("BBB") == 0.5);
     }
 
+    @Test
+    public void testUpdateRequestFrequencyConcurrently() throws Exception {
+        airportDao.saveAirport(new Airport("AAA", 1.0, 2.0));
+        airportDao.saveAirport(new Airport("BBB", 1.0, 3.0));
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                String iata = t % 2 == 0 ? "AAA" : "BBB";
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 1000; i++) {
+                        dao.updateRequestFrequency(iata, i % 10);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        RequestFrequencyData rfd = dao.getPerformanceData();
+        assertEquals(0.5, rfd.getAirportFrequency().get("AAA"), 0);
+        assertEquals(0.5, rfd.getAirportFrequency().get("BBB"), 0);
+        assertEquals(10, rfd.getRadiusFrequency().length);
+        for (int count : rfd.getRadiusFrequency()) {
+            assertEquals(800, count);
+        }
+    }
+
+    @Test
+    public void testGetPerformanceSnapshot() throws Exception {
+        airportDao.saveAirport(new Airport("AAA", 1.0, 2.0));
+        RequestFrequencyData snapshot = dao.getPerformanceSnapshot();
+
+        airportDao.updateAtmosphericInformation("AAA", "wind", new DataPoint(10, 20, 30, 40, 50));
+        assertSame(snapshot, dao.getPerformanceSnapshot());
+        assertEquals(snapshot.getDataSize() + 1, dao.getPerformanceData().getDataSize());
+
+        dao.clear();
+        assertNotSame(snapshot, dao.getPerformanceSnapshot());
+    }
+
+    @Test
+    public void testDataSize() throws Exception {
+        long dataSize = dao.getPerformanceData().getDataSize();
+        airportDao.saveAirport(new Airport("AAA", 1.0, 2.0));
+        airportDao.saveAirport(new Airport("BBB", 1.0, 3.0));
+
+        airportDao.updateAtmosphericInformation("AAA", "wind", new DataPoint(10, 20, 30, 40, 50));
+        airportDao.updateAtmosphericInformation("AAA", "cloudcover", new DataPoint(10, 20, 30, 40, 50));
+        airportDao.updateAtmosphericInformation("BBB", "wind", new DataPoint(10, 20, 30, 40, 50));
+        assertEquals(dataSize + 2, dao.getPerformanceData().getDataSize());
+
+        airportDao.deleteAtmosphericInformation("AAA");
+        assertEquals(dataSize + 1, dao.getPerformanceData().getDataSize());
+        airportDao.deleteAirport("BBB");
+        assertEquals(dataSize, dao.getPerformanceData().getDataSize());
+    }
+
     @After
     public void tearDown() {
         airportDao.deleteAirport("AAA");
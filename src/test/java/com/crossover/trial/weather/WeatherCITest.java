@@ -30,7 +30,7 @@ public class WeatherCITest {
     @BeforeClass
     public static void init() throws InterruptedException, IOException {
         for (int i = 0; i < servers.length; i++) {
-            WeatherServer server = new WeatherServer();
+            WeatherServer server = new WeatherServer(true);
             servers[i] = server;
         }
         for (WeatherServer server : servers) {
@@ -89,7 +89,7 @@ public class WeatherCITest {
         assertNotNull(exception);
 
         //start the node again
-        servers[1] = new WeatherServer();
+        servers[1] = new WeatherServer(true);
         servers[1].start();
 
         //check that data is replicated back to the node
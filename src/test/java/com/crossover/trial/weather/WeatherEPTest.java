@@ -3,10 +3,19 @@ package com.crossover.trial.weather;
 import com.crossover.trial.weather.endpoints.WeatherCollectorEndpoint;
 import com.crossover.trial.weather.endpoints.WeatherQueryEndpoint;
 import com.crossover.trial.weather.models.Atmosphereinfo;
+import com.crossover.trial.weather.models.CacheStats;
 import com.crossover.trial.weather.models.DataPoint;
+import com.crossover.trial.weather.models.LatencyData;
+import com.crossover.trial.weather.models.NearbyAtmosphere;
+import com.crossover.trial.weather.models.ReadingStatus;
 import com.crossover.trial.weather.models.RequestFrequencyData;
+import com.crossover.trial.weather.models.TimedDataPoint;
+import com.crossover.trial.weather.services.AirportDao;
+import com.crossover.trial.weather.services.PerformanceDao;
+import com.crossover.trial.weather.utils.GeoUtils;
 import com.crossover.trial.weather.utils.Storage;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -15,10 +24,16 @@ import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 
 import javax.annotation.Resource;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Map;
 
 import static junit.framework.TestCase.assertNotNull;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Weather endpoint tests
@@ -31,13 +46,18 @@ public class WeatherEPTest {
     private WeatherQueryEndpoint _query;
     @Resource
     private WeatherCollectorEndpoint _update;
+    @Resource
+    private AirportDao airportDao;
+    @Resource
+    private PerformanceDao performanceDao;
+    @Resource
+    private Storage storage;
 
     @Before
     public void setUp() throws Exception {
-        Storage.getAIRPORT_DATA().clear();
-        Storage.getATMOSPHERIC_INFORMATION().clear();
-        Storage.getREQUEST_FREQUENCY().clear();
-        Storage.getRADIUS_FREQUENCY().clear();
+        airportDao.getAllAirportCodes().forEach(airportDao::deleteAirport);
+        storage.clear();
+        performanceDao.clear();
 
         _update.addAirport("BOS", "42.364347", "-71.005181");
         _update.addAirport("EWR", "40.6925", "-74.168667");
@@ -78,6 +98,147 @@ public class WeatherEPTest {
         assertEquals(3, ais.size());
     }
 
+    @Test
+    public void testGetNearbyLines() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        DataPoint dp = new DataPoint(10, 10, 20, 30, 22);
+        _update.updateWeather("JFK", "wind", mapper.writeValueAsString(dp));
+        _update.updateWeather("EWR", "wind", mapper.writeValueAsString(dp));
+
+        Response response = _query.weatherLines("JFK", "200");
+        assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ((StreamingOutput) response.getEntity()).write(out);
+        String[] lines = new String(out.toByteArray(), StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        for (String line : lines) {
+            assertEquals(dp, mapper.readValue(line, Atmosphereinfo.class).getWind());
+        }
+
+        out.reset();
+        ((StreamingOutput) _query.weatherLines("BOS", "0").getEntity()).write(out);
+        assertTrue(new String(out.toByteArray(), StandardCharsets.UTF_8).endsWith("}\n"));
+
+        out.reset();
+        ((StreamingOutput) _query.weatherLines("AAA", "200").getEntity()).write(out);
+        assertEquals(0, out.size());
+        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), _query.weatherLines(null, "0").getStatus());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testNearby() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        DataPoint dp = new DataPoint(10, 10, 20, 30, 22);
+        _update.updateWeather("JFK", "wind", mapper.writeValueAsString(dp));
+        _update.updateWeather("EWR", "wind", mapper.writeValueAsString(dp));
+        _update.updateWeather("LGA", "wind", mapper.writeValueAsString(dp));
+
+        List<NearbyAtmosphere> nearby = (List<NearbyAtmosphere>) _query.nearby("JFK", "200", null, null).getEntity();
+        assertEquals(3, nearby.size());
+        assertEquals("JFK", nearby.get(0).getIata());
+        assertEquals(0, nearby.get(0).getDistanceKm(), 1e-6);
+        assertEquals("LGA", nearby.get(1).getIata());
+        assertEquals(GeoUtils.distance(40.639751, -73.778925, 40.777245, -73.872608), nearby.get(1).getDistanceKm(), 1e-6);
+        assertEquals("EWR", nearby.get(2).getIata());
+        assertEquals(dp, nearby.get(2).getAtmosphere().getWind());
+
+        // BOS is out of the radius, MMU has no atmospheric information
+        nearby = (List<NearbyAtmosphere>) _query.nearby("EWR", "1000", "2", "distance").getEntity();
+        assertEquals(2, nearby.size());
+        assertEquals("EWR", nearby.get(0).getIata());
+        assertEquals("LGA", nearby.get(1).getIata());
+        nearby = (List<NearbyAtmosphere>) _query.nearby("EWR", "1000", "10", null).getEntity();
+        assertEquals(4, nearby.size());
+        assertEquals("BOS", nearby.get(3).getIata());
+
+        assertTrue(((List<NearbyAtmosphere>) _query.nearby("AAA", "200", null, null).getEntity()).isEmpty());
+        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), _query.nearby(null, "200", null, null).getStatus());
+        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), _query.nearby("JFK", "200", "-1", null).getStatus());
+        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), _query.nearby("JFK", "200", "ten", null).getStatus());
+        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), _query.nearby("JFK", "200", null, "name").getStatus());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testNearest() throws Exception {
+        _update.updateWeather("EWR", "wind", new ObjectMapper().writeValueAsString(new DataPoint(10, 10, 20, 30, 22)));
+        _update.updateWeather("JFK", "wind", new ObjectMapper().writeValueAsString(new DataPoint(10, 10, 20, 30, 22)));
+
+        // JFK itself and LGA, the nearest airport but without atmospheric information, are skipped
+        List<NearbyAtmosphere> nearest = (List<NearbyAtmosphere>) _query.nearest("JFK", "3", null, null).getEntity();
+        assertEquals(2, nearest.size());
+        assertEquals("EWR", nearest.get(0).getIata());
+        assertEquals("BOS", nearest.get(1).getIata());
+        assertEquals("JFK", ((List<NearbyAtmosphere>) _query.nearest("LGA", "1", null, null).getEntity())
+                .get(0).getIata());
+
+        // BOS is the only other airport with fresh atmospheric information, far beyond the others
+        nearest = (List<NearbyAtmosphere>) _query.nearest("JFK", "2", null, "60000").getEntity();
+        assertEquals(2, nearest.size());
+        assertEquals("EWR", nearest.get(0).getIata());
+        assertEquals("BOS", nearest.get(1).getIata());
+        nearest = (List<NearbyAtmosphere>) _query.nearest("JFK", "5", "wind", null).getEntity();
+        assertEquals(2, nearest.size());
+        assertTrue(((List<NearbyAtmosphere>) _query.nearest("JFK", "5", "pressure", null).getEntity()).isEmpty());
+
+        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), _query.nearest(null, "1", null, null).getStatus());
+        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), _query.nearest("JFK", "0", null, null).getStatus());
+        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), _query.nearest("JFK", "1", "snow", null).getStatus());
+        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), _query.nearest("JFK", "1", null, "old").getStatus());
+        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), _query.nearest("JFK", "1", null, "-1").getStatus());
+        assertEquals(Response.Status.OK.getStatusCode(), _query.nearest("JFK", "1", null, " ").getStatus());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testNear() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        DataPoint dp = new DataPoint(10, 10, 20, 30, 22);
+        _update.updateWeather("JFK", "wind", mapper.writeValueAsString(dp));
+        _update.updateWeather("EWR", "wind", mapper.writeValueAsString(dp));
+
+        // over Manhattan, between the airports
+        List<NearbyAtmosphere> near = (List<NearbyAtmosphere>) _query.near("40.75", "-73.99", "50", null).getEntity();
+        assertEquals(2, near.size());
+        assertEquals("EWR", near.get(0).getIata());
+        assertEquals(GeoUtils.distance(40.75, -73.99, 40.6925, -74.168667), near.get(0).getDistanceKm(), 1e-6);
+        assertEquals("JFK", near.get(1).getIata());
+        assertEquals(1, ((List<NearbyAtmosphere>) _query.near("40.75", "-73.99", "50", "1").getEntity()).size());
+        assertEquals(3, ((List<NearbyAtmosphere>) _query.near("40.75", "-73.99", "500", null).getEntity()).size());
+        assertTrue(((List<NearbyAtmosphere>) _query.near("0", "0", "500", null).getEntity()).isEmpty());
+
+        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), _query.near("91", "0", "50", null).getStatus());
+        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), _query.near("north", "0", "50", null).getStatus());
+        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), _query.near("0", null, "50", null).getStatus());
+        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), _query.near("0", "0", "far", null).getStatus());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testBbox() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        DataPoint dp = new DataPoint(10, 10, 20, 30, 22);
+        _update.updateWeather("JFK", "wind", mapper.writeValueAsString(dp));
+        _update.updateWeather("LGA", "wind", mapper.writeValueAsString(dp));
+        _update.updateWeather("MMU", "wind", mapper.writeValueAsString(dp));
+
+        // New York City, LGA is the nearest to the centre
+        List<NearbyAtmosphere> box = (List<NearbyAtmosphere>) _query.bbox("40.5", "-74.1", "40.9", "-73.7", null).getEntity();
+        assertEquals(2, box.size());
+        assertEquals("LGA", box.get(0).getIata());
+        assertEquals("JFK", box.get(1).getIata());
+        assertEquals(1, ((List<NearbyAtmosphere>) _query.bbox("40.5", "-74.1", "40.9", "-73.7", "1").getEntity()).size());
+        // the whole world the long way round
+        assertEquals(4, ((List<NearbyAtmosphere>) _query.bbox("-90", "0", "90", "-0.0001", null).getEntity()).size());
+        assertTrue(((List<NearbyAtmosphere>) _query.bbox("-90", "-60", "90", "-100", null).getEntity()).isEmpty());
+
+        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), _query.bbox("41", "-74", "40", "-73", null).getStatus());
+        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), _query.bbox("-91", "-74", "40", "-73", null).getStatus());
+        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), _query.bbox("40", "west", "41", "-73", null).getStatus());
+        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), _query.bbox("40", "-74", "41", "-73", "-1").getStatus());
+    }
+
     @Test
     @SuppressWarnings("unchecked")
     public void testUpdate() throws Exception {
@@ -96,6 +257,46 @@ public class WeatherEPTest {
         assertEquals(ais.get(0).getCloudCover(), cloudCoverDp);
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testUpdateBatch() throws Exception {
+        String readings = "[" +
+                "{\"iata\":\"JFK\",\"pointType\":\"wind\",\"dataPoint\":{\"mean\":12,\"first\":1,\"second\":2,\"third\":3,\"count\":4}}," +
+                "{\"iata\":\"JFK\",\"pointType\":\"temperature\",\"dataPoint\":{\"mean\":25,\"first\":1,\"second\":2,\"third\":3,\"count\":4}}," +
+                "{\"iata\":\"JFK\",\"pointType\":\"pressure\",\"dataPoint\":{\"mean\":1,\"first\":1,\"second\":2,\"third\":3,\"count\":4}}," +
+                "{\"iata\":\"AAA\",\"pointType\":\"wind\",\"dataPoint\":{\"mean\":12,\"first\":1,\"second\":2,\"third\":3,\"count\":4}}," +
+                "{\"iata\":\"EWR\",\"pointType\":\"wind\",\"dataPoint\":{\"mean\":40,\"first\":1,\"second\":2,\"third\":3,\"count\":4}}" +
+                "]";
+        Response response = _update.updateWeatherBatch(stream(readings));
+        assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
+        List<ReadingStatus> statuses = (List<ReadingStatus>) response.getEntity();
+        assertEquals(5, statuses.size());
+        assertEquals(200, statuses.get(0).getStatus());
+        assertEquals(200, statuses.get(1).getStatus());
+        assertEquals(400, statuses.get(2).getStatus());
+        assertEquals(400, statuses.get(3).getStatus());
+        assertEquals(200, statuses.get(4).getStatus());
+
+        List<Atmosphereinfo> ais = (List<Atmosphereinfo>) _query.weather("JFK", "0").getEntity();
+        assertEquals(new DataPoint(1, 2, 12, 3, 4), ais.get(0).getWind());
+        assertEquals(new DataPoint(1, 2, 25, 3, 4), ais.get(0).getTemperature());
+        assertEquals(null, ais.get(0).getPressure());
+
+        String ndjson = "{\"iata\":\"LGA\",\"pointType\":\"cloudcover\",\"dataPoint\":{\"mean\":50,\"first\":1,\"second\":2,\"third\":3,\"count\":4}}\n" +
+                "{\"iata\":\"LGA\",\"pointType\":\"cloudcover\",\"dataPoint\":{\"mean\":60,\"first\":1,\"second\":2,\"third\":3,\"count\":4}}\n";
+        response = _update.updateWeatherBatch(stream(ndjson));
+        assertEquals(2, ((List<ReadingStatus>) response.getEntity()).size());
+        ais = (List<Atmosphereinfo>) _query.weather("LGA", "0").getEntity();
+        assertEquals(60, ais.get(0).getCloudCover().getMean(), 0);
+
+        response = _update.updateWeatherBatch(stream("[{\"iata\":"));
+        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), response.getStatus());
+    }
+
+    private static ByteArrayInputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+
     @Test
     public void testPing() throws Exception {
         _query.weather("JFK", String.valueOf(5));
@@ -107,4 +308,107 @@ public class WeatherEPTest {
         assertNotNull(rfd.getRadiusFrequency());
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testMetrics() throws Exception {
+        _query.weather("JFK", "0");
+        _query.weather("JFK", "100");
+
+        Map<String, LatencyData> metrics = (Map<String, LatencyData>) _query.metrics().getEntity();
+        LatencyData weather = metrics.get("WeatherQueryEndpoint.weather");
+        assertNotNull(weather);
+        assertTrue(weather.getCount() >= 3);
+        assertTrue(weather.getP50() <= weather.getP99());
+        assertTrue(weather.getP99() <= weather.getP999());
+        assertTrue(weather.getP999() <= weather.getMax());
+        assertNotNull(metrics.get("WeatherCollectorEndpoint.addAirport"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testCache() throws Exception {
+        DataPoint dp = new DataPoint(1, 2, 3, 4, 5);
+        _update.updateWeather("JFK", "wind", new ObjectMapper().writeValueAsString(dp));
+        CacheStats before = (CacheStats) _query.cache().getEntity();
+        // cached on the second miss and hit by the third query
+        for (int i = 0; i < 3; i++) {
+            assertEquals(1, ((List<Atmosphereinfo>) _query.weather("JFK", "20").getEntity()).size());
+        }
+
+        // LGA is within 20 KM of JFK, its first update drops the cached result
+        _update.updateWeather("LGA", "wind", new ObjectMapper().writeValueAsString(dp));
+        assertEquals(2, ((List<Atmosphereinfo>) _query.weather("JFK", "20").getEntity()).size());
+
+        CacheStats after = (CacheStats) _query.cache().getEntity();
+        assertEquals(1, after.getHits() - before.getHits());
+        assertEquals(3, after.getMisses() - before.getMisses());
+        assertEquals(1, after.getInvalidations() - before.getInvalidations());
+        assertTrue(after.getCapacity() > 0);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testHistory() throws Exception {
+        long start = System.currentTimeMillis();
+        DataPoint dp = new DataPoint(20, 21, 22, 23, 24);
+        _update.updateWeather("JFK", "temperature", new ObjectMapper().writeValueAsString(dp));
+        _update.updateWeather("JFK", "temperature", new ObjectMapper().writeValueAsString(new DataPoint(30, 31, 32, 33, 34)));
+
+        List<TimedDataPoint> history = (List<TimedDataPoint>) _query.history("JFK", "TEMPERATURE", null, null).getEntity();
+        assertEquals(2, history.size());
+        assertEquals(dp, history.get(0).getDataPoint());
+        assertTrue(history.get(0).getTime() >= start);
+        assertTrue(history.get(0).getTime() <= history.get(1).getTime());
+
+        String now = String.valueOf(System.currentTimeMillis());
+        history = (List<TimedDataPoint>) _query.history("JFK", "temperature", String.valueOf(start), now).getEntity();
+        assertEquals(2, history.size());
+        history = (List<TimedDataPoint>) _query.history("JFK", "temperature", null, String.valueOf(start - 1)).getEntity();
+        assertTrue(history.isEmpty());
+        history = (List<TimedDataPoint>) _query.history("JFK", "wind", null, null).getEntity();
+        assertTrue(history.isEmpty());
+
+        assertEquals(Response.Status.OK.getStatusCode(), _query.history("AAA", "wind", null, null).getStatus());
+        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), _query.history(null, "wind", null, null).getStatus());
+        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), _query.history("JFK", "snow", null, null).getStatus());
+        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), _query.history("JFK", "wind", "yesterday", null).getStatus());
+
+        airportDao.deleteAtmosphericInformation("JFK");
+        history = (List<TimedDataPoint>) _query.history("JFK", "temperature", null, null).getEntity();
+        assertTrue(history.isEmpty());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testRollup() throws Exception {
+        _update.updateWeather("EWR", "humidty", new ObjectMapper().writeValueAsString(new DataPoint(10, 20, 30, 40, 5)));
+        _update.updateWeather("EWR", "humidty", new ObjectMapper().writeValueAsString(new DataPoint(20, 30, 50, 60, 5)));
+
+        for (String resolution : new String[]{"1m", "hour", "1D"}) {
+            List<TimedDataPoint> rollup = (List<TimedDataPoint>) _query.rollup("EWR", "humidty", resolution).getEntity();
+            // the updates may straddle the end of a bucket
+            assertTrue(resolution, rollup.size() == 1 || rollup.size() == 2);
+            DataPoint dp = rollup.get(rollup.size() - 1).getDataPoint();
+            if (rollup.size() == 1) {
+                assertEquals(10, dp.getFirst());
+                assertEquals(60, dp.getThird());
+                assertEquals(40, dp.getMean(), 1e-9);
+                assertEquals(2, dp.getCount());
+            }
+        }
+
+        List<TimedDataPoint> rollup = (List<TimedDataPoint>) _query.rollup("EWR", "wind", "1h").getEntity();
+        assertTrue(rollup.isEmpty());
+        assertEquals(Response.Status.OK.getStatusCode(), _query.rollup("AAA", "wind", "1h").getStatus());
+        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), _query.rollup(null, "wind", "1h").getStatus());
+        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), _query.rollup("EWR", "snow", "1h").getStatus());
+        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), _query.rollup("EWR", "wind", "1w").getStatus());
+    }
+
+    @After
+    public void tearDown() {
+        airportDao.getAllAirportCodes().forEach(airportDao::deleteAirport);
+        performanceDao.clear();
+    }
+
 }
@@ -0,0 +1,70 @@
+package com.crossover.trial.weather;
+
+import com.crossover.trial.weather.server.WeatherServer;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.ClientBuilder;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Content negotiation between the json list and the newline delimited json stream of the nearby weather
+ */
+public class WeatherLinesTest {
+
+    private static WeatherServer server;
+
+    private static WebTarget target;
+
+    @BeforeClass
+    public static void init() {
+        server = new WeatherServer();
+        server.start();
+        Client client = ClientBuilder.newClient();
+        target = client.target("http://localhost:" + server.getPort());
+
+        target.path("/collect/airport/JFK/40.639751/-73.778925").request().post(Entity.text(""));
+        target.path("/collect/airport/EWR/40.6925/-74.168667").request().post(Entity.text(""));
+        String dp = "{\"mean\":10.0,\"first\":10,\"second\":20,\"third\":30,\"count\":22}";
+        target.path("/collect/weather/JFK/wind").request().post(Entity.json(dp));
+        target.path("/collect/weather/EWR/wind").request().post(Entity.json(dp));
+    }
+
+    @AfterClass
+    public static void destroy() {
+        target.path("/collect/airport/JFK").request().delete();
+        target.path("/collect/airport/EWR").request().delete();
+        server.stop();
+    }
+
+    @Test
+    public void testLines() {
+        Response response = target.path("/query/weather/JFK/200").request("application/x-ndjson").get();
+        assertEquals(200, response.getStatus());
+        assertEquals("application/x-ndjson", response.getMediaType().toString());
+        String[] lines = response.readEntity(String.class).split("\n");
+        assertEquals(2, lines.length);
+        for (String line : lines) {
+            assertTrue(line.startsWith("{") && line.endsWith("}"));
+        }
+    }
+
+    @Test
+    public void testJsonByDefault() {
+        Response response = target.path("/query/weather/JFK/200").request().get();
+        assertEquals(MediaType.APPLICATION_JSON_TYPE, response.getMediaType());
+        assertTrue(response.readEntity(String.class).startsWith("["));
+
+        response = target.path("/query/weather/JFK/200").request(MediaType.APPLICATION_JSON).get();
+        assertEquals(MediaType.APPLICATION_JSON_TYPE, response.getMediaType());
+    }
+
+}